@@ -0,0 +1,66 @@
+package com.pm.chatbotwithai.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Shared non-blocking HTTP client for the AI providers. All providers draw from the same
+ * connection provider, which keeps one bounded pool per remote host and reuses keep-alive
+ * connections between generations.
+ */
+@Configuration
+public class AIClientConfig {
+
+    @Value("${chatbot.ai.http.max-connections-per-host:200}")
+    private int maxConnectionsPerHost;
+
+    @Value("${chatbot.ai.http.pending-acquire-max-count:2000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${chatbot.ai.http.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${chatbot.ai.http.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${chatbot.ai.http.max-life-time-seconds:300}")
+    private long maxLifeTimeSeconds;
+
+    @Value("${chatbot.ai.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${chatbot.ai.http.response-timeout-seconds:60}")
+    private long responseTimeoutSeconds;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider() {
+        return ConnectionProvider.builder("ai-providers")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleTimeSeconds))
+                .build();
+    }
+
+    @Bean
+    public WebClient aiWebClient(WebClient.Builder webClientBuilder, ConnectionProvider aiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(aiConnectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofSeconds(responseTimeoutSeconds));
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
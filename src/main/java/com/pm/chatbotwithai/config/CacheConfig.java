@@ -0,0 +1,32 @@
+package com.pm.chatbotwithai.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    public static final String AI_RESPONSE_CACHE = "aiResponses";
+
+    @Value("${chatbot.ai.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${chatbot.ai.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(AI_RESPONSE_CACHE);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats());
+        return cacheManager;
+    }
+}
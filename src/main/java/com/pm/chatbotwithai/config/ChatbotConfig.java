@@ -1,8 +1,13 @@
 package com.pm.chatbotwithai.config;
 
+import com.pm.chatbotwithai.service.resilience.ResourceLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -13,9 +18,12 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableAsync
@@ -23,8 +31,22 @@ import java.util.concurrent.Executor;
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class ChatbotConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotConfig.class);
+
+    // With virtual threads, concurrency is bounded per resource (ResourceLimiter, Bulkhead) instead of by pool size
+    @Value("${chatbot.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+
+        if (virtualThreads) {
+            logger.info("Async pipeline running on virtual threads");
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Chatbot-Async-");
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(10_000);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(16);
@@ -35,13 +57,34 @@ public class ChatbotConfig {
         return executor;
     }
 
+    @Bean(name = "aiExecutor", destroyMethod = "close")
+    public ExecutorService aiExecutor(@Value("${chatbot.ai.worker-threads:4}") int workerThreads) {
+
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AI-Worker-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "AI-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Bean
+    public ResourceLimiter databaseLimiter(
+            @Value("${chatbot.async.limits.database:10}") int maxConcurrent,
+            @Value("${chatbot.async.limits.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        return new ResourceLimiter("database", maxConcurrent, Duration.ofMillis(acquireTimeoutMs));
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/v1/chat/health", "/api/v1/chat/message",
+                        .requestMatchers("/api/v1/chat/health", "/api/v1/chat/health/live",
+                                "/api/v1/chat/health/ready", "/api/v1/chat/message",
                                 "/api/v1/chat/conversation/**", "/api/v1/chat/conversations",
                                 "/api/v1/chat/rate-limit/status", "/api/v1/chat/stats").permitAll()
                         .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
@@ -0,0 +1,43 @@
+package com.pm.chatbotwithai.config;
+
+import com.pm.chatbotwithai.service.tokenizer.BpeTokenizer;
+import com.pm.chatbotwithai.service.tokenizer.HeuristicTokenizer;
+import com.pm.chatbotwithai.service.tokenizer.Tokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.InputStream;
+
+@Configuration
+public class TokenizerConfig {
+    private static final Logger logger = LoggerFactory.getLogger(TokenizerConfig.class);
+
+    // Any Spring resource location, e.g. file:/models/cl100k_base.tiktoken or classpath:tokenizer/o200k_base.tiktoken
+    @Value("${chatbot.ai.tokenizer.vocabulary:}")
+    private String vocabularyLocation;
+
+    @Bean
+    public Tokenizer tokenizer(ResourceLoader resourceLoader) {
+
+        if (vocabularyLocation == null || vocabularyLocation.isBlank()) {
+            logger.warn("No tokenizer vocabulary configured, token counts will be estimated from text length");
+            return new HeuristicTokenizer();
+        }
+        Resource resource = resourceLoader.getResource(vocabularyLocation);
+
+        try (InputStream vocabulary = resource.getInputStream()) {
+            BpeTokenizer tokenizer = BpeTokenizer.load(resource.getFilename(), vocabulary);
+            logger.info("Loaded BPE tokenizer {} with {} tokens", tokenizer.getName(), tokenizer.getVocabularySize());
+            return tokenizer;
+        } catch (Exception ex) {
+            logger.error("Could not load tokenizer vocabulary from {}, falling back to estimates",
+                    vocabularyLocation, ex);
+            return new HeuristicTokenizer();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pm.chatbotwithai.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async request handling for the chat endpoints. Spring MVC writes each element of a streamed
+ * (SSE) response from this executor, which without configuration is an unbounded
+ * {@code SimpleAsyncTaskExecutor}. It is kept apart from the chat pipeline's taskExecutor so
+ * slow clients cannot hold up generation.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Value("${chatbot.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    // A little over chatbot.request.deadline-ms, so the deadline's own error reaches the client first
+    @Value("${chatbot.web.async.timeout-ms:35000}")
+    private long asyncTimeoutMs;
+
+    @Value("${chatbot.web.async.core-threads:8}")
+    private int coreThreads;
+
+    @Value("${chatbot.web.async.max-threads:32}")
+    private int maxThreads;
+
+    @Value("${chatbot.web.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+
+    @Bean(name = "mvcAsyncExecutor")
+    public AsyncTaskExecutor mvcAsyncExecutor() {
+
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Chatbot-Mvc-");
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(10_000);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Chatbot-Mvc-");
+        executor.initialize();
+        return executor;
+    }
+}
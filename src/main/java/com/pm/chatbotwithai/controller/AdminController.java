@@ -1,7 +1,20 @@
 package com.pm.chatbotwithai.controller;
 
+import com.pm.chatbotwithai.service.AIModelService;
 import com.pm.chatbotwithai.service.ConversationService;
+import com.pm.chatbotwithai.service.ConversationSummarizer;
 import com.pm.chatbotwithai.service.RateLimitService;
+import com.pm.chatbotwithai.service.ai.LoadBalancedLocalAIProvider;
+import com.pm.chatbotwithai.service.ai.ResilientAIProvider;
+import com.pm.chatbotwithai.service.cache.AIResponseCache;
+import com.pm.chatbotwithai.service.cache.ConversationContextCache;
+import com.pm.chatbotwithai.service.cache.RequestCoalescer;
+import com.pm.chatbotwithai.service.cache.SemanticResponseCache;
+import com.pm.chatbotwithai.service.health.ProviderHealthProber;
+import com.pm.chatbotwithai.service.moderation.ContentModerationService;
+import com.pm.chatbotwithai.service.resilience.RequestHedger;
+import com.pm.chatbotwithai.service.resilience.ResourceLimiter;
+import com.pm.chatbotwithai.service.scheduling.GenerationScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +22,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/admin")
 @PreAuthorize("hasRole('ADMIN')")
@@ -16,12 +31,30 @@ public class AdminController {
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
     private final ConversationService conversationService;
+    private final AIModelService aiModelService;
     private final RateLimitService rateLimitService;
+    private final AIResponseCache responseCache;
+    private final SemanticResponseCache semanticCache;
+    private final ResourceLimiter databaseLimiter;
+    private final ConversationSummarizer conversationSummarizer;
+    private final ProviderHealthProber healthProber;
+    private final ContentModerationService contentModerationService;
 
     @Autowired
-    public AdminController(ConversationService conversationService, RateLimitService rateLimitService) {
+    public AdminController(ConversationService conversationService, AIModelService aiModelService,
+                           RateLimitService rateLimitService, AIResponseCache responseCache,
+                           SemanticResponseCache semanticCache, ResourceLimiter databaseLimiter,
+                           ConversationSummarizer conversationSummarizer, ProviderHealthProber healthProber,
+                           ContentModerationService contentModerationService) {
         this.conversationService = conversationService;
+        this.aiModelService = aiModelService;
         this.rateLimitService = rateLimitService;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.databaseLimiter = databaseLimiter;
+        this.conversationSummarizer = conversationSummarizer;
+        this.healthProber = healthProber;
+        this.contentModerationService = contentModerationService;
     }
 
     @DeleteMapping("/rate-limit/{userId}")
@@ -46,6 +79,86 @@ public class AdminController {
         return ResponseEntity.ok(new SystemStats());
     }
 
+    @GetMapping("/stats/cache")
+    public ResponseEntity<AIResponseCache.ResponseCacheStats> getCacheStats() {
+        return ResponseEntity.ok(responseCache.getStats());
+    }
+
+    @GetMapping("/stats/semantic-cache")
+    public ResponseEntity<SemanticResponseCache.SemanticCacheStats> getSemanticCacheStats() {
+        return ResponseEntity.ok(semanticCache.getStats());
+    }
+
+    @GetMapping("/stats/context-cache")
+    public ResponseEntity<ConversationContextCache.ContextCacheStats> getContextCacheStats() {
+        return ResponseEntity.ok(conversationService.getContextCacheStats());
+    }
+
+    @GetMapping("/stats/coalescing")
+    public ResponseEntity<RequestCoalescer.CoalescingStats> getCoalescingStats() {
+        return ResponseEntity.ok(aiModelService.getCoalescingStats());
+    }
+
+    @GetMapping("/stats/scheduler")
+    public ResponseEntity<GenerationScheduler.SchedulerStats> getSchedulerStats() {
+        return ResponseEntity.ok(aiModelService.getSchedulerStats());
+    }
+
+    @GetMapping("/stats/hedging")
+    public ResponseEntity<RequestHedger.HedgingStats> getHedgingStats() {
+        return ResponseEntity.ok(aiModelService.getHedgingStats());
+    }
+
+    @GetMapping("/stats/resilience")
+    public ResponseEntity<ResilientAIProvider.ResilienceStats> getResilienceStats() {
+        return aiModelService.getResilienceStats()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/stats/database-limiter")
+    public ResponseEntity<ResourceLimiter.ResourceLimiterStats> getDatabaseLimiterStats() {
+        return ResponseEntity.ok(databaseLimiter.getStats());
+    }
+
+    @GetMapping("/stats/summarizer")
+    public ResponseEntity<ConversationSummarizer.SummarizerStats> getSummarizerStats() {
+        return ResponseEntity.ok(conversationSummarizer.getStats());
+    }
+
+    @GetMapping("/stats/health-history")
+    public ResponseEntity<List<ProviderHealthProber.HealthSnapshot>> getHealthHistory() {
+        return ResponseEntity.ok(healthProber.getHistory());
+    }
+
+    @GetMapping("/stats/moderation")
+    public ResponseEntity<ContentModerationService.ModerationStats> getModerationStats() {
+        return ResponseEntity.ok(contentModerationService.getStats());
+    }
+
+    @PostMapping("/moderation/reload")
+    public ResponseEntity<ContentModerationService.ModerationStats> reloadModerationLexicons() {
+        logger.info("Admin reloading moderation lexicons");
+
+        if (!contentModerationService.reload()) {
+            return ResponseEntity.internalServerError().body(contentModerationService.getStats());
+        }
+        return ResponseEntity.ok(contentModerationService.getStats());
+    }
+
+    @GetMapping("/stats/endpoints")
+    public ResponseEntity<List<LoadBalancedLocalAIProvider.EndpointStats>> getEndpointStats() {
+        return ResponseEntity.ok(aiModelService.getEndpointStats());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> clearResponseCache() {
+        logger.info("Admin clearing AI response caches");
+        responseCache.clear();
+        semanticCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
     private static class SystemStats {
         private final long totalConversations = 0;
         private final long totalMessages = 0;
@@ -1,11 +1,18 @@
 package com.pm.chatbotwithai.controller;
 
+import com.pm.chatbotwithai.exception.ChatbotException;
+import com.pm.chatbotwithai.exception.ContentModerationException;
+import com.pm.chatbotwithai.exception.DeadlineExceededException;
 import com.pm.chatbotwithai.model.dto.request.MessageRequest;
 import com.pm.chatbotwithai.model.dto.response.ChatResponse;
+import com.pm.chatbotwithai.model.dto.response.ChatStreamEvent;
 import com.pm.chatbotwithai.model.dto.response.ConversationResponse;
 import com.pm.chatbotwithai.service.AIModelService;
 import com.pm.chatbotwithai.service.ConversationService;
 import com.pm.chatbotwithai.service.RateLimitService;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.health.ProviderHealthProber;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
@@ -13,12 +20,18 @@ import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import java.util.concurrent.CompletableFuture;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/v1/chat")
@@ -30,41 +43,113 @@ public class ChatController {
     private final ConversationService conversationService;
     private final AIModelService aiModelService;
     private final RateLimitService rateLimitService;
+    private final ProviderHealthProber healthProber;
+
+    // Budget for a whole chat request, from arrival to the last byte of the response
+    @Value("${chatbot.request.deadline-ms:30000}")
+    private long requestDeadlineMs;
 
     @Autowired
     public ChatController(ConversationService conversationService,
                           AIModelService aiModelService,
-                          RateLimitService rateLimitService) {
+                          RateLimitService rateLimitService,
+                          ProviderHealthProber healthProber) {
         this.conversationService = conversationService;
         this.aiModelService = aiModelService;
         this.rateLimitService = rateLimitService;
+        this.healthProber = healthProber;
     }
 
     @PostMapping("/message")
-    public CompletableFuture<ResponseEntity<ChatResponse>> sendMessage(
+    public DeferredResult<ResponseEntity<ChatResponse>> sendMessage(
             @Valid
             @RequestBody MessageRequest messageRequest,
-            @RequestHeader(value = "X-User-ID", required = false) String userId) {
+            @RequestHeader(value = "X-User-ID", required = false) String userId,
+            @RequestHeader(value = "X-Priority", required = false) String priority) {
 
         if (messageRequest.getUserId() == null && userId != null) {
             messageRequest.setUserId(userId);
         }
+        if (messageRequest.getPriority() == null) {
+            messageRequest.setPriority(GenerationPriority.fromValue(priority));
+        }
 
         logger.info("Received message from user: {}, conversation: {}",
                 messageRequest.getUserId(), messageRequest.getConversationId());
 
-        return conversationService.processMessageAsync(messageRequest)
-                .thenApply(chatResponse -> {
-                    logger.info("Message processed successfully for user: {}",
-                            messageRequest.getUserId());
-                    return ResponseEntity.ok(chatResponse);
-                })
-                .exceptionally(throwable -> {
-                    logger.error("Error processing message", throwable);
-                    ChatResponse errorResponse = new ChatResponse("PROCESSING_ERROR");
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                            .body(errorResponse);
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(requestDeadlineMs));
+        DeferredResult<ResponseEntity<ChatResponse>> result = new DeferredResult<>(requestDeadlineMs);
+
+        // Cancelling the deadline cancels the provider call, so nobody keeps generating for a gone client
+        result.onTimeout(() -> {
+            deadline.cancel("deadline exceeded");
+            result.setResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(new ChatResponse("DEADLINE_EXCEEDED")));
+        });
+        result.onError(throwable -> deadline.cancel("client disconnected"));
+        result.onCompletion(deadline::finish);
+
+        conversationService.processMessageAsync(messageRequest, deadline)
+                .whenComplete((chatResponse, throwable) -> {
+
+                    if (throwable == null) {
+                        logger.info("Message processed successfully for user: {}",
+                                messageRequest.getUserId());
+                        result.setResult(ResponseEntity.ok(chatResponse));
+                        return;
+                    }
+                    ChatbotException failure = findChatbotException(throwable);
+
+                    if (failure instanceof DeadlineExceededException) {
+                        logger.warn("Deadline exceeded processing message for user: {}", messageRequest.getUserId());
+                    } else {
+                        logger.error("Error processing message", throwable);
+                    }
+                    // Failures the service classified keep their status, as they do outside async requests
+                    HttpStatus status = failure != null ? failure.getHttpStatus() : HttpStatus.INTERNAL_SERVER_ERROR;
+                    String errorCode = failure != null ? failure.getErrorCode() : "PROCESSING_ERROR";
+                    ChatResponse errorResponse = new ChatResponse(errorCode);
+
+                    if (failure instanceof ContentModerationException moderationException) {
+                        errorResponse.setModerationCategory(moderationException.getCategory());
+                    }
+                    result.setResult(ResponseEntity.status(status).body(errorResponse));
                 });
+        return result;
+    }
+
+    @PostMapping(value = "/message", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatStreamEvent>> streamMessage(
+            @Valid
+            @RequestBody MessageRequest messageRequest,
+            @RequestHeader(value = "X-User-ID", required = false) String userId,
+            @RequestHeader(value = "X-Priority", required = false) String priority) {
+
+        if (messageRequest.getUserId() == null && userId != null) {
+            messageRequest.setUserId(userId);
+        }
+        if (messageRequest.getPriority() == null) {
+            messageRequest.setPriority(GenerationPriority.fromValue(priority));
+        }
+
+        logger.info("Received streaming message from user: {}, conversation: {}",
+                messageRequest.getUserId(), messageRequest.getConversationId());
+
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(requestDeadlineMs));
+
+        return conversationService.processMessageStream(messageRequest, deadline)
+                .onErrorResume(throwable -> {
+                    logger.error("Error streaming message", throwable);
+                    ChatbotException failure = findChatbotException(throwable);
+                    String errorCode = failure != null ? failure.getErrorCode() : "PROCESSING_ERROR";
+                    return Flux.just(ChatStreamEvent.error(errorCode));
+                })
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType().name().toLowerCase())
+                        .build())
+                // A disconnect cancels the subscription, which already stops the provider stream
+                .doOnCancel(() -> deadline.cancel("client disconnected"))
+                .doFinally(signal -> deadline.finish());
     }
 
     @GetMapping("/conversation/{conversationId}")
@@ -130,21 +215,48 @@ public class ChatController {
         return ResponseEntity.ok(stats);
     }
 
+    // Health endpoints are served from the last background probe and never call the provider
     @GetMapping("/health")
     public ResponseEntity<HealthResponse> healthCheck() {
-        AIModelService.ModelHealthStatus modelStatus = aiModelService.getModelHealth();
+        ProviderHealthProber.HealthSnapshot modelStatus = healthProber.getLatest();
 
         HealthResponse health = new HealthResponse(
                 "UP",
                 System.currentTimeMillis(),
-                modelStatus.isLoaded(),
+                modelStatus.isHealthy(),
                 modelStatus.getStatus()
         );
 
-        HttpStatus status = modelStatus.isLoaded() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        HttpStatus status = modelStatus.isHealthy() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
         return ResponseEntity.status(status).body(health);
     }
 
+    @GetMapping("/health/live")
+    public ResponseEntity<ProviderHealthProber.LivenessView> liveness() {
+        ProviderHealthProber.LivenessView liveness = healthProber.getLiveness();
+        HttpStatus status = liveness.isLive() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(liveness);
+    }
+
+    @GetMapping("/health/ready")
+    public ResponseEntity<ProviderHealthProber.ReadinessView> readiness() {
+        ProviderHealthProber.ReadinessView readiness = healthProber.getReadiness();
+        HttpStatus status = readiness.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(readiness);
+    }
+
+    // Async failures arrive wrapped in CompletionException, sometimes more than once
+    private static ChatbotException findChatbotException(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+
+            if (cause instanceof ChatbotException chatbotException) {
+                return chatbotException;
+            }
+        }
+        return null;
+    }
+
     // Inner class for health response
     public static class HealthResponse {
         private final String status;
@@ -3,11 +3,15 @@ package com.pm.chatbotwithai.exception;
 import org.springframework.http.HttpStatus;
 
 public class ContentModerationException extends ChatbotException {
+    private final String category;
 
-    public ContentModerationException(String reason) {
+    public ContentModerationException(String category) {
         super("CONTENT_MODERATION",
                 "Tu mensaje contiene contenido que no puede ser procesado. Por favor, reformula tu consulta.",
-                String.format("Content moderation triggered: %s", reason),
+                String.format("Content moderation triggered: %s", category),
                 HttpStatus.BAD_REQUEST);
+        this.category = category;
     }
+
+    public String getCategory() { return category; }
 }
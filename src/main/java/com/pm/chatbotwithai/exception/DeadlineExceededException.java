@@ -0,0 +1,13 @@
+package com.pm.chatbotwithai.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class DeadlineExceededException extends ChatbotException {
+
+    public DeadlineExceededException(String stage) {
+        super("DEADLINE_EXCEEDED",
+                "La respuesta está tardando demasiado. Por favor, inténtalo de nuevo.",
+                String.format("Request deadline exceeded during %s", stage),
+                HttpStatus.GATEWAY_TIMEOUT);
+    }
+}
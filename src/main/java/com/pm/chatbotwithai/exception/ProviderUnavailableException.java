@@ -0,0 +1,13 @@
+package com.pm.chatbotwithai.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ProviderUnavailableException extends ChatbotException {
+
+    public ProviderUnavailableException(String message) {
+        super("PROVIDER_UNAVAILABLE",
+                "El asistente está saturado en este momento. Por favor, inténtalo de nuevo en unos segundos.",
+                message,
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,13 @@
+package com.pm.chatbotwithai.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ServiceOverloadedException extends ChatbotException {
+
+    public ServiceOverloadedException(String message) {
+        super("SERVICE_OVERLOADED",
+                "El servicio está recibiendo demasiadas solicitudes. Por favor, inténtalo de nuevo en unos segundos.",
+                message,
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
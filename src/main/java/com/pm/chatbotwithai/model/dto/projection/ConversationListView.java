@@ -0,0 +1,33 @@
+package com.pm.chatbotwithai.model.dto.projection;
+
+import com.pm.chatbotwithai.model.entity.ConversationStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read model for conversation listings: only the columns a list row shows, selected by
+ * {@code ConversationRepository.findListingByUserIdAndStatus} without loading entities.
+ */
+public interface ConversationListView {
+    // One more than ConversationResponse shows, so it can tell whether the message was cut
+    int PREVIEW_QUERY_CHARS = 121;
+
+    UUID getId();
+
+    String getTitle();
+
+    ConversationStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getLastActivity();
+
+    int getMessageCount();
+
+    /**
+     * Start of the newest message, at most {@link #PREVIEW_QUERY_CHARS} characters, or null
+     * when the conversation has no messages yet.
+     */
+    String getLastMessagePreview();
+}
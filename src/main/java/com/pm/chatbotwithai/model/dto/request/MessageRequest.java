@@ -1,5 +1,6 @@
 package com.pm.chatbotwithai.model.dto.request;
 
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
@@ -13,6 +14,13 @@ public class MessageRequest {
 
     private String conversationId;
 
+    // Optional; defaults to interactive when absent
+    private GenerationPriority priority;
+
+    // Optional, e.g. "es" or "es-MX"; selects the moderation lexicon, all lexicons apply when absent
+    @Size(max = 16, message = "El idioma no puede exceder los 16 caracteres")
+    private String locale;
+
     // Constructors
     public MessageRequest() {}
 
@@ -30,4 +38,10 @@ public class MessageRequest {
 
     public String getConversationId() { return conversationId; }
     public void setConversationId(String conversationId) { this.conversationId = conversationId; }
+
+    public GenerationPriority getPriority() { return priority; }
+    public void setPriority(GenerationPriority priority) { this.priority = priority; }
+
+    public String getLocale() { return locale; }
+    public void setLocale(String locale) { this.locale = locale; }
 }
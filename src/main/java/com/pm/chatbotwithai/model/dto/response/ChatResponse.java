@@ -10,6 +10,8 @@ public class ChatResponse {
     private LocalDateTime timestamp;
     private boolean success;
     private String errorCode;
+    // Set when the message was blocked by content moderation
+    private String moderationCategory;
 
     // Constructors
     public ChatResponse() {
@@ -48,4 +50,7 @@ public class ChatResponse {
 
     public String getErrorCode() { return errorCode; }
     public void setErrorCode(String errorCode) { this.errorCode = errorCode; }
+
+    public String getModerationCategory() { return moderationCategory; }
+    public void setModerationCategory(String moderationCategory) { this.moderationCategory = moderationCategory; }
 }
@@ -0,0 +1,47 @@
+package com.pm.chatbotwithai.model.dto.response;
+
+public class ChatStreamEvent {
+    private EventType type;
+    private String content;
+    private ChatResponse response;
+    private String errorCode;
+
+    public enum EventType {
+        CHUNK, COMPLETE, ERROR
+    }
+
+    // Constructors
+    public ChatStreamEvent() {}
+
+    private ChatStreamEvent(EventType type, String content, ChatResponse response, String errorCode) {
+        this.type = type;
+        this.content = content;
+        this.response = response;
+        this.errorCode = errorCode;
+    }
+
+    public static ChatStreamEvent chunk(String content) {
+        return new ChatStreamEvent(EventType.CHUNK, content, null, null);
+    }
+
+    public static ChatStreamEvent complete(ChatResponse response) {
+        return new ChatStreamEvent(EventType.COMPLETE, null, response, null);
+    }
+
+    public static ChatStreamEvent error(String errorCode) {
+        return new ChatStreamEvent(EventType.ERROR, null, null, errorCode);
+    }
+
+    // Getters and Setters
+    public EventType getType() { return type; }
+    public void setType(EventType type) { this.type = type; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public ChatResponse getResponse() { return response; }
+    public void setResponse(ChatResponse response) { this.response = response; }
+
+    public String getErrorCode() { return errorCode; }
+    public void setErrorCode(String errorCode) { this.errorCode = errorCode; }
+}
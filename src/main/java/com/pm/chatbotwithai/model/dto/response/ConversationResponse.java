@@ -1,5 +1,6 @@
 package com.pm.chatbotwithai.model.dto.response;
 
+import com.pm.chatbotwithai.model.dto.projection.ConversationListView;
 import com.pm.chatbotwithai.model.entity.Conversation;
 import com.pm.chatbotwithai.model.entity.ConversationStatus;
 
@@ -10,6 +11,8 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class ConversationResponse {
+    private static final int PREVIEW_CHARS = ConversationListView.PREVIEW_QUERY_CHARS - 1;
+
     private UUID id;
     private String title;
     private ConversationStatus status;
@@ -17,6 +20,7 @@ public class ConversationResponse {
     private LocalDateTime createdAt;
     private LocalDateTime lastActivity;
     private int messageCount;
+    private String lastMessagePreview;
 
     // Constructors
     public ConversationResponse() {}
@@ -27,7 +31,7 @@ public class ConversationResponse {
         this.status = conversation.getStatus();
         this.createdAt = conversation.getCreatedAt();
         this.lastActivity = conversation.getLastActivity();
-        this.messageCount = conversation.getMessages().size();
+        this.messageCount = conversation.getMessageCount();
         this.messages = conversation.getMessages().stream()
                 .map(MessageResponse::new)
                 .collect(Collectors.toList());
@@ -39,7 +43,7 @@ public class ConversationResponse {
         this.status = conversation.getStatus();
         this.createdAt = conversation.getCreatedAt();
         this.lastActivity = conversation.getLastActivity();
-        this.messageCount = conversation.getMessages().size();
+        this.messageCount = conversation.getMessageCount();
 
         if (includeMessages) {
             this.messages = conversation.getMessages().stream()
@@ -48,6 +52,18 @@ public class ConversationResponse {
         }
     }
 
+    public ConversationResponse(ConversationListView view) {
+        this.id = view.getId();
+        this.title = view.getTitle();
+        this.status = view.getStatus();
+        this.createdAt = view.getCreatedAt();
+        this.lastActivity = view.getLastActivity();
+        this.messageCount = view.getMessageCount();
+        String preview = view.getLastMessagePreview();
+        this.lastMessagePreview = preview != null && preview.length() > PREVIEW_CHARS ?
+                preview.substring(0, PREVIEW_CHARS) + "..." : preview;
+    }
+
     // Getters and Setters
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
@@ -69,4 +85,7 @@ public class ConversationResponse {
 
     public int getMessageCount() { return messageCount; }
     public void setMessageCount(int messageCount) { this.messageCount = messageCount; }
+
+    public String getLastMessagePreview() { return lastMessagePreview; }
+    public void setLastMessagePreview(String lastMessagePreview) { this.lastMessagePreview = lastMessagePreview; }
 }
@@ -45,6 +45,19 @@ public class Conversation {
     @Column(name = "last_activity")
     private LocalDateTime lastActivity;
 
+    // Rolling summary of the first summarizedMessageCount messages. Only written by
+    // ConversationRepository.advanceSummary, so saving a stale copy of the entity cannot undo it
+    @Column(name = "summary", length = 4000, updatable = false)
+    private String summary;
+
+    @Column(name = "summarized_message_count", nullable = false, updatable = false)
+    private int summarizedMessageCount = 0;
+
+    // Only written by ConversationRepository.incrementMessageCount, in the transaction that inserts
+    // the message, so counting never needs the message collection and a stale save cannot undo it
+    @Column(name = "message_count", nullable = false, updatable = false)
+    private int messageCount = 0;
+
     // Constructor
     public Conversation() {}
 
@@ -108,4 +121,15 @@ public class Conversation {
 
     public LocalDateTime getLastActivity() { return lastActivity; }
     public void setLastActivity(LocalDateTime lastActivity) { this.lastActivity = lastActivity; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public int getMessageCount() { return messageCount; }
+    public void setMessageCount(int messageCount) { this.messageCount = messageCount; }
+
+    public int getSummarizedMessageCount() { return summarizedMessageCount; }
+    public void setSummarizedMessageCount(int summarizedMessageCount) {
+        this.summarizedMessageCount = summarizedMessageCount;
+    }
 }
@@ -1,13 +1,17 @@
 package com.pm.chatbotwithai.repository;
 
+import com.pm.chatbotwithai.model.dto.projection.ConversationListView;
 import com.pm.chatbotwithai.model.entity.Conversation;
 import com.pm.chatbotwithai.model.entity.ConversationStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,6 +32,21 @@ public interface ConversationRepository extends JpaRepository<Conversation, UUID
             ConversationStatus status
     );
 
+    /**
+     * One page of a user's conversations as list rows, newest activity first, in one statement
+     * plus the count. The preview is cut in the query, so long messages are never transferred.
+     */
+    @Query(value = "SELECT c.id AS id, c.title AS title, c.status AS status, c.createdAt AS createdAt, " +
+            "c.lastActivity AS lastActivity, c.messageCount AS messageCount, " +
+            "(SELECT SUBSTRING(m.content, 1, " + ConversationListView.PREVIEW_QUERY_CHARS + ") FROM Message m " +
+            "WHERE m.conversation = c ORDER BY m.createdAt DESC LIMIT 1) AS lastMessagePreview " +
+            "FROM Conversation c WHERE c.userId = :userId AND c.status = :status " +
+            "ORDER BY c.lastActivity DESC",
+            countQuery = "SELECT COUNT(c) FROM Conversation c WHERE c.userId = :userId AND c.status = :status")
+    Page<ConversationListView> findListingByUserIdAndStatus(@Param("userId") String userId,
+                                                            @Param("status") ConversationStatus status,
+                                                            Pageable pageable);
+
     Optional<Conversation> findByIdAndUserId(UUID id, String userId);
 
     @Query("SELECT COUNT(c) FROM Conversation c WHERE c.userId = :userId AND c.status = :status")
@@ -38,5 +57,31 @@ public interface ConversationRepository extends JpaRepository<Conversation, UUID
     List<Conversation> findInactiveConversations(@Param("cutoffDate") LocalDateTime cutoffDate,
                                                  @Param("status") ConversationStatus status);
 
+    /**
+     * Advances the rolling summary only if no other update moved it since it was read, so a
+     * late summarization can never overwrite a newer summary.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Conversation c SET c.summary = :summary, c.summarizedMessageCount = :newCount " +
+            "WHERE c.id = :id AND c.summarizedMessageCount = :expectedCount")
+    int advanceSummary(@Param("id") UUID id,
+                       @Param("summary") String summary,
+                       @Param("newCount") int newCount,
+                       @Param("expectedCount") int expectedCount);
+
+    /**
+     * Counts one more message, unless the conversation already has {@code limit} of them, and
+     * returns the number of rows updated. Must run in the transaction that inserts the message,
+     * so the count and the messages never disagree.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("UPDATE Conversation c SET c.messageCount = c.messageCount + 1, c.lastActivity = :now " +
+            "WHERE c.id = :id AND c.messageCount < :limit")
+    int incrementMessageCount(@Param("id") UUID id,
+                              @Param("limit") int limit,
+                              @Param("now") LocalDateTime now);
+
     void deleteByUserIdAndStatus(String userId, ConversationStatus status);
 }
@@ -21,6 +21,14 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
 
     List<Message> findByConversationIdOrderByCreatedAtAsc(UUID conversationId);
 
+    long countByConversationId(UUID conversationId);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId " +
+            "ORDER BY m.createdAt ASC LIMIT :limit OFFSET :offset")
+    List<Message> findMessageRange(@Param("conversationId") UUID conversationId,
+                                   @Param("offset") int offset,
+                                   @Param("limit") int limit);
+
     @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId " +
             "ORDER BY m.createdAt DESC")
     List<Message> findLatestMessagesByConversationId(@Param("conversationId") UUID conversationId,
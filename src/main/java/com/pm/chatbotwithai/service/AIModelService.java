@@ -1,24 +1,47 @@
 package com.pm.chatbotwithai.service;
 
 import com.pm.chatbotwithai.exception.AIModelException;
+import com.pm.chatbotwithai.exception.ChatbotException;
 import com.pm.chatbotwithai.exception.ModelInitializationException;
 import com.pm.chatbotwithai.service.ai.AIProvider;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.ai.LoadBalancedLocalAIProvider;
 import com.pm.chatbotwithai.service.ai.LocalAIProvider;
 import com.pm.chatbotwithai.service.ai.OpenAIProvider;
 import com.pm.chatbotwithai.service.ai.MockAIProvider;
+import com.pm.chatbotwithai.service.ai.MockLatencyModel;
+import com.pm.chatbotwithai.service.ai.ResilientAIProvider;
+import com.pm.chatbotwithai.service.cache.AIResponseCache;
+import com.pm.chatbotwithai.service.cache.RequestCoalescer;
+import com.pm.chatbotwithai.service.cache.SemanticResponseCache;
+import com.pm.chatbotwithai.service.resilience.AdaptiveConcurrencyLimiter;
+import com.pm.chatbotwithai.service.resilience.Bulkhead;
+import com.pm.chatbotwithai.service.resilience.CircuitBreaker;
+import com.pm.chatbotwithai.service.resilience.ConcurrencyLimiter;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import com.pm.chatbotwithai.service.resilience.RequestHedger;
+import com.pm.chatbotwithai.service.scheduling.GenerationScheduler;
+import com.pm.chatbotwithai.service.text.TextPipeline;
+import com.pm.chatbotwithai.service.tokenizer.ContextWindowBuilder;
+import com.pm.chatbotwithai.service.tokenizer.Tokenizer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.*;
-import java.time.LocalDateTime;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.Duration;
 
 @Service
 public class AIModelService {
@@ -36,6 +59,9 @@ public class AIModelService {
     @Value("${chatbot.ai.max-tokens:512}")
     private int maxTokens;
 
+    @Value("${chatbot.ai.max-input-tokens:1000}")
+    private int maxInputTokens;
+
     @Value("${chatbot.ai.confidence-threshold:0.5}")
     private double confidenceThreshold;
 
@@ -48,31 +74,132 @@ public class AIModelService {
     @Value("${chatbot.ai.openai.model:gpt-3.5-turbo}")
     private String openAiModel;
 
+    @Value("${chatbot.ai.openai.url:https://api.openai.com/v1/chat/completions}")
+    private String openAiUrl;
+
     @Value("${chatbot.ai.local.endpoint:http://localhost:8080/api/generate}")
     private String localAiEndpoint;
 
+    @Value("${chatbot.ai.local.endpoints:}")
+    private List<String> localAiEndpoints;
+
+    @Value("${chatbot.ai.local.health-check-interval-ms:10000}")
+    private long localHealthCheckIntervalMs;
+
+    @Value("${chatbot.ai.local.batching.max-batch-size:1}")
+    private int localMaxBatchSize;
+
+    @Value("${chatbot.ai.local.batching.max-linger-ms:5}")
+    private long localMaxLingerMs;
+
+    @Value("${chatbot.ai.mock.seed:#{null}}")
+    private Long mockSeed;
+
+    @Value("${chatbot.ai.mock.latency:uniform:50,250}")
+    private String mockLatency;
+
+    @Value("${chatbot.ai.mock.tokens-per-second:50}")
+    private double mockTokensPerSecond;
+
+    @Value("${chatbot.ai.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+
+    @Value("${chatbot.ai.resilience.fallback-enabled:true}")
+    private boolean fallbackEnabled;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.window-size:50}")
+    private int breakerWindowSize;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.minimum-calls:20}")
+    private int breakerMinimumCalls;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double breakerFailureRateThreshold;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.slow-call-rate-threshold:0.8}")
+    private double breakerSlowCallRateThreshold;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.slow-call-duration-ms:10000}")
+    private long breakerSlowCallDurationMs;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.open-duration-ms:30000}")
+    private long breakerOpenDurationMs;
+
+    @Value("${chatbot.ai.resilience.circuit-breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+
+    @Value("${chatbot.ai.resilience.concurrency.mode:adaptive}")
+    private String concurrencyMode;
+
+    @Value("${chatbot.ai.resilience.concurrency.initial-limit:20}")
+    private int concurrencyInitialLimit;
+
+    @Value("${chatbot.ai.resilience.concurrency.min-limit:4}")
+    private int concurrencyMinLimit;
+
+    @Value("${chatbot.ai.resilience.concurrency.max-limit:200}")
+    private int concurrencyMaxLimit;
+
+    @Value("${chatbot.ai.resilience.bulkhead.max-concurrent-calls:50}")
+    private int bulkheadMaxConcurrentCalls;
+
+    @Value("${chatbot.ai.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    private final WebClient aiWebClient;
+    private final AIResponseCache responseCache;
+    private final SemanticResponseCache semanticCache;
+    private final RequestHedger requestHedger;
+    private final GenerationScheduler generationScheduler;
+    private final Tokenizer tokenizer;
+    private final RequestCoalescer<AIResponseCache.ResponseCacheKey, AIProvider.GenerationResponse> requestCoalescer =
+            new RequestCoalescer<>();
     private AIProvider aiProvider;
-    private final Executor aiExecutor = Executors.newFixedThreadPool(4, r -> {
-        Thread t = new Thread(r, "AI-Worker");
-        t.setDaemon(true);
-        return t;
-    });
+    private final Executor aiExecutor;
     private volatile boolean modelLoaded = false;
-    private volatile LocalDateTime lastHealthCheck = LocalDateTime.now();
-    private static final Pattern INAPPROPRIATE_CONTENT_PATTERN =
-            Pattern.compile("(?i)(spam|violencia|odio|discriminaci[óo]n|hack|malware|virus)",
-                    Pattern.CASE_INSENSITIVE);
+    // Streaming providers do not report a confidence score, so the post-processing heuristics start here
+    private static final double DEFAULT_STREAMING_CONFIDENCE = 0.7;
+    private static final int MAX_INPUT_CHARS = 4000;
+    private static final TextPipeline INPUT_PIPELINE = TextPipeline.builder()
+            .collapseWhitespace()
+            .maxChars(MAX_INPUT_CHARS, "...")
+            .build();
+    private static final TextPipeline RESPONSE_PIPELINE = TextPipeline.builder()
+            .stripLeadingLabel("Asistente:", "AI:", "Bot:", "Assistant:")
+            .collapseWhitespace()
+            .build();
+    private static final TextPipeline SUMMARY_PIPELINE = TextPipeline.builder()
+            .stripLeadingLabel("Asistente:", "Resumen:")
+            .collapseWhitespace()
+            .build();
+
+    @Autowired
+    public AIModelService(WebClient aiWebClient, @Qualifier("aiExecutor") Executor aiExecutor,
+                          AIResponseCache responseCache, SemanticResponseCache semanticCache,
+                          RequestHedger requestHedger, GenerationScheduler generationScheduler,
+                          Tokenizer tokenizer) {
+        this.aiWebClient = aiWebClient;
+        this.aiExecutor = aiExecutor;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.requestHedger = requestHedger;
+        this.generationScheduler = generationScheduler;
+        this.tokenizer = tokenizer;
+    }
 
     @PostConstruct
     public void initializeModel() {
         logger.info("Initializing AI provider: {} with model version: {}", providerType, modelVersion);
 
         try {
-            aiProvider = createAIProvider();
+            aiProvider = withResilience(createAIProvider());
             aiProvider.initialize();
             modelLoaded = true;
-            lastHealthCheck = LocalDateTime.now();
 
+            if (aiProvider instanceof ResilientAIProvider resilient) {
+                // One concurrency bound: the scheduler queues what the limiter would otherwise reject
+                generationScheduler.followConcurrencyLimit(resilient.getConcurrencyLimiter()::getLimit);
+            }
             logger.info("AI provider initialized successfully: {}", providerType);
 
         } catch (Exception ex) {
@@ -80,7 +207,7 @@ public class AIModelService {
             // Fallback to mock provider
             try {
                 logger.warn("Falling back to mock AI provider");
-                aiProvider = new MockAIProvider(maxTokens, confidenceThreshold);
+                aiProvider = createMockProvider();
                 aiProvider.initialize();
                 modelLoaded = true;
                 providerType = "mock";
@@ -93,38 +220,83 @@ public class AIModelService {
         }
     }
 
-    @Async("taskExecutor")
     public CompletableFuture<AIResponse> generateResponseAsync(String input, String conversationContext) {
+        return generateResponseAsync(input, conversationContext, GenerationPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<AIResponse> generateResponseAsync(String input, String conversationContext,
+                                                               GenerationPriority priority) {
+        return generateResponseAsync(input, conversationContext, priority, null);
+    }
+
+    public CompletableFuture<AIResponse> generateResponseAsync(String input, String conversationContext,
+                                                               GenerationPriority priority, String prefixId) {
+        return generateResponseAsync(input, conversationContext, priority, prefixId, null);
+    }
+
+    /**
+     * Does not block: the returned future completes once the provider answers, so callers
+     * compose onto it rather than holding a thread while it runs.
+     *
+     * @param prefixId identifies the append-only prefix of {@code conversationContext} (see
+     *                 {@link ContextWindowBuilder}); may be null
+     * @param deadline bounds the provider call and cancels it when the request is abandoned; may be null
+     */
+    public CompletableFuture<AIResponse> generateResponseAsync(String input, String conversationContext,
+                                                               GenerationPriority priority, String prefixId,
+                                                               RequestDeadline deadline) {
 
         if (!modelLoaded || aiProvider == null) {
             return CompletableFuture.failedFuture(
                     new AIModelException("AI model is not loaded or available")
             );
         }
-        return CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
-
-            try {
-                logger.debug("Generating AI response for input length: {} characters", input.length());
+        if (!isValidInput(input)) {
+            return CompletableFuture.failedFuture(new AIModelException("Invalid input provided"));
+        }
+        long startTime = System.currentTimeMillis();
+        logger.debug("Generating AI response for input length: {} characters", input.length());
 
-                if (!isValidInput(input)) {
-                    throw new AIModelException("Invalid input provided");
-                }
-                AIResponse response = generateResponse(input, conversationContext);
+        String processedInput = preprocessInput(input);
+        AIProvider.GenerationRequest request = buildGenerationRequest(processedInput, conversationContext,
+                priority, prefixId, deadline);
 
-                logger.debug("AI response generated in {}ms with confidence: {:.2f}",
-                        response.getProcessingTimeMs(), response.getConfidence());
+        CompletableFuture<AIProvider.GenerationResponse> providerResponseFuture;
 
-                return response;
+        // Callers compose onto the result, so failures are reported through it rather than thrown
+        try {
 
-            } catch (AIModelException ex) {
-                logger.error("AI model error during response generation", ex);
-                throw new CompletionException(ex);
-            } catch (Exception ex) {
-                logger.error("Unexpected error during AI response generation", ex);
-                throw new CompletionException(new AIModelException("Unexpected error: " + ex.getMessage(), ex));
+            if (deadline != null) {
+                deadline.check("generation");
             }
-        }, aiExecutor);
+            providerResponseFuture = fetchProviderResponse(request, isOpeningTurn(processedInput, conversationContext));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        if (deadline != null) {
+            // Cancelling the caller's dependent future would not reach the provider call, so the deadline does
+            deadline.onCancel(() -> providerResponseFuture.cancel(true));
+        }
+        // Non-blocking providers complete on their I/O threads; post-processing moves back to the AI workers
+        return providerResponseFuture
+                .handleAsync((providerResponse, throwable) -> {
+
+                    if (throwable != null) {
+                        Throwable cause = unwrap(throwable);
+                        logger.error("AI model error during response generation after {}ms",
+                                System.currentTimeMillis() - startTime, cause);
+                        throw new CompletionException(cause instanceof ChatbotException ? cause :
+                                new AIModelException("Error during response generation: " + cause.getMessage(), cause));
+                    }
+                    AIResponse response = buildAIResponse(providerResponse.getResponse(),
+                            providerResponse.getConfidence(), processedInput, startTime);
+
+                    logger.debug("AI response generated in {}ms with confidence: {}",
+                            response.getProcessingTimeMs(), response.getConfidence());
+
+                    return response;
+                }, aiExecutor);
     }
 
     public AIResponse generateResponse(String input, String conversationContext) throws AIModelException {
@@ -136,57 +308,174 @@ public class AIModelService {
 
         try {
             String processedInput = preprocessInput(input);
-            String fullContext = buildFullContext(processedInput, conversationContext);
-
-            AIProvider.GenerationRequest request = AIProvider.GenerationRequest.builder()
-                    .input(processedInput)
-                    .context(fullContext)
-                    .maxTokens(maxTokens)
-                    .timeoutSeconds(timeoutSeconds)
-                    .build();
-
-            AIProvider.GenerationResponse providerResponse = aiProvider.generateResponse(request);
-            String finalResponse = postProcessResponse(providerResponse.getResponse());
-            double confidence = calculateFinalConfidence(
-                    providerResponse.getConfidence(),
-                    finalResponse,
-                    processedInput
-            );
-            long processingTime = System.currentTimeMillis() - startTime;
+            AIProvider.GenerationRequest request = buildGenerationRequest(processedInput, conversationContext);
 
-            if (confidence < confidenceThreshold) {
-                logger.warn("Low confidence response ({:.2f}), using fallback", confidence);
-                finalResponse = getFallbackResponse(processedInput);
-                confidence = 1.0;
-            }
-            return new AIResponse(finalResponse, confidence, processingTime, getEffectiveModelVersion());
+            AIProvider.GenerationResponse providerResponse = fetchProviderResponse(
+                    request, isOpeningTurn(processedInput, conversationContext)).join();
+            return buildAIResponse(providerResponse.getResponse(), providerResponse.getConfidence(),
+                    processedInput, startTime);
 
         } catch (Exception ex) {
+            Throwable cause = unwrap(ex);
             long processingTime = System.currentTimeMillis() - startTime;
-            logger.error("Error generating AI response after {}ms", processingTime, ex);
-            throw new AIModelException("Error during response generation: " + ex.getMessage(), ex);
+            logger.error("Error generating AI response after {}ms", processingTime, cause);
+
+            if (cause instanceof ChatbotException chatbotException) {
+                throw chatbotException;
+            }
+            throw new AIModelException("Error during response generation: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Streams the raw provider output chunk by chunk. Callers are expected to accumulate the
+     * chunks and hand the full text to {@link #completeStreamedResponse} once the stream ends.
+     */
+    public Flux<String> generateResponseStream(String input, String conversationContext) {
+        return generateResponseStream(input, conversationContext, null);
+    }
+
+    public Flux<String> generateResponseStream(String input, String conversationContext, String prefixId) {
+        return generateResponseStream(input, conversationContext, prefixId, null);
+    }
+
+    /**
+     * @param deadline bounds the provider stream; may be null. Cancelling the subscription stops the stream.
+     */
+    public Flux<String> generateResponseStream(String input, String conversationContext, String prefixId,
+                                               RequestDeadline deadline) {
+
+        if (!modelLoaded || aiProvider == null) {
+            return Flux.error(new AIModelException("AI model is not loaded or available"));
+        }
+        if (!isValidInput(input)) {
+            return Flux.error(new AIModelException("Invalid input provided"));
+        }
+        logger.debug("Streaming AI response for input length: {} characters", input.length());
+
+        String processedInput = preprocessInput(input);
+        AIProvider.GenerationRequest request = buildGenerationRequest(processedInput, conversationContext,
+                GenerationPriority.INTERACTIVE, prefixId, deadline);
+
+        boolean openingTurn = isOpeningTurn(processedInput, conversationContext);
+        AIResponseCache.ResponseCacheKey cacheKey = responseCache.keyFor(providerType, request);
+        Optional<AIProvider.GenerationResponse> cached = findCachedResponse(cacheKey, request, openingTurn);
+
+        if (cached.isPresent()) {
+            return Flux.just(cached.get().getResponse());
         }
+        StringBuilder streamedResponse = new StringBuilder();
+        AtomicBoolean degraded = new AtomicBoolean();
+        Flux<String> stream = aiProvider instanceof ResilientAIProvider resilient
+                ? resilient.streamResponse(request, () -> degraded.set(true))
+                : aiProvider.streamResponse(request);
+
+        // Caches the raw provider text. The caller moderates every serve, cached or not, for the
+        // request's locale, which the cache key leaves out.
+        return stream
+                .doOnNext(streamedResponse::append)
+                .doOnComplete(() -> cacheResponse(cacheKey, request, openingTurn, new AIProvider.GenerationResponse(
+                        streamedResponse.toString(), DEFAULT_STREAMING_CONFIDENCE, getEffectiveModelVersion(),
+                        degraded.get())))
+                .onErrorMap(ex -> !(ex instanceof AIModelException),
+                        ex -> new AIModelException("Error during response streaming: " + ex.getMessage(), ex));
+    }
+
+    /**
+     * The response to store for a finished stream. The user has already read the streamed text,
+     * so it is kept as it was sent: no post-processing and no low-confidence fallback, only the
+     * confidence is scored. An empty stream showed nothing, so it gets the fallback.
+     */
+    public AIResponse completeStreamedResponse(String input, String streamedResponse, long startTime) {
+        String processedInput = preprocessInput(input);
+
+        if (TextPipeline.isBlank(streamedResponse)) {
+            return buildAIResponse(streamedResponse, DEFAULT_STREAMING_CONFIDENCE, processedInput, startTime);
+        }
+        double confidence = calculateFinalConfidence(DEFAULT_STREAMING_CONFIDENCE, streamedResponse, processedInput);
+
+        if (confidence < confidenceThreshold) {
+            logger.warn("Low confidence streamed response ({}), kept as streamed", confidence);
+        }
+        return new AIResponse(streamedResponse, confidence, System.currentTimeMillis() - startTime,
+                getEffectiveModelVersion());
+    }
+
+    /**
+     * Folds new messages into a conversation's rolling summary. Runs at
+     * {@link GenerationPriority#BACKGROUND} and skips the response caches, hedging and the
+     * low-confidence fallback: a summary is unique to its conversation and a canned apology
+     * must never replace it. For the same reason a reply from the fallback provider fails the
+     * future, which leaves the batch for the next summarization.
+     *
+     * @param previousSummary summary so far, or null for the first one
+     * @param transcript the messages to fold in, one "Usuario:"/"Asistente:" line each
+     * @param maxSummaryTokens upper bound on the new summary
+     */
+    public CompletableFuture<String> summarizeAsync(String previousSummary, String transcript, int maxSummaryTokens) {
+
+        if (!modelLoaded || aiProvider == null) {
+            return CompletableFuture.failedFuture(new AIModelException("AI model is not loaded or available"));
+        }
+        StringBuilder instruction = new StringBuilder(
+                "Resume la conversación en pocas frases, conservando nombres, datos y decisiones. " +
+                        "Responde solo con el resumen.\n\n");
+
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            instruction.append("Resumen anterior: ").append(previousSummary.strip()).append("\n\n");
+        }
+        instruction.append("Mensajes nuevos:\n").append(transcript.strip());
+
+        String input = instruction.toString();
+        AIProvider.GenerationRequest request = AIProvider.GenerationRequest.builder()
+                .input(input)
+                .context(ContextWindowBuilder.assemblePrompt(null, input))
+                .maxTokens(maxSummaryTokens)
+                .timeoutSeconds(timeoutSeconds)
+                .priority(GenerationPriority.BACKGROUND)
+                .build();
+
+        return generationScheduler.submit(GenerationPriority.BACKGROUND,
+                        () -> aiProvider.generateResponseAsync(request, aiExecutor))
+                .thenApply(providerResponse -> {
+
+                    // Storing it would advance the summary past real messages the fallback never read
+                    if (providerResponse.isDegraded()) {
+                        throw new AIModelException("The provider is unavailable; summary left for a later run");
+                    }
+                    String summary = SUMMARY_PIPELINE.apply(providerResponse.getResponse());
+
+                    if (summary.isEmpty()) {
+                        throw new AIModelException("The provider returned an empty summary");
+                    }
+                    return tokenizer.truncateToTokens(summary, maxSummaryTokens);
+                });
     }
 
     public boolean isValidInput(String input) {
 
-        if (input == null || input.trim().isEmpty()) {
+        if (TextPipeline.isBlank(input)) {
             logger.debug("Input validation failed: null or empty");
             return false;
         }
-        if (input.length() > 4000) {
+        if (input.length() > MAX_INPUT_CHARS) {
             logger.warn("Input validation failed: too long ({} characters)", input.length());
             return false;
         }
-        if (containsInappropriateContent(input)) {
-            logger.warn("Input validation failed: inappropriate content detected");
+        int inputTokens = tokenizer.countTokens(input);
+
+        if (inputTokens > maxInputTokens) {
+            logger.warn("Input validation failed: too long ({} tokens)", inputTokens);
             return false;
         }
         return true;
     }
 
-    public ModelHealthStatus getModelHealth() {
-        updateHealthStatus();
+    /**
+     * Checks the provider once; for the local provider that is an HTTP round trip. Request
+     * handlers should read the cached result from {@code ProviderHealthProber} instead.
+     */
+    public ModelHealthStatus probeHealth() {
         String status = determineHealthStatus();
         boolean isHealthy = modelLoaded && aiProvider != null && "HEALTHY".equals(status);
 
@@ -198,6 +487,35 @@ public class AIModelService {
         );
     }
 
+    public RequestCoalescer.CoalescingStats getCoalescingStats() {
+        return requestCoalescer.getStats();
+    }
+
+    public GenerationScheduler.SchedulerStats getSchedulerStats() {
+        return generationScheduler.getStats();
+    }
+
+    public RequestHedger.HedgingStats getHedgingStats() {
+        return requestHedger.getStats();
+    }
+
+    public Optional<ResilientAIProvider.ResilienceStats> getResilienceStats() {
+
+        if (aiProvider instanceof ResilientAIProvider resilient) {
+            return Optional.of(resilient.getStats());
+        }
+        return Optional.empty();
+    }
+
+    public List<LoadBalancedLocalAIProvider.EndpointStats> getEndpointStats() {
+        AIProvider provider = aiProvider instanceof ResilientAIProvider resilient ? resilient.getDelegate() : aiProvider;
+
+        if (provider instanceof LoadBalancedLocalAIProvider loadBalanced) {
+            return loadBalanced.getEndpointStats();
+        }
+        return List.of();
+    }
+
     // Private helper methods
     private AIProvider createAIProvider() {
         return switch (providerType.toLowerCase()) {
@@ -206,59 +524,205 @@ public class AIModelService {
                 if (openAiApiKey == null || openAiApiKey.trim().isEmpty()) {
                     throw new ModelInitializationException("OpenAI API key is required but not provided", null);
                 }
-                yield new OpenAIProvider(openAiApiKey, openAiModel);
+                yield new OpenAIProvider(openAiApiKey, openAiModel, aiWebClient, openAiUrl);
+            }
+            case "local" -> {
+
+                if (localAiEndpoints.size() > 1) {
+                    yield new LoadBalancedLocalAIProvider(localAiEndpoints, this::createLocalProvider,
+                            Duration.ofMillis(localHealthCheckIntervalMs));
+                }
+                yield createLocalProvider(localAiEndpoints.isEmpty() ? localAiEndpoint : localAiEndpoints.get(0));
             }
-            case "local" -> new LocalAIProvider(localAiEndpoint, modelPath);
-            case "mock" -> new MockAIProvider(maxTokens, confidenceThreshold);
+            case "mock" -> createMockProvider();
             default -> throw new ModelInitializationException("Unknown AI provider type: " + providerType, null);
         };
     }
 
+    // The mock provider is its own fallback and never needs protecting
+    private AIProvider withResilience(AIProvider provider) {
+
+        if (!resilienceEnabled || provider instanceof MockAIProvider) {
+            return provider;
+        }
+        CircuitBreaker circuitBreaker = new CircuitBreaker(providerType, breakerWindowSize, breakerMinimumCalls,
+                breakerFailureRateThreshold, breakerSlowCallRateThreshold,
+                Duration.ofMillis(breakerSlowCallDurationMs), Duration.ofMillis(breakerOpenDurationMs),
+                breakerHalfOpenCalls);
+        ConcurrencyLimiter concurrencyLimiter = "fixed".equalsIgnoreCase(concurrencyMode)
+                ? new Bulkhead(providerType, bulkheadMaxConcurrentCalls)
+                : new AdaptiveConcurrencyLimiter(providerType, concurrencyInitialLimit,
+                        concurrencyMinLimit, concurrencyMaxLimit);
+        AIProvider fallback = fallbackEnabled ? createMockProvider() : null;
+
+        return new ResilientAIProvider(provider, fallback, circuitBreaker, concurrencyLimiter);
+    }
+
+    // Without a seed every start behaves differently, as the mock always did
+    private MockAIProvider createMockProvider() {
+        return new MockAIProvider(maxTokens, confidenceThreshold,
+                mockSeed != null ? mockSeed : System.nanoTime(),
+                MockLatencyModel.parse(mockLatency), mockTokensPerSecond);
+    }
+
+    private LocalAIProvider createLocalProvider(String endpoint) {
+        return new LocalAIProvider(endpoint, modelPath, aiWebClient,
+                localMaxBatchSize, Duration.ofMillis(localMaxLingerMs));
+    }
+
     private String preprocessInput(String input) {
+        return INPUT_PIPELINE.apply(input);
+    }
+
+    private CompletableFuture<AIProvider.GenerationResponse> fetchProviderResponse(
+            AIProvider.GenerationRequest request, boolean openingTurn) {
+        AIResponseCache.ResponseCacheKey cacheKey = responseCache.keyFor(providerType, request);
+        Optional<AIProvider.GenerationResponse> cached = findCachedResponse(cacheKey, request, openingTurn);
 
-        if (input == null) {
-            return "";
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        if (!coalescingEnabled) {
+            return callProvider(cacheKey, request, openingTurn);
         }
-        String processed = input.trim()
-                .replaceAll("\\s+", " ") // Normalize whitespace
-                .replaceAll("[\\r\\n]+", " "); // Convert line breaks to spaces
+        // Identical prompts already in flight attach to the pending call instead of starting another.
+        // The shared call is not bound by the leader's deadline, or a leader with little time left
+        // would fail every follower; each caller's deadline cancels only its own copy.
+        AIProvider.GenerationRequest sharedRequest = request.withoutDeadline();
+        return requestCoalescer.execute(cacheKey, () -> callProvider(cacheKey, sharedRequest, openingTurn));
+    }
+
+    private CompletableFuture<AIProvider.GenerationResponse> callProvider(AIResponseCache.ResponseCacheKey cacheKey,
+                                                                          AIProvider.GenerationRequest request,
+                                                                          boolean openingTurn) {
+        CompletableFuture<AIProvider.GenerationResponse> call = generationScheduler.submit(request.getPriority(),
+                () -> requestHedger.execute(() -> aiProvider.generateResponseAsync(request, aiExecutor),
+                        () -> startHedge(request)));
 
-        if (processed.length() > 4000) {
-            processed = processed.substring(0, 4000) + "...";
+        CompletableFuture<AIProvider.GenerationResponse> response = call.whenComplete((value, throwable) -> {
+
+            if (throwable == null) {
+                cacheResponse(cacheKey, request, openingTurn, value);
+            }
+        });
+        // Cancelling the response reaches the scheduler and, through it, the provider call
+        response.whenComplete((value, throwable) -> {
+
+            if (response.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    // The hedge runs inside the primary's scheduler slot, so it is admitted by the limiter alone
+    private CompletableFuture<AIProvider.GenerationResponse> startHedge(AIProvider.GenerationRequest request) {
+
+        if (aiProvider instanceof ResilientAIProvider resilient) {
+            return resilient.generateHedgeAsync(request, aiExecutor);
+        }
+        return aiProvider.generateResponseAsync(request, aiExecutor);
+    }
+
+    private Optional<AIProvider.GenerationResponse> findCachedResponse(AIResponseCache.ResponseCacheKey cacheKey,
+                                                                     AIProvider.GenerationRequest request,
+                                                                     boolean openingTurn) {
+
+        if (responseCache.isEnabledFor(providerType)) {
+            Optional<AIProvider.GenerationResponse> cached = responseCache.get(cacheKey);
+
+            if (cached.isPresent()) {
+                logger.debug("Serving AI response from exact-match cache");
+                return cached;
+            }
+        }
+        if (openingTurn && semanticCache.isEnabledFor(providerType)) {
+            Optional<AIProvider.GenerationResponse> similar = semanticCache.findSimilar(providerType, request.getInput());
+
+            if (similar.isPresent()) {
+                logger.debug("Serving AI response from semantic cache");
+                return similar;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void cacheResponse(AIResponseCache.ResponseCacheKey cacheKey, AIProvider.GenerationRequest request,
+                               boolean openingTurn, AIProvider.GenerationResponse response) {
+
+        // A fallback reply stored under the provider's key would outlive the outage by a full TTL
+        if (response.isDegraded()) {
+            return;
+        }
+        if (responseCache.isEnabledFor(providerType)) {
+            responseCache.put(cacheKey, response);
+        }
+        if (openingTurn && semanticCache.isEnabledFor(providerType)) {
+            semanticCache.put(providerType, request.getInput(), response);
         }
-        return processed;
     }
 
-    private String buildFullContext(String input, String conversationContext) {
-        StringBuilder context = new StringBuilder();
+    /**
+     * Only opening turns are served from the semantic cache: later turns depend on the conversation
+     * history, which near-duplicate matching on the input alone cannot account for. The conversation
+     * context already includes the current user message, so an opening turn has nothing else in it.
+     */
+    private boolean isOpeningTurn(String processedInput, String conversationContext) {
 
-        if (conversationContext != null && !conversationContext.trim().isEmpty()) {
-            context.append("Contexto de la conversación:\n")
-                    .append(conversationContext.trim())
-                    .append("\n\n");
+        if (conversationContext == null || conversationContext.isBlank()) {
+            return true;
         }
-        context.append("Usuario: ").append(input).append("\nAsistente:");
+        return INPUT_PIPELINE.matches(conversationContext, "Usuario: " + processedInput);
+    }
 
-        return context.toString();
+    private AIProvider.GenerationRequest buildGenerationRequest(String processedInput, String conversationContext) {
+        return buildGenerationRequest(processedInput, conversationContext, GenerationPriority.INTERACTIVE, null, null);
+    }
+
+    private AIProvider.GenerationRequest buildGenerationRequest(String processedInput, String conversationContext,
+                                                                GenerationPriority priority, String prefixId,
+                                                                RequestDeadline deadline) {
+        return AIProvider.GenerationRequest.builder()
+                .input(processedInput)
+                .context(ContextWindowBuilder.assemblePrompt(conversationContext, processedInput))
+                .maxTokens(maxTokens)
+                .timeoutSeconds(timeoutSeconds)
+                .priority(priority)
+                .prefixId(prefixId)
+                .deadline(deadline)
+                .build();
+    }
+
+    private AIResponse buildAIResponse(String rawResponse, double providerConfidence,
+                                       String processedInput, long startTime) {
+        String finalResponse = postProcessResponse(rawResponse);
+        double confidence = calculateFinalConfidence(providerConfidence, finalResponse, processedInput);
+        long processingTime = System.currentTimeMillis() - startTime;
+
+        if (confidence < confidenceThreshold) {
+            logger.warn("Low confidence response ({:.2f}), using fallback", confidence);
+            finalResponse = getFallbackResponse(processedInput);
+            confidence = 1.0;
+        }
+        return new AIResponse(finalResponse, confidence, processingTime, getEffectiveModelVersion());
     }
 
     private String postProcessResponse(String rawResponse) {
 
-        if (rawResponse == null || rawResponse.trim().isEmpty()) {
+        if (TextPipeline.isBlank(rawResponse)) {
             return getFallbackResponse("error");
         }
-        String processed = rawResponse.trim()
-                .replaceAll("^(Asistente:|AI:|Bot:|Assistant:)\\s*", "")
-                .replaceAll("\\s+", " ");
+        String processed = RESPONSE_PIPELINE.apply(rawResponse);
+
+        int cutoff = tokenizer.prefixLengthWithin(processed, maxTokens);
 
-        if (processed.length() > maxTokens * 4) {
-            int cutoff = maxTokens * 4;
+        if (cutoff < processed.length()) {
             int lastSentenceEnd = processed.lastIndexOf('.', cutoff);
 
             if (lastSentenceEnd > cutoff - 100) {
                 processed = processed.substring(0, lastSentenceEnd + 1);
             } else {
-                processed = processed.substring(0, cutoff) + "...";
+                processed = processed.substring(0, cutoff).stripTrailing() + "...";
             }
         }
         return processed;
@@ -270,11 +734,11 @@ public class AIModelService {
         if (response.length() < 10) {
             confidence *= 0.7;
         }
-        if (response.toLowerCase().contains("no sé") ||
-                response.toLowerCase().contains("no estoy seguro")) {
+        if (TextPipeline.containsIgnoreCase(response, "no sé") ||
+                TextPipeline.containsIgnoreCase(response, "no estoy seguro")) {
             confidence *= 0.8;
         }
-        if (response.matches(".*[.!?]$")) {
+        if (TextPipeline.endsWithSentencePunctuation(response)) {
             confidence = Math.min(1.0, confidence + 0.1);
         }
         if (input.length() > 20 && response.length() < 20) {
@@ -284,10 +748,6 @@ public class AIModelService {
         return Math.max(0.0, Math.min(1.0, confidence));
     }
 
-    private boolean containsInappropriateContent(String input) {
-        return INAPPROPRIATE_CONTENT_PATTERN.matcher(input).find();
-    }
-
     private String getFallbackResponse(String input) {
         String[] fallbackResponses = {
                 "Disculpa, no pude procesar completamente tu consulta. ¿Podrías reformularla de manera diferente?",
@@ -300,23 +760,6 @@ public class AIModelService {
         return fallbackResponses[index];
     }
 
-    private void updateHealthStatus() {
-        LocalDateTime now = LocalDateTime.now();
-
-        if (now.minusMinutes(5).isAfter(lastHealthCheck)) {
-
-            try {
-
-                if (aiProvider != null) {
-                    aiProvider.healthCheck();
-                }
-                lastHealthCheck = now;
-            } catch (Exception ex) {
-                logger.warn("Health check failed for AI provider: {}", providerType, ex);
-            }
-        }
-    }
-
     private String determineHealthStatus() {
 
         if (!modelLoaded || aiProvider == null) {
@@ -332,6 +775,16 @@ public class AIModelService {
         }
     }
 
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
     private String getEffectiveModelVersion() {
 
         if (aiProvider != null) {
@@ -356,21 +809,6 @@ public class AIModelService {
         } catch (Exception e) {
             logger.warn("Error during AI provider cleanup", e);
         }
-        if (aiExecutor instanceof ExecutorService) {
-            ((ExecutorService) aiExecutor).shutdown();
-
-            try {
-
-                if (!((ExecutorService) aiExecutor).awaitTermination(10,
-                        TimeUnit.SECONDS)) {
-                    ((ExecutorService) aiExecutor).shutdownNow();
-                }
-            } catch (InterruptedException ex) {
-                ((ExecutorService) aiExecutor).shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
         modelLoaded = false;
         logger.info("AI model resources cleaned up successfully");
     }
@@ -4,8 +4,10 @@ package com.pm.chatbotwithai.service;
 import com.pm.chatbotwithai.exception.ConversationNotFoundException;
 import com.pm.chatbotwithai.exception.InvalidConversationException;
 import com.pm.chatbotwithai.exception.RateLimitExceededException;
+import com.pm.chatbotwithai.model.dto.projection.ConversationListView;
 import com.pm.chatbotwithai.model.dto.request.MessageRequest;
 import com.pm.chatbotwithai.model.dto.response.ChatResponse;
+import com.pm.chatbotwithai.model.dto.response.ChatStreamEvent;
 import com.pm.chatbotwithai.model.dto.response.ConversationResponse;
 import com.pm.chatbotwithai.model.dto.response.MessageResponse;
 import com.pm.chatbotwithai.model.entity.Conversation;
@@ -13,22 +15,33 @@ import com.pm.chatbotwithai.model.entity.ConversationStatus;
 import com.pm.chatbotwithai.model.entity.Message;
 import com.pm.chatbotwithai.repository.ConversationRepository;
 import com.pm.chatbotwithai.repository.MessageRepository;
+import com.pm.chatbotwithai.service.cache.ConversationContextCache;
+import com.pm.chatbotwithai.service.moderation.ContentModerationService;
+import com.pm.chatbotwithai.service.moderation.StreamingModerationFilter;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import com.pm.chatbotwithai.service.resilience.ResourceLimiter;
+import com.pm.chatbotwithai.service.tokenizer.ContextWindowBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 
 @Service
@@ -39,78 +52,136 @@ public class ConversationService {
     private final MessageRepository messageRepository;
     private final AIModelService aiModelService;
     private final RateLimitService rateLimitService;
+    private final ResourceLimiter databaseLimiter;
+    private final ContextWindowBuilder contextWindowBuilder;
+    private final ConversationContextCache contextCache;
+    private final ConversationSummarizer conversationSummarizer;
+    private final ContentModerationService contentModerationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
 
     @Value("${chatbot.conversation.max-messages:1000}")
     private int maxMessagesPerConversation;
 
-    @Value("${chatbot.conversation.context-window:10}")
+    // Upper bound on messages considered for the prompt; the token budget decides how many are sent
+    @Value("${chatbot.conversation.context-window:100}")
     private int contextWindow;
 
     @Autowired
     public ConversationService(ConversationRepository conversationRepository,
                                MessageRepository messageRepository,
                                AIModelService aiModelService,
-                               RateLimitService rateLimitService) {
+                               RateLimitService rateLimitService,
+                               ResourceLimiter databaseLimiter,
+                               ContextWindowBuilder contextWindowBuilder,
+                               ConversationContextCache contextCache,
+                               ConversationSummarizer conversationSummarizer,
+                               ContentModerationService contentModerationService,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("taskExecutor") Executor taskExecutor) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.aiModelService = aiModelService;
         this.rateLimitService = rateLimitService;
+        this.databaseLimiter = databaseLimiter;
+        this.contextWindowBuilder = contextWindowBuilder;
+        this.contextCache = contextCache;
+        this.conversationSummarizer = conversationSummarizer;
+        this.contentModerationService = contentModerationService;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
     }
 
-    @Async
-    @Transactional
-    public CompletableFuture<ChatResponse> processMessageAsync(MessageRequest messageRequest) {
+    /**
+     * The database steps run on the task executor and generation is composed onto them, so no
+     * pool thread ever waits for work queued behind it on the same pool.
+     *
+     * @param deadline budget of the whole request; each stage checks it before starting and the
+     *                 provider call is cancelled when it runs out or the client goes away
+     */
+    public CompletableFuture<ChatResponse> processMessageAsync(MessageRequest messageRequest,
+                                                               RequestDeadline deadline) {
         logger.debug("Processing message async for user: {}", messageRequest.getUserId());
 
         return CompletableFuture.supplyAsync(() -> {
-
-            try {
-
-                if (!rateLimitService.isAllowed(messageRequest.getUserId())) {
-                    throw new RateLimitExceededException(messageRequest.getUserId());
-                }
-                if (!aiModelService.isValidInput(messageRequest.getContent())) {
-                    throw new InvalidConversationException("Invalid message content");
-                }
-                Conversation conversation = getOrCreateConversation(
-                        messageRequest.getConversationId(),
-                        messageRequest.getUserId()
-                );
-                Message userMessage = saveUserMessage(conversation, messageRequest.getContent());
-                String conversationContext = buildConversationContext(conversation);
-
-                return aiModelService.generateResponseAsync(messageRequest.getContent(), conversationContext)
-                        .thenApply(aiResponse -> {
-
-                            try {
-                                Message aiMessage = saveAIMessage(
+                    checkAdmission(messageRequest, deadline);
+                    return databaseLimiter.call(() -> prepareExchange(messageRequest, deadline), deadline.remaining());
+                }, taskExecutor)
+                .thenCompose(exchange -> {
+                    CompletableFuture<ChatResponse> response = aiModelService.generateResponseAsync(
+                                    messageRequest.getContent(), exchange.getContext().getHistory(),
+                                    messageRequest.getPriority(), exchange.getContext().getPrefixId(), deadline)
+                            .thenApplyAsync(aiResponse -> {
+                                Conversation conversation = exchange.getConversation();
+                                String responseText = contentModerationService.moderateOutput(
+                                        aiResponse.getResponse(), messageRequest.getLocale());
+                                Message aiMessage = databaseLimiter.call(() -> saveAIMessage(
                                         conversation,
-                                        aiResponse.getResponse(),
+                                        responseText,
                                         aiResponse.getProcessingTimeMs(),
                                         aiResponse.getConfidence(),
                                         aiResponse.getModelVersion()
-                                );
+                                ));
                                 logger.info("Message processed successfully for conversation: {}",
                                         conversation.getId());
 
                                 return new ChatResponse(
                                         conversation.getId(),
-                                        new MessageResponse(userMessage),
+                                        new MessageResponse(exchange.getUserMessage()),
                                         new MessageResponse(aiMessage)
                                 );
+                            }, taskExecutor);
+                    return deadline.limit(response, "generation");
+                });
+    }
 
-                            } catch (Exception e) {
-                                logger.error("Error saving AI response", e);
-                                throw new RuntimeException("Error saving AI response", e);
-                            }
-                        })
-                        .join();
-
-            } catch (Exception e) {
-                logger.error("Error processing message", e);
-                throw new RuntimeException(e);
-            }
-        });
+    /**
+     * Streaming counterpart of {@link #processMessageAsync}: emits the AI response chunk by chunk
+     * and persists the final message once the provider stream completes.
+     */
+    public Flux<ChatStreamEvent> processMessageStream(MessageRequest messageRequest, RequestDeadline deadline) {
+        logger.debug("Processing message stream for user: {}", messageRequest.getUserId());
+
+        return Mono.fromCallable(() -> {
+                    checkAdmission(messageRequest, deadline);
+                    return databaseLimiter.call(() -> prepareExchange(messageRequest, deadline), deadline.remaining());
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(exchange -> {
+                    long startTime = System.currentTimeMillis();
+                    StringBuilder streamedResponse = new StringBuilder();
+
+                    deadline.check("generation");
+                    Flux<String> generated = deadline.limit(aiModelService.generateResponseStream(
+                            messageRequest.getContent(), exchange.getContext().getHistory(),
+                            exchange.getContext().getPrefixId(), deadline), "streaming");
+
+                    Flux<ChatStreamEvent> chunks = moderateStream(generated, messageRequest.getLocale())
+                            .doOnNext(streamedResponse::append)
+                            .map(ChatStreamEvent::chunk);
+
+                    Mono<ChatStreamEvent> completion = Mono.fromCallable(() -> {
+                        AIModelService.AIResponse aiResponse = aiModelService.completeStreamedResponse(
+                                messageRequest.getContent(), streamedResponse.toString(), startTime);
+                        Message aiMessage = databaseLimiter.call(() -> saveAIMessage(
+                                exchange.getConversation(),
+                                aiResponse.getResponse(),
+                                aiResponse.getProcessingTimeMs(),
+                                aiResponse.getConfidence(),
+                                aiResponse.getModelVersion()
+                        ));
+                        logger.info("Message stream completed for conversation: {}",
+                                exchange.getConversation().getId());
+
+                        return ChatStreamEvent.complete(new ChatResponse(
+                                exchange.getConversation().getId(),
+                                new MessageResponse(exchange.getUserMessage()),
+                                new MessageResponse(aiMessage)
+                        ));
+                    }).subscribeOn(Schedulers.boundedElastic());
+
+                    return chunks.concatWith(completion);
+                });
     }
 
     @Transactional(readOnly = true)
@@ -129,8 +200,8 @@ public class ConversationService {
     public Page<ConversationResponse> getUserConversations(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<Conversation> conversations = conversationRepository
-                .findByUserIdAndStatusOrderByLastActivityDesc(
+        Page<ConversationListView> conversations = conversationRepository
+                .findListingByUserIdAndStatus(
                         userId,
                         ConversationStatus.ACTIVE,
                         pageable
@@ -138,7 +209,7 @@ public class ConversationService {
 
         logger.debug("Retrieved {} conversations for user {}", conversations.getTotalElements(), userId);
 
-        return conversations.map(conv -> new ConversationResponse(conv, false));
+        return conversations.map(ConversationResponse::new);
     }
 
     @Transactional
@@ -160,6 +231,7 @@ public class ConversationService {
 
         conversation.archive();
         conversationRepository.save(conversation);
+        contextCache.invalidate(uuid);
 
         logger.info("Archived conversation {} for user {}", conversationId, userId);
     }
@@ -179,6 +251,49 @@ public class ConversationService {
     }
 
     // Private helper methods
+    /**
+     * Moderates chunks as they pass. Only text that may still be the start of a banned term is
+     * held back; a cutoff cancels the provider stream and ends the response with a notice.
+     */
+    private Flux<String> moderateStream(Flux<String> chunks, String locale) {
+        StreamingModerationFilter filter = contentModerationService.outputFilter(locale);
+
+        if (filter == null) {
+            return chunks;
+        }
+        return chunks.map(filter::accept)
+                .takeUntil(chunk -> filter.isCutOff())
+                .concatWith(Mono.fromCallable(filter::finish))
+                .filter(chunk -> !chunk.isEmpty());
+    }
+
+    // Checks that need no database connection, so rejected requests never wait for one
+    private void checkAdmission(MessageRequest messageRequest, RequestDeadline deadline) {
+        deadline.check("rate limit");
+
+        if (!rateLimitService.isAllowed(messageRequest.getUserId())) {
+            throw new RateLimitExceededException(messageRequest.getUserId());
+        }
+        if (!aiModelService.isValidInput(messageRequest.getContent())) {
+            throw new InvalidConversationException("Invalid message content");
+        }
+        contentModerationService.moderate(messageRequest.getContent(), messageRequest.getLocale());
+    }
+
+    private PendingExchange prepareExchange(MessageRequest messageRequest, RequestDeadline deadline) {
+        deadline.check("database");
+
+        Conversation conversation = getOrCreateConversation(
+                messageRequest.getConversationId(),
+                messageRequest.getUserId()
+        );
+        Message userMessage = saveUserMessage(conversation, messageRequest.getContent());
+        ContextWindowBuilder.ContextWindow conversationContext =
+                buildConversationContext(conversation, messageRequest.getContent());
+
+        return new PendingExchange(conversation, userMessage, conversationContext);
+    }
+
     private Conversation getOrCreateConversation(String conversationId, String userId) {
 
         if (conversationId != null && !conversationId.trim().isEmpty()) {
@@ -194,45 +309,60 @@ public class ConversationService {
     }
 
     private Message saveUserMessage(Conversation conversation, String content) {
+        Message savedMessage = saveCounted(conversation, new Message(conversation, content),
+                maxMessagesPerConversation);
 
-        if (conversation.getMessages().size() >= maxMessagesPerConversation) {
+        if (savedMessage == null) {
             throw new InvalidConversationException(
                     "Conversation has reached maximum message limit"
             );
         }
-        Message userMessage = new Message(conversation, content);
-        conversation.addMessage(userMessage);
-        Message savedMessage = messageRepository.save(userMessage);
-        conversationRepository.save(conversation);
+        contextCache.onMessageSaved(savedMessage);
 
         return savedMessage;
     }
 
+    // The reply to an accepted user message is always stored, so it is not held to the limit
     private Message saveAIMessage(Conversation conversation, String content,
                                   long processingTime, double confidence, String modelVersion) {
         Message aiMessage = new Message(conversation, content, processingTime, confidence, modelVersion);
-        conversation.addMessage(aiMessage);
 
-        Message savedMessage = messageRepository.save(aiMessage);
-        conversationRepository.save(conversation);
+        Message savedMessage = saveCounted(conversation, aiMessage, Integer.MAX_VALUE);
+        contextCache.onMessageSaved(savedMessage);
+        conversationSummarizer.onMessagesAdded(conversation.getId(), conversation.getMessageCount(),
+                conversation.getSummarizedMessageCount());
 
         return savedMessage;
     }
 
-    private String buildConversationContext(Conversation conversation) {
-        List<Message> recentMessages = conversation.getMessages()
-                .stream()
-                .sorted((m1, m2) -> m2.getCreatedAt().compareTo(m1.getCreatedAt()))
-                .limit(contextWindow)
-                .toList();
+    /**
+     * Inserts the message and counts it in one transaction, the count's guard deciding whether
+     * there is room: two concurrent requests cannot both take the last slot. Returns null,
+     * having stored nothing, when the conversation already holds {@code limit} messages.
+     */
+    private Message saveCounted(Conversation conversation, Message message, int limit) {
+        return transactionTemplate.execute(status -> {
+
+            if (conversationRepository.incrementMessageCount(conversation.getId(), limit, LocalDateTime.now()) == 0) {
+                return null;
+            }
+            // Keeps the request's copy close to the stored count; other requests may have added more
+            conversation.setMessageCount(conversation.getMessageCount() + 1);
+            conversation.updateLastActivity();
+            return messageRepository.save(message);
+        });
+    }
 
-        StringBuilder context = new StringBuilder();
+    private ContextWindowBuilder.ContextWindow buildConversationContext(Conversation conversation,
+                                                                        String currentInput) {
+        ConversationContextCache.RecentContext recent = contextCache.get(conversation.getId());
+        int totalMessages = recent.getTotalMessages();
+        // Messages already folded into the summary are represented by it
+        int unsummarized = Math.max(0, totalMessages - conversation.getSummarizedMessageCount());
+        List<Message> recentMessages = recent.getNewestFirst()
+                .subList(0, Math.min(Math.min(contextWindow, unsummarized), recent.getNewestFirst().size()));
 
-        for (Message message : recentMessages) {
-            String sender = message.isFromUser() ? "Usuario" : "Asistente";
-            context.append(sender).append(": ").append(message.getContent()).append("\n");
-        }
-        return context.toString();
+        return contextWindowBuilder.build(conversation.getSummary(), recentMessages, totalMessages, currentInput);
     }
 
     private UUID parseConversationId(String conversationId) {
@@ -251,6 +381,10 @@ public class ConversationService {
                 now.getYear());
     }
 
+    public ConversationContextCache.ContextCacheStats getContextCacheStats() {
+        return contextCache.getStats();
+    }
+
     @Transactional(readOnly = true)
     public ConversationStats getConversationStats(String userId) {
         long totalConversations = conversationRepository
@@ -266,6 +400,23 @@ public class ConversationService {
                 avgProcessingTime != null ? avgProcessingTime : 0.0);
     }
 
+    // State shared between the user message being stored and the AI response being generated
+    private static class PendingExchange {
+        private final Conversation conversation;
+        private final Message userMessage;
+        private final ContextWindowBuilder.ContextWindow context;
+
+        PendingExchange(Conversation conversation, Message userMessage, ContextWindowBuilder.ContextWindow context) {
+            this.conversation = conversation;
+            this.userMessage = userMessage;
+            this.context = context;
+        }
+
+        Conversation getConversation() { return conversation; }
+        Message getUserMessage() { return userMessage; }
+        ContextWindowBuilder.ContextWindow getContext() { return context; }
+    }
+
     // Inner class for statistics
     public static class ConversationStats {
         private final long totalConversations;
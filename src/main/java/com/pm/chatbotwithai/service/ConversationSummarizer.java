@@ -0,0 +1,184 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.model.entity.Conversation;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.ConversationRepository;
+import com.pm.chatbotwithai.repository.MessageRepository;
+import com.pm.chatbotwithai.service.resilience.ResourceLimiter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a rolling summary per conversation so prompts stay about the same size however long
+ * the conversation gets. Once {@code 2 * batch-messages} messages are not yet summarized, the
+ * oldest {@code batch-messages} of them are folded into the summary by a background
+ * generation; the prompt then carries the summary plus the remaining recent messages.
+ *
+ * <p>Everything happens off the request path. At most one summarization runs per
+ * conversation, and the result is only stored if the summary has not moved in the meantime.
+ */
+@Service
+public class ConversationSummarizer {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final AIModelService aiModelService;
+    private final ResourceLimiter databaseLimiter;
+    private final Executor taskExecutor;
+
+    private final Set<UUID> inProgress = ConcurrentHashMap.newKeySet();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong summarizedMessages = new AtomicLong();
+
+    @Value("${chatbot.conversation.summary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chatbot.conversation.summary.batch-messages:20}")
+    private int batchMessages;
+
+    @Value("${chatbot.conversation.summary.max-tokens:256}")
+    private int maxSummaryTokens;
+
+    @Autowired
+    public ConversationSummarizer(ConversationRepository conversationRepository,
+                                  MessageRepository messageRepository,
+                                  AIModelService aiModelService,
+                                  ResourceLimiter databaseLimiter,
+                                  @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.aiModelService = aiModelService;
+        this.databaseLimiter = databaseLimiter;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Called after messages were stored; starts a summarization in the background when enough
+     * unsummarized messages have piled up. Returns immediately.
+     */
+    public void onMessagesAdded(UUID conversationId, int totalMessages, int summarizedMessageCount) {
+
+        if (!enabled || conversationId == null || totalMessages - summarizedMessageCount < 2 * batchMessages) {
+            return;
+        }
+        if (!inProgress.add(conversationId)) {
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> databaseLimiter.call(() -> loadBatch(conversationId)), taskExecutor)
+                .thenCompose(batch -> batch == null
+                        ? CompletableFuture.completedFuture(false)
+                        : aiModelService.summarizeAsync(batch.previousSummary, batch.transcript, maxSummaryTokens)
+                                .thenApplyAsync(summary -> databaseLimiter.call(() -> store(conversationId, batch, summary)),
+                                        taskExecutor))
+                .whenComplete((stored, throwable) -> {
+                    inProgress.remove(conversationId);
+
+                    if (throwable != null) {
+                        failedCount.incrementAndGet();
+                        logger.warn("Could not summarize conversation {}", conversationId, throwable);
+                    } else if (stored) {
+                        completedCount.incrementAndGet();
+                        summarizedMessages.addAndGet(batchMessages);
+                    }
+                });
+    }
+
+    public SummarizerStats getStats() {
+        return new SummarizerStats(enabled, batchMessages, inProgress.size(), completedCount.get(),
+                failedCount.get(), summarizedMessages.get());
+    }
+
+    private SummaryBatch loadBatch(UUID conversationId) {
+        Conversation conversation = conversationRepository.findById(conversationId).orElse(null);
+
+        if (conversation == null) {
+            return null;
+        }
+        int from = conversation.getSummarizedMessageCount();
+
+        // Re-check against the stored state: another node may have summarized already
+        if (messageRepository.countByConversationId(conversationId) - from < 2 * batchMessages) {
+            return null;
+        }
+        // Only the batch itself: loading the whole history would cost more the longer the conversation
+        List<Message> batch = messageRepository.findMessageRange(conversationId, from, batchMessages);
+
+        if (batch.size() < batchMessages) {
+            return null;
+        }
+        StringBuilder transcript = new StringBuilder();
+
+        for (Message message : batch) {
+            transcript.append(message.isFromUser() ? "Usuario: " : "Asistente: ")
+                    .append(message.getContent())
+                    .append('\n');
+        }
+        return new SummaryBatch(conversation.getSummary(), transcript.toString(), from);
+    }
+
+    private boolean store(UUID conversationId, SummaryBatch batch, String summary) {
+        int updated = conversationRepository.advanceSummary(conversationId, summary,
+                batch.fromMessage + batchMessages, batch.fromMessage);
+
+        if (updated == 0) {
+            logger.debug("Summary of conversation {} moved while summarizing; result discarded", conversationId);
+            return false;
+        }
+        logger.debug("Conversation {} summarized up to message {}", conversationId, batch.fromMessage + batchMessages);
+        return true;
+    }
+
+    // Inner classes
+    private static final class SummaryBatch {
+        private final String previousSummary;
+        private final String transcript;
+        private final int fromMessage;
+
+        SummaryBatch(String previousSummary, String transcript, int fromMessage) {
+            this.previousSummary = previousSummary;
+            this.transcript = transcript;
+            this.fromMessage = fromMessage;
+        }
+    }
+
+    public static class SummarizerStats {
+        private final boolean enabled;
+        private final int batchMessages;
+        private final int inProgress;
+        private final long completedCount;
+        private final long failedCount;
+        private final long summarizedMessages;
+
+        public SummarizerStats(boolean enabled, int batchMessages, int inProgress, long completedCount,
+                               long failedCount, long summarizedMessages) {
+            this.enabled = enabled;
+            this.batchMessages = batchMessages;
+            this.inProgress = inProgress;
+            this.completedCount = completedCount;
+            this.failedCount = failedCount;
+            this.summarizedMessages = summarizedMessages;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getBatchMessages() { return batchMessages; }
+        public int getInProgress() { return inProgress; }
+        public long getCompletedCount() { return completedCount; }
+        public long getFailedCount() { return failedCount; }
+        public long getSummarizedMessages() { return summarizedMessages; }
+    }
+}
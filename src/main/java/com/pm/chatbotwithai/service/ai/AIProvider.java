@@ -1,8 +1,42 @@
 package com.pm.chatbotwithai.service.ai;
 
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 public interface AIProvider {
     void initialize() throws Exception;
     GenerationResponse generateResponse(GenerationRequest request) throws Exception;
+
+    /**
+     * Non-blocking generation. The default runs {@link #generateResponse} on the given executor;
+     * providers backed by a non-blocking client override it and do not use the executor at all.
+     */
+    default CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                       Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+
+            try {
+                return generateResponse(request);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Streams the generated text as chunks arrive from the model. Providers without native
+     * streaming support emit the whole response as a single chunk.
+     */
+    default Flux<String> streamResponse(GenerationRequest request) {
+        return Mono.fromCallable(() -> generateResponse(request).getResponse()).flux();
+    }
+
     void healthCheck() throws Exception;
     String getModelVersion();
     void shutdown();
@@ -13,12 +47,18 @@ public interface AIProvider {
         private final String context;
         private final int maxTokens;
         private final int timeoutSeconds;
+        private final GenerationPriority priority;
+        private final String prefixId;
+        private final RequestDeadline deadline;
 
         private GenerationRequest(Builder builder) {
             this.input = builder.input;
             this.context = builder.context;
             this.maxTokens = builder.maxTokens;
             this.timeoutSeconds = builder.timeoutSeconds;
+            this.priority = builder.priority;
+            this.prefixId = builder.prefixId;
+            this.deadline = builder.deadline;
         }
 
         public static Builder builder() {
@@ -29,17 +69,66 @@ public interface AIProvider {
         public String getContext() { return context; }
         public int getMaxTokens() { return maxTokens; }
         public int getTimeoutSeconds() { return timeoutSeconds; }
+        public GenerationPriority getPriority() { return priority; }
+
+        /**
+         * Identifies the append-only prefix the context starts with, so a prefix-caching server
+         * can keep the KV cache of the previous turn; {@code null} when there is no stable prefix.
+         */
+        public String getPrefixId() { return prefixId; }
+
+        /**
+         * Deadline of the chat request this generation serves, or {@code null} for work that is
+         * not tied to a waiting client.
+         */
+        public RequestDeadline getDeadline() { return deadline; }
+
+        /**
+         * Timeout for the provider call: {@code timeoutSeconds}, cut to the time the request has left.
+         */
+        public Duration getTimeout() {
+            Duration configured = Duration.ofSeconds(timeoutSeconds);
+            return deadline != null ? deadline.bound(configured) : configured;
+        }
+
+        /**
+         * The same request with no caller's deadline, for a call shared by callers that each
+         * enforce their own.
+         */
+        public GenerationRequest withoutDeadline() {
+
+            if (deadline == null) {
+                return this;
+            }
+            return builder()
+                    .input(input)
+                    .context(context)
+                    .maxTokens(maxTokens)
+                    .timeoutSeconds(timeoutSeconds)
+                    .priority(priority)
+                    .prefixId(prefixId)
+                    .build();
+        }
 
         public static class Builder {
             private String input;
             private String context;
             private int maxTokens = 512;
             private int timeoutSeconds = 30;
+            private GenerationPriority priority = GenerationPriority.INTERACTIVE;
+            private String prefixId;
+            private RequestDeadline deadline;
 
             public Builder input(String input) { this.input = input; return this; }
             public Builder context(String context) { this.context = context; return this; }
             public Builder maxTokens(int maxTokens) { this.maxTokens = maxTokens; return this; }
             public Builder timeoutSeconds(int timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; return this; }
+            public Builder priority(GenerationPriority priority) {
+                this.priority = priority != null ? priority : GenerationPriority.INTERACTIVE;
+                return this;
+            }
+            public Builder prefixId(String prefixId) { this.prefixId = prefixId; return this; }
+            public Builder deadline(RequestDeadline deadline) { this.deadline = deadline; return this; }
             public GenerationRequest build() { return new GenerationRequest(this); }
         }
     }
@@ -48,16 +137,32 @@ public interface AIProvider {
         private final String response;
         private final double confidence;
         private final String modelVersion;
+        private final boolean degraded;
 
         public GenerationResponse(String response, double confidence, String modelVersion) {
+            this(response, confidence, modelVersion, false);
+        }
+
+        public GenerationResponse(String response, double confidence, String modelVersion, boolean degraded) {
             this.response = response;
             this.confidence = confidence;
             this.modelVersion = modelVersion;
+            this.degraded = degraded;
         }
 
         public String getResponse() { return response; }
         public double getConfidence() { return confidence; }
         public String getModelVersion() { return modelVersion; }
+
+        /**
+         * Whether a fallback served this response in place of the provider, so it must not be
+         * cached as the provider's answer.
+         */
+        public boolean isDegraded() { return degraded; }
+
+        public GenerationResponse asDegraded() {
+            return degraded ? this : new GenerationResponse(response, confidence, modelVersion, true);
+        }
     }
 }
 
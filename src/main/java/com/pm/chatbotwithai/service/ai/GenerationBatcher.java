@@ -0,0 +1,157 @@
+package com.pm.chatbotwithai.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Collects generation requests for up to {@code maxLinger}, or until {@code maxBatchSize} are
+ * pending, and sends them as one batch call. Results are fanned back out to the individual
+ * futures in request order.
+ */
+class GenerationBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(GenerationBatcher.class);
+
+    private final int maxBatchSize;
+    private final Duration maxLinger;
+    private final Function<List<AIProvider.GenerationRequest>,
+            CompletableFuture<List<AIProvider.GenerationResponse>>> batchCall;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "AI-Batcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    private List<PendingGeneration> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedRequestCount = new AtomicLong();
+
+    GenerationBatcher(int maxBatchSize, Duration maxLinger,
+                      Function<List<AIProvider.GenerationRequest>,
+                              CompletableFuture<List<AIProvider.GenerationResponse>>> batchCall) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxLinger = maxLinger;
+        this.batchCall = batchCall;
+    }
+
+    CompletableFuture<AIProvider.GenerationResponse> submit(AIProvider.GenerationRequest request) {
+        PendingGeneration generation = new PendingGeneration(request);
+        List<PendingGeneration> fullBatch = null;
+
+        synchronized (lock) {
+            pending.add(generation);
+
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, maxLinger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return generation.future;
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    long getBatchedRequestCount() {
+        return batchedRequestCount.get();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        List<PendingGeneration> remaining;
+
+        synchronized (lock) {
+            remaining = takePending();
+        }
+        remaining.forEach(generation -> generation.future.completeExceptionally(
+                new IllegalStateException("Generation batcher is shutting down")));
+    }
+
+    private void flush() {
+        List<PendingGeneration> batch;
+
+        synchronized (lock) {
+            scheduledFlush = null;
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    // Must be called with the lock held
+    private List<PendingGeneration> takePending() {
+        List<PendingGeneration> batch = pending;
+        pending = new ArrayList<>(maxBatchSize);
+
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingGeneration> batch) {
+        // Callers that already gave up are not worth a slot in the batch
+        List<PendingGeneration> live = batch.stream()
+                .filter(generation -> !generation.future.isDone())
+                .toList();
+
+        if (live.isEmpty()) {
+            return;
+        }
+        batchCount.incrementAndGet();
+        batchedRequestCount.addAndGet(live.size());
+        logger.debug("Dispatching generation batch of {} requests", live.size());
+
+        CompletableFuture<List<AIProvider.GenerationResponse>> responses;
+
+        try {
+            responses = batchCall.apply(live.stream().map(generation -> generation.request).toList());
+        } catch (RuntimeException ex) {
+            responses = CompletableFuture.failedFuture(ex);
+        }
+        responses.whenComplete((results, throwable) -> {
+
+            if (throwable == null && (results == null || results.size() != live.size())) {
+                throwable = new IllegalStateException("Batch response size does not match the request count");
+            }
+            for (int i = 0; i < live.size(); i++) {
+
+                if (throwable != null) {
+                    live.get(i).future.completeExceptionally(throwable);
+                } else {
+                    live.get(i).future.complete(results.get(i));
+                }
+            }
+        });
+    }
+
+    // Inner classes
+    private static final class PendingGeneration {
+        private final AIProvider.GenerationRequest request;
+        private final CompletableFuture<AIProvider.GenerationResponse> future = new CompletableFuture<>();
+
+        PendingGeneration(AIProvider.GenerationRequest request) {
+            this.request = request;
+        }
+    }
+}
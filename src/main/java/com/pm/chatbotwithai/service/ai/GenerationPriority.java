@@ -0,0 +1,32 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of a generation. Interactive chat turns get the largest share of provider
+ * capacity; batch integrations and background jobs (titles, summaries) use what is left.
+ */
+public enum GenerationPriority {
+    INTERACTIVE,
+    BATCH,
+    BACKGROUND;
+
+    /**
+     * Case-insensitive lookup used for request bodies and the {@code X-Priority} header.
+     * Unknown values map to {@code null} so callers fall back to the default class.
+     */
+    @JsonCreator
+    public static GenerationPriority fromValue(String value) {
+
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
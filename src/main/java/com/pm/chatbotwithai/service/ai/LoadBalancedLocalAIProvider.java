@@ -0,0 +1,301 @@
+package com.pm.chatbotwithai.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Spreads generations across several local inference endpoints. Each request samples two
+ * healthy endpoints at random and goes to the one with the lower load score, which combines the
+ * endpoint's latency EWMA, its outstanding requests and its recent error rate; an endpoint with
+ * no latency samples yet is assumed to be as fast as the others. Endpoints that fail a periodic
+ * {@link AIProvider#healthCheck()} are taken out of rotation until they pass again.
+ */
+public class LoadBalancedLocalAIProvider implements AIProvider {
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalancedLocalAIProvider.class);
+    private static final double LATENCY_ALPHA = 0.3;
+    private static final double ERROR_ALPHA = 0.1;
+    private static final double ERROR_PENALTY = 10.0;
+
+    private final List<EndpointState> endpoints;
+    private final Duration healthCheckInterval;
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "AI-Endpoint-Health");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LoadBalancedLocalAIProvider(List<String> endpointUrls, Function<String, AIProvider> providerFactory,
+                                       Duration healthCheckInterval) {
+
+        if (endpointUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one local AI endpoint is required");
+        }
+        this.endpoints = endpointUrls.stream()
+                .map(url -> new EndpointState(url, providerFactory.apply(url)))
+                .toList();
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    @Override
+    public void initialize() throws Exception {
+        logger.info("Initializing load-balanced Local AI Provider with {} endpoints", endpoints.size());
+
+        // An endpoint that cannot start stays out of rotation until its health check passes
+        for (EndpointState endpoint : endpoints) {
+            try {
+                endpoint.provider.initialize();
+            } catch (Exception ex) {
+                logger.warn("Local AI endpoint {} failed to initialize, ejecting it: {}", endpoint.url, ex.getMessage());
+                endpoint.healthy = false;
+            }
+        }
+
+        if (endpoints.stream().noneMatch(EndpointState::isHealthy)) {
+            throw new RuntimeException("None of the local AI endpoints is reachable");
+        }
+        long intervalMs = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkEndpoints, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Load-balanced Local AI Provider initialized successfully");
+    }
+
+    @Override
+    public GenerationResponse generateResponse(GenerationRequest request) throws Exception {
+        EndpointState endpoint = chooseEndpoint();
+        long start = endpoint.begin();
+
+        try {
+            GenerationResponse response = endpoint.provider.generateResponse(request);
+            endpoint.complete(start, true);
+            return response;
+        } catch (Exception ex) {
+            endpoint.complete(start, false);
+            throw ex;
+        }
+    }
+
+    @Override
+    public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                      Executor executor) {
+        EndpointState endpoint = chooseEndpoint();
+        long start = endpoint.begin();
+        CompletableFuture<GenerationResponse> future;
+
+        try {
+            future = endpoint.provider.generateResponseAsync(request, executor);
+        } catch (RuntimeException ex) {
+            endpoint.complete(start, false);
+            throw ex;
+        }
+        future.whenComplete((response, throwable) -> {
+
+            // A call its caller gave up on says nothing about the endpoint's health
+            if (future.isCancelled()) {
+                endpoint.cancel();
+            } else {
+                endpoint.complete(start, throwable == null);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public Flux<String> streamResponse(GenerationRequest request) {
+        return Flux.defer(() -> {
+            EndpointState endpoint = chooseEndpoint();
+            long start = endpoint.begin();
+
+            return endpoint.provider.streamResponse(request)
+                    .doOnComplete(() -> endpoint.complete(start, true))
+                    .doOnError(ex -> endpoint.complete(start, false))
+                    .doOnCancel(() -> endpoint.cancel());
+        });
+    }
+
+    @Override
+    public void healthCheck() throws Exception {
+        checkEndpoints();
+
+        if (endpoints.stream().noneMatch(EndpointState::isHealthy)) {
+            throw new RuntimeException("All local AI endpoints are out of rotation");
+        }
+    }
+
+    @Override
+    public String getModelVersion() {
+        return "local-1.0";
+    }
+
+    @Override
+    public void shutdown() {
+        logger.info("Shutting down load-balanced Local AI Provider");
+        healthChecker.shutdownNow();
+        endpoints.forEach(endpoint -> endpoint.provider.shutdown());
+    }
+
+    public List<EndpointStats> getEndpointStats() {
+        return endpoints.stream()
+                .map(EndpointState::snapshot)
+                .toList();
+    }
+
+    void checkEndpoints() {
+
+        for (EndpointState endpoint : endpoints) {
+            try {
+                endpoint.provider.healthCheck();
+
+                if (!endpoint.healthy) {
+                    logger.info("Local AI endpoint {} is healthy again, returning it to rotation", endpoint.url);
+                }
+                endpoint.healthy = true;
+            } catch (Exception ex) {
+
+                if (endpoint.healthy) {
+                    logger.warn("Local AI endpoint {} failed its health check, ejecting it: {}",
+                            endpoint.url, ex.getMessage());
+                }
+                endpoint.healthy = false;
+            }
+        }
+    }
+
+    // Power of two choices: cheap to compute and avoids herding onto a single "best" endpoint
+    private EndpointState chooseEndpoint() {
+        List<EndpointState> candidates = endpoints.stream()
+                .filter(EndpointState::isHealthy)
+                .toList();
+
+        if (candidates.isEmpty()) {
+            // Fail open: a request against a possibly recovered endpoint beats a certain failure
+            candidates = endpoints;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+
+        if (second >= first) {
+            second++;
+        }
+        EndpointState a = candidates.get(first);
+        EndpointState b = candidates.get(second);
+        double meanLatencyMs = meanLatencyMs();
+
+        return a.loadScore(meanLatencyMs) <= b.loadScore(meanLatencyMs) ? a : b;
+    }
+
+    // Stand-in latency for endpoints without samples, so a new one is not flooded for scoring 0
+    private double meanLatencyMs() {
+        return endpoints.stream()
+                .filter(EndpointState::hasSamples)
+                .mapToDouble(EndpointState::latencyEwmaMs)
+                .average()
+                .orElse(0);
+    }
+
+    // Inner classes
+    private static final class EndpointState {
+        private final String url;
+        private final AIProvider provider;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean healthy = true;
+
+        private double latencyEwmaMs;
+        private double errorRate;
+        private long requestCount;
+        private long errorCount;
+
+        EndpointState(String url, AIProvider provider) {
+            this.url = url;
+            this.provider = provider;
+        }
+
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        synchronized boolean hasSamples() {
+            return requestCount > 0;
+        }
+
+        synchronized double latencyEwmaMs() {
+            return latencyEwmaMs;
+        }
+
+        long begin() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        void cancel() {
+            inFlight.decrementAndGet();
+        }
+
+        synchronized void complete(long start, boolean success) {
+            inFlight.decrementAndGet();
+            double latencyMs = (System.nanoTime() - start) / 1_000_000.0;
+
+            latencyEwmaMs = requestCount == 0 ? latencyMs : LATENCY_ALPHA * latencyMs + (1 - LATENCY_ALPHA) * latencyEwmaMs;
+            errorRate = ERROR_ALPHA * (success ? 0.0 : 1.0) + (1 - ERROR_ALPHA) * errorRate;
+            requestCount++;
+
+            if (!success) {
+                errorCount++;
+            }
+        }
+
+        // Expected wait for a new request, inflated by recent errors. The latency floor keeps
+        // outstanding requests counting while no endpoint has samples.
+        synchronized double loadScore(double defaultLatencyMs) {
+            double latencyMs = requestCount == 0 ? defaultLatencyMs : latencyEwmaMs;
+            return Math.max(latencyMs, 1.0) * (inFlight.get() + 1) * (1 + ERROR_PENALTY * errorRate);
+        }
+
+        synchronized EndpointStats snapshot() {
+            return new EndpointStats(url, healthy, inFlight.get(), latencyEwmaMs, errorRate, requestCount, errorCount);
+        }
+    }
+
+    public static class EndpointStats {
+        private final String url;
+        private final boolean healthy;
+        private final int inFlight;
+        private final double latencyEwmaMs;
+        private final double errorRate;
+        private final long requestCount;
+        private final long errorCount;
+
+        public EndpointStats(String url, boolean healthy, int inFlight, double latencyEwmaMs,
+                             double errorRate, long requestCount, long errorCount) {
+            this.url = url;
+            this.healthy = healthy;
+            this.inFlight = inFlight;
+            this.latencyEwmaMs = latencyEwmaMs;
+            this.errorRate = errorRate;
+            this.requestCount = requestCount;
+            this.errorCount = errorCount;
+        }
+
+        public String getUrl() { return url; }
+        public boolean isHealthy() { return healthy; }
+        public int getInFlight() { return inFlight; }
+        public double getLatencyEwmaMs() { return latencyEwmaMs; }
+        public double getErrorRate() { return errorRate; }
+        public long getRequestCount() { return requestCount; }
+        public long getErrorCount() { return errorCount; }
+    }
+}
@@ -1,23 +1,48 @@
 package com.pm.chatbotwithai.service.ai;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
-
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class LocalAIProvider implements AIProvider {
     private static final Logger logger = LoggerFactory.getLogger(LocalAIProvider.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(5);
 
     private final String endpoint;
     private final String modelPath;
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final GenerationBatcher batcher;
+
+    public LocalAIProvider(String endpoint, String modelPath, WebClient webClient) {
+        this(endpoint, modelPath, webClient, 1, Duration.ZERO);
+    }
 
-    public LocalAIProvider(String endpoint, String modelPath) {
+    /**
+     * With a batch size above one, generations are grouped by a {@link GenerationBatcher} and
+     * sent to the server's {@code /generate/batch} endpoint.
+     */
+    public LocalAIProvider(String endpoint, String modelPath, WebClient webClient,
+                           int maxBatchSize, Duration maxLinger) {
         this.endpoint = endpoint;
         this.modelPath = modelPath;
-        this.restTemplate = new RestTemplate();
+        this.webClient = webClient;
+        this.batcher = maxBatchSize > 1 ? new GenerationBatcher(maxBatchSize, maxLinger, this::requestBatch) : null;
     }
 
     @Override
@@ -29,52 +54,56 @@ public class LocalAIProvider implements AIProvider {
 
     @Override
     public GenerationResponse generateResponse(GenerationRequest request) throws Exception {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        Map<String, Object> requestBody = Map.of(
-                "input", request.getInput(),
-                "context", request.getContext() != null ? request.getContext() : "",
-                "max_tokens", request.getMaxTokens()
-        );
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        if (batcher != null) {
+            return generateResponseAsync(request, null).get();
+        }
+        return requestGeneration(request).block();
+    }
 
-        try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    endpoint,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                String generatedText = (String) responseBody.get("response");
-                Double confidence = (Double) responseBody.getOrDefault("confidence", 0.8);
-
-                return new GenerationResponse(generatedText, confidence, "local-1.0");
-            }
-            throw new RuntimeException("Invalid response from local AI endpoint");
+    @Override
+    public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                      Executor executor) {
 
-        } catch (Exception ex) {
-            logger.error("Error calling local AI endpoint", ex);
-            throw new RuntimeException("Local AI error: " + ex.getMessage(), ex);
+        if (batcher != null) {
+            return batcher.submit(request)
+                    .orTimeout(request.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
         }
+        return requestGeneration(request).toFuture();
+    }
+
+    /**
+     * Requests a streamed generation. The local server answers with newline-delimited JSON,
+     * one {@code {"token": "..."}} object per chunk and a final {@code {"done": true}} line.
+     */
+    @Override
+    public Flux<String> streamResponse(GenerationRequest request) {
+        return webClient.post()
+                .uri(endpoint)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(buildRequestBody(request, true))
+                .retrieve()
+                .bodyToFlux(String.class)
+                .filter(line -> !line.isBlank())
+                .map(this::readStreamLine)
+                .takeWhile(node -> !node.path("done").asBoolean(false))
+                .map(node -> node.path("token").asText(""))
+                .filter(token -> !token.isEmpty())
+                .transform(tokens -> RequestDeadline.withTotalTimeout(tokens, request.getTimeout()))
+                .doOnError(ex -> logger.error("Error streaming from local AI endpoint", ex))
+                .onErrorMap(ex -> new RuntimeException("Local AI error: " + ex.getMessage(), ex));
     }
 
     @Override
     public void healthCheck() throws Exception {
 
         try {
-            ResponseEntity<String> response = restTemplate.getForEntity(
-                    endpoint.replace("/generate", "/health"),
-                    String.class
-            );
-
-            if (response.getStatusCode() != HttpStatus.OK) {
-                throw new RuntimeException("Local AI service is not healthy");
-            }
+            webClient.get()
+                    .uri(endpoint.replace("/generate", "/health"))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(HEALTH_CHECK_TIMEOUT);
         } catch (Exception ex) {
             throw new RuntimeException("Cannot connect to local AI service: " + ex.getMessage(), ex);
         }
@@ -88,5 +117,77 @@ public class LocalAIProvider implements AIProvider {
     @Override
     public void shutdown() {
         logger.info("Shutting down Local AI Provider");
+
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    private Mono<GenerationResponse> requestGeneration(GenerationRequest request) {
+        return webClient.post()
+                .uri(endpoint)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(buildRequestBody(request, false))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .timeout(request.getTimeout())
+                .map(this::toGenerationResponse)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Invalid response from local AI endpoint")))
+                .doOnError(ex -> logger.error("Error calling local AI endpoint", ex))
+                .onErrorMap(ex -> new RuntimeException("Local AI error: " + ex.getMessage(), ex));
+    }
+
+    private CompletableFuture<List<GenerationResponse>> requestBatch(List<GenerationRequest> requests) {
+        // The batch is one HTTP call, so it waits for the request with the most time left
+        Duration timeout = requests.stream().map(GenerationRequest::getTimeout).max(Duration::compareTo)
+                .orElse(Duration.ofSeconds(30));
+
+        return webClient.post()
+                .uri(endpoint.replace("/generate", "/generate/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("requests", requests.stream()
+                        .map(request -> buildRequestBody(request, false))
+                        .toList()))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, List<Map<String, Object>>>>() {})
+                .timeout(timeout)
+                .map(responseBody -> responseBody.getOrDefault("responses", List.of()).stream()
+                        .map(this::toGenerationResponse)
+                        .toList())
+                .doOnError(ex -> logger.error("Error calling local AI batch endpoint", ex))
+                .onErrorMap(ex -> new RuntimeException("Local AI batch error: " + ex.getMessage(), ex))
+                .toFuture();
+    }
+
+    private GenerationResponse toGenerationResponse(Map<String, Object> responseBody) {
+        String generatedText = (String) responseBody.get("response");
+        Object confidence = responseBody.getOrDefault("confidence", 0.8);
+
+        return new GenerationResponse(generatedText, ((Number) confidence).doubleValue(), "local-1.0");
+    }
+
+    private JsonNode readStreamLine(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Malformed stream line from local AI endpoint: " + line, ex);
+        }
+    }
+
+    /**
+     * {@code prefix_id} is only sent when the context starts with a stable prefix; a server with
+     * prefix caching can use it to find the KV cache of the conversation's previous turn.
+     */
+    private Map<String, Object> buildRequestBody(GenerationRequest request, boolean stream) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("input", request.getInput());
+        body.put("context", request.getContext() != null ? request.getContext() : "");
+        body.put("max_tokens", request.getMaxTokens());
+        body.put("stream", stream);
+
+        if (request.getPrefixId() != null) {
+            body.put("prefix_id", request.getPrefixId());
+        }
+        return body;
     }
 }
@@ -2,21 +2,51 @@ package com.pm.chatbotwithai.service.ai;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canned-answer provider for demos and load tests. Every request gets its own random stream,
+ * seeded from the provider seed and the request content, so latency and confidence do not
+ * depend on which thread serves the request or on what ran before it: the same seed and the
+ * same requests reproduce the same run.
+ */
 public class MockAIProvider implements AIProvider {
     private static final Logger logger = LoggerFactory.getLogger(MockAIProvider.class);
+    private static final MockLatencyModel DEFAULT_LATENCY = MockLatencyModel.uniform(50, 250);
+    private static final double DEFAULT_TOKENS_PER_SECOND = 50;
 
     private final int maxTokens;
     private final double baseConfidence;
-    private final Random random = ThreadLocalRandom.current();
+    private final long seed;
+    private final MockLatencyModel latency;
+    private final double tokensPerSecond;
     private volatile boolean initialized = false;
 
     public MockAIProvider(int maxTokens, double baseConfidence) {
+        this(maxTokens, baseConfidence, System.nanoTime(), DEFAULT_LATENCY, DEFAULT_TOKENS_PER_SECOND);
+    }
+
+    /**
+     * @param latency delay before the answer, or before the first streamed chunk
+     * @param tokensPerSecond pace of streamed chunks; zero or less streams without delay
+     */
+    public MockAIProvider(int maxTokens, double baseConfidence, long seed, MockLatencyModel latency,
+                          double tokensPerSecond) {
         this.maxTokens = maxTokens;
         this.baseConfidence = baseConfidence;
+        this.seed = seed;
+        this.latency = latency;
+        this.tokensPerSecond = tokensPerSecond;
     }
 
     @Override
@@ -33,16 +63,50 @@ public class MockAIProvider implements AIProvider {
         if (!initialized) {
             throw new IllegalStateException("Mock AI Provider not initialized");
         }
-        Thread.sleep(50 + random.nextInt(200));
+        SplittableRandom random = randomFor(request);
+        Thread.sleep(latency.sampleMillis(random));
 
-        String input = request.getInput().toLowerCase();
-        String response = generateMockResponse(input);
-        double confidence = calculateMockConfidence(input, response);
+        return respond(request, random);
+    }
 
-        logger.debug("Mock AI generated response: {} chars, confidence: {:.2f}",
-                response.length(), confidence);
+    /**
+     * Waits out the sampled latency on a timer instead of holding a thread, so the mock can
+     * sustain far more concurrent requests than there are executor threads.
+     */
+    @Override
+    public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                      Executor executor) {
 
-        return new GenerationResponse(response, confidence, "mock-1.0");
+        if (!initialized) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Mock AI Provider not initialized"));
+        }
+        SplittableRandom random = randomFor(request);
+        long delayMillis = latency.sampleMillis(random);
+
+        if (delayMillis <= 0) {
+            return CompletableFuture.completedFuture(respond(request, random));
+        }
+        Executor delayed = executor != null
+                ? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor)
+                : CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> respond(request, random), delayed);
+    }
+
+    @Override
+    public Flux<String> streamResponse(GenerationRequest request) {
+
+        if (!initialized) {
+            return Flux.error(new IllegalStateException("Mock AI Provider not initialized"));
+        }
+        String response = generateMockResponse(request.getInput().toLowerCase());
+        Flux<String> chunks = Mono.delay(Duration.ofMillis(latency.sampleMillis(randomFor(request))))
+                .thenMany(Flux.fromIterable(splitIntoChunks(response)));
+
+        if (tokensPerSecond <= 0) {
+            return chunks;
+        }
+        // One chunk is one word, which is close enough to a token for pacing
+        return chunks.delayElements(Duration.ofNanos((long) (1_000_000_000L / tokensPerSecond)));
     }
 
     @Override
@@ -64,6 +128,20 @@ public class MockAIProvider implements AIProvider {
         initialized = false;
     }
 
+    private GenerationResponse respond(GenerationRequest request, SplittableRandom random) {
+        String input = request.getInput().toLowerCase();
+        String response = generateMockResponse(input);
+        double confidence = calculateMockConfidence(input, response, random);
+
+        logger.debug("Mock AI generated response: {} chars, confidence: {}", response.length(), confidence);
+
+        return new GenerationResponse(response, confidence, "mock-1.0");
+    }
+
+    private SplittableRandom randomFor(GenerationRequest request) {
+        return new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * Objects.hash(request.getInput(), request.getContext())));
+    }
+
     private String generateMockResponse(String input) {
 
         if (input.contains("hola") || input.contains("hello")) {
@@ -108,7 +186,22 @@ public class MockAIProvider implements AIProvider {
         return genericResponses[Math.abs(input.hashCode()) % genericResponses.length];
     }
 
-    private double calculateMockConfidence(String input, String response) {
+    private List<String> splitIntoChunks(String response) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+
+        for (int i = 1; i < response.length(); i++) {
+
+            if (response.charAt(i) == ' ') {
+                chunks.add(response.substring(start, i));
+                start = i;
+            }
+        }
+        chunks.add(response.substring(start));
+        return chunks;
+    }
+
+    private double calculateMockConfidence(String input, String response, SplittableRandom random) {
         double confidence = baseConfidence;
 
         if (input.length() < 5) {
@@ -0,0 +1,99 @@
+package com.pm.chatbotwithai.service.ai;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Latency the {@link MockAIProvider} adds before answering. Models are written as a spec string
+ * so they fit in one property:
+ * <ul>
+ *   <li>{@code none}: answer immediately</li>
+ *   <li>{@code fixed:80}: always 80 ms</li>
+ *   <li>{@code uniform:50,250}: uniform between 50 and 250 ms</li>
+ *   <li>{@code lognormal:120,0.6}: log-normal with a 120 ms median and a sigma of 0.6</li>
+ *   <li>{@code histogram:50=400,100=300,250=200,1000=100}: a recorded latency histogram as
+ *       {@code upperBoundMs=count} buckets; a bucket is picked by its count and the latency is
+ *       uniform between the previous bound and its own</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface MockLatencyModel {
+    MockLatencyModel NONE = random -> 0;
+
+    long sampleMillis(SplittableRandom random);
+
+    static MockLatencyModel parse(String spec) {
+        String trimmed = spec == null ? "" : spec.trim();
+        int separator = trimmed.indexOf(':');
+        String type = (separator < 0 ? trimmed : trimmed.substring(0, separator)).toLowerCase();
+        String[] args = separator < 0 ? new String[0] : trimmed.substring(separator + 1).split(",");
+
+        try {
+            return switch (type) {
+                case "", "none" -> NONE;
+                case "fixed" -> fixed(Long.parseLong(args[0].trim()));
+                case "uniform" -> uniform(Long.parseLong(args[0].trim()), Long.parseLong(args[1].trim()));
+                case "lognormal" -> logNormal(Double.parseDouble(args[0].trim()), Double.parseDouble(args[1].trim()));
+                case "histogram" -> histogram(args);
+                default -> throw new IllegalArgumentException("Unknown latency model: " + type);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Malformed latency model spec: " + spec, ex);
+        }
+    }
+
+    static MockLatencyModel fixed(long millis) {
+        return random -> millis;
+    }
+
+    static MockLatencyModel uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + random.nextLong(Math.max(1, maxMillis - minMillis));
+    }
+
+    static MockLatencyModel logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+
+        return random -> {
+            // Box-Muller on two uniforms from the same stream keeps the sample reproducible
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            double gaussian = Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+            return Math.round(Math.exp(mu + sigma * gaussian));
+        };
+    }
+
+    private static MockLatencyModel histogram(String[] buckets) {
+        long[][] parsed = new long[buckets.length][];
+
+        for (int i = 0; i < buckets.length; i++) {
+            String[] pair = buckets[i].trim().split("=");
+            parsed[i] = new long[] {Long.parseLong(pair[0].trim()), Long.parseLong(pair[1].trim())};
+        }
+        Arrays.sort(parsed, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] bounds = new long[parsed.length];
+        long[] cumulative = new long[parsed.length];
+        long total = 0;
+
+        for (int i = 0; i < parsed.length; i++) {
+            bounds[i] = parsed[i][0];
+            total += parsed[i][1];
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Latency histogram has no samples");
+        }
+        long samples = total;
+
+        return random -> {
+            long pick = random.nextLong(samples);
+            int bucket = 0;
+
+            while (cumulative[bucket] <= pick) {
+                bucket++;
+            }
+            long lower = bucket == 0 ? 0 : bounds[bucket - 1];
+            return lower + random.nextLong(Math.max(1, bounds[bucket] - lower));
+        };
+    }
+}
@@ -1,30 +1,51 @@
 package com.pm.chatbotwithai.service.ai;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class OpenAIProvider implements AIProvider {
     private static final Logger logger = LoggerFactory.getLogger(OpenAIProvider.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private final String apiKey;
     private final String model;
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final String apiUrl;
     private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    private static final String STREAM_DONE_MARKER = "[DONE]";
 
-    public OpenAIProvider(String apiKey, String model) {
+    public OpenAIProvider(String apiKey, String model, WebClient webClient) {
+        this(apiKey, model, webClient, OPENAI_API_URL);
+    }
+
+    /**
+     * @param apiUrl chat completions endpoint; any OpenAI-compatible server (a gateway, a
+     *               self-hosted model or a test stand-in) can be used instead of OpenAI's
+     */
+    public OpenAIProvider(String apiKey, String model, WebClient webClient, String apiUrl) {
         this.apiKey = apiKey;
         this.model = model;
-        this.restTemplate = new RestTemplate();
+        this.webClient = webClient;
+        this.apiUrl = apiUrl;
     }
 
     @Override
     public void initialize() throws Exception {
-        logger.info("Initializing OpenAI Provider with model: {}", model);
+        logger.info("Initializing OpenAI Provider with model: {} at {}", model, apiUrl);
         // Testing API compatibility
         healthCheck();
         logger.info("OpenAI Provider initialized successfully");
@@ -32,46 +53,37 @@ public class OpenAIProvider implements AIProvider {
 
     @Override
     public GenerationResponse generateResponse(GenerationRequest request) throws Exception {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
-
-        Map<String, Object> requestBody = Map.of(
-                "model", model,
-                "messages", List.of(
-                        Map.of("role", "user", "content", request.getInput())
-                ),
-                "max_tokens", request.getMaxTokens(),
-                "temperature", 0.7
-        );
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        return requestCompletion(request).block();
+    }
 
-        try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    OPENAI_API_URL,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-            );
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-
-                if (choices != null && !choices.isEmpty()) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> message = (Map<String, Object>) choices.getFirst().get("message");
-                    String content = (String) message.get("content");
-
-                    return new GenerationResponse(content, 0.7, model);
-                }
-            }
-            throw new RuntimeException("Invalid response from OpenAI API");
+    @Override
+    public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                      Executor executor) {
+        return requestCompletion(request).toFuture();
+    }
 
-        } catch (Exception ex) {
-            logger.error("Error calling OpenAI API", ex);
-            throw new RuntimeException("OpenAI API error: " + ex.getMessage(), ex);
-        }
+    /**
+     * Uses the chat completions {@code stream} mode, which answers with server-sent events
+     * carrying {@code choices[0].delta.content} fragments and a final {@code [DONE]} marker.
+     */
+    @Override
+    public Flux<String> streamResponse(GenerationRequest request) {
+        return webClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> headers.setBearerAuth(apiKey))
+                .bodyValue(buildRequestBody(request, true))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .mapNotNull(ServerSentEvent::data)
+                .map(String::trim)
+                .takeWhile(data -> !STREAM_DONE_MARKER.equals(data))
+                .map(this::extractDeltaContent)
+                .filter(content -> !content.isEmpty())
+                .transform(chunks -> RequestDeadline.withTotalTimeout(chunks, request.getTimeout()))
+                .doOnError(ex -> logger.error("Error streaming from OpenAI API", ex))
+                .onErrorMap(ex -> new RuntimeException("OpenAI API error: " + ex.getMessage(), ex));
     }
 
     @Override
@@ -91,4 +103,56 @@ public class OpenAIProvider implements AIProvider {
     public void shutdown() {
         logger.info("Shutting down OpenAI Provider");
     }
+
+    private Map<String, Object> buildRequestBody(GenerationRequest request, boolean stream) {
+        return Map.of(
+                "model", model,
+                "messages", List.of(
+                        Map.of("role", "user", "content", request.getInput())
+                ),
+                "max_tokens", request.getMaxTokens(),
+                "temperature", 0.7,
+                "stream", stream
+        );
+    }
+
+    private Mono<GenerationResponse> requestCompletion(GenerationRequest request) {
+        return webClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> headers.setBearerAuth(apiKey))
+                .bodyValue(buildRequestBody(request, false))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(request.getTimeout())
+                .map(this::toGenerationResponse)
+                .doOnError(ex -> logger.error("Error calling OpenAI API", ex))
+                .onErrorMap(ex -> new RuntimeException("OpenAI API error: " + ex.getMessage(), ex));
+    }
+
+    private GenerationResponse toGenerationResponse(JsonNode responseBody) {
+        JsonNode choices = responseBody.path("choices");
+
+        if (!choices.isArray() || choices.isEmpty()) {
+            throw new IllegalStateException("Invalid response from OpenAI API");
+        }
+        String content = choices.get(0).path("message").path("content").asText();
+        return new GenerationResponse(content, 0.7, model);
+    }
+
+    private String extractDeltaContent(String data) {
+        JsonNode chunk;
+
+        try {
+            chunk = objectMapper.readTree(data);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Malformed stream event from OpenAI API: " + data, ex);
+        }
+        JsonNode choices = chunk.path("choices");
+
+        if (!choices.isArray() || choices.isEmpty()) {
+            return "";
+        }
+        return choices.get(0).path("delta").path("content").asText("");
+    }
 }
@@ -0,0 +1,256 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.pm.chatbotwithai.exception.ProviderUnavailableException;
+import com.pm.chatbotwithai.exception.ServiceOverloadedException;
+import com.pm.chatbotwithai.service.resilience.CircuitBreaker;
+import com.pm.chatbotwithai.service.resilience.ConcurrencyLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorates a provider with a {@link CircuitBreaker} and a {@link ConcurrencyLimiter}. Calls over the
+ * concurrency limit fail fast with {@link ServiceOverloadedException}: the upstream is healthy,
+ * just busy, so the caller should retry rather than be handed demo text. Calls rejected by an
+ * open breaker are served by the fallback provider, or fail fast with
+ * {@link ProviderUnavailableException} when no fallback is configured, so a degraded upstream
+ * never holds a worker for the full provider timeout. Fallback responses are marked
+ * {@link GenerationResponse#isDegraded() degraded}.
+ */
+public class ResilientAIProvider implements AIProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ResilientAIProvider.class);
+
+    private final AIProvider delegate;
+    private final AIProvider fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    public ResilientAIProvider(AIProvider delegate, AIProvider fallback,
+                               CircuitBreaker circuitBreaker, ConcurrencyLimiter concurrencyLimiter) {
+        this.delegate = delegate;
+        this.fallback = fallback;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public void initialize() throws Exception {
+        delegate.initialize();
+
+        if (fallback != null) {
+            fallback.initialize();
+        }
+    }
+
+    @Override
+    public GenerationResponse generateResponse(GenerationRequest request) throws Exception {
+
+        if (!acquire()) {
+            return fallbackProvider().generateResponse(request).asDegraded();
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            GenerationResponse response = delegate.generateResponse(request);
+            success = true;
+            return response;
+        } finally {
+            release(start, success);
+        }
+    }
+
+    @Override
+    public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request,
+                                                                      Executor executor) {
+        return generateResponseAsync(request, executor, true);
+    }
+
+    /**
+     * A backup attempt for a call already in flight. It takes a permit of its own, so hedged load
+     * counts against the concurrency limit, and it is never served by the fallback: an instant
+     * demo reply would always beat the real one. When it is not admitted it simply fails and the
+     * primary attempt carries on.
+     */
+    public CompletableFuture<GenerationResponse> generateHedgeAsync(GenerationRequest request, Executor executor) {
+        return generateResponseAsync(request, executor, false);
+    }
+
+    private CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request, Executor executor,
+                                                                       boolean allowFallback) {
+        boolean admitted;
+
+        try {
+            admitted = acquire();
+        } catch (ServiceOverloadedException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        if (!admitted && !allowFallback) {
+            return CompletableFuture.failedFuture(new ProviderUnavailableException(
+                    "Hedge rejected: circuit breaker " + circuitBreaker.getState()));
+        }
+        if (!admitted) {
+            try {
+                return fallbackProvider().generateResponseAsync(request, executor)
+                        .thenApply(GenerationResponse::asDegraded);
+            } catch (ProviderUnavailableException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        long start = System.nanoTime();
+        CompletableFuture<GenerationResponse> future;
+
+        try {
+            future = delegate.generateResponseAsync(request, executor);
+        } catch (RuntimeException ex) {
+            release(start, false);
+            throw ex;
+        }
+        // Not a dependent stage of the call: one of those would skip its action once cancelled itself
+        CompletableFuture<GenerationResponse> result = new CompletableFuture<>();
+
+        future.whenComplete((response, throwable) -> {
+
+            if (future.isCancelled()) {
+                releaseCancelled();
+            } else {
+                release(start, throwable == null);
+            }
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(response);
+            }
+        });
+        // A caller cancelling on a deadline or a disconnect stops the call itself
+        result.whenComplete((response, throwable) -> {
+
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Flux<String> streamResponse(GenerationRequest request) {
+        return streamResponse(request, () -> { });
+    }
+
+    /**
+     * Chunks carry no response metadata, so a stream served by the fallback is reported through
+     * {@code onDegraded}, which runs on subscription before the first chunk.
+     */
+    public Flux<String> streamResponse(GenerationRequest request, Runnable onDegraded) {
+        return Flux.defer(() -> {
+
+            if (!acquire()) {
+                Flux<String> fallbackStream = fallbackProvider().streamResponse(request);
+                onDegraded.run();
+                return fallbackStream;
+            }
+            long start = System.nanoTime();
+
+            return delegate.streamResponse(request)
+                    .doFinally(signal -> {
+
+                        if (signal == SignalType.CANCEL) {
+                            releaseCancelled();
+                        } else {
+                            release(start, signal != SignalType.ON_ERROR);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public void healthCheck() throws Exception {
+        delegate.healthCheck();
+    }
+
+    @Override
+    public String getModelVersion() {
+        return delegate.getModelVersion();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+
+        if (fallback != null) {
+            fallback.shutdown();
+        }
+    }
+
+    public AIProvider getDelegate() {
+        return delegate;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public ResilienceStats getStats() {
+        return new ResilienceStats(circuitBreaker.getStats(), concurrencyLimiter.getStats(), fallbackCount.get());
+    }
+
+    // Returns false when the breaker rejects the call; throws when the concurrency limit does
+    private boolean acquire() {
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            throw new ServiceOverloadedException("AI provider concurrency limit reached");
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            concurrencyLimiter.release();
+            return false;
+        }
+        return true;
+    }
+
+    private void release(long start, boolean success) {
+        long duration = System.nanoTime() - start;
+        concurrencyLimiter.onComplete(duration, success);
+        circuitBreaker.onResult(duration, success);
+    }
+
+    // A cancelled call is neither a failure nor a latency sample: its caller stopped waiting
+    private void releaseCancelled() {
+        concurrencyLimiter.release();
+        circuitBreaker.onIgnored();
+    }
+
+    private AIProvider fallbackProvider() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+
+        if (fallback == null) {
+            throw new ProviderUnavailableException("AI provider call rejected: circuit breaker " + state);
+        }
+        fallbackCount.incrementAndGet();
+        logger.debug("AI provider call rejected (circuit breaker {}), using fallback provider", state);
+        return fallback;
+    }
+
+    // Inner classes
+    public static class ResilienceStats {
+        private final CircuitBreaker.CircuitBreakerStats circuitBreaker;
+        private final ConcurrencyLimiter.ConcurrencyLimiterStats concurrencyLimiter;
+        private final long fallbackCount;
+
+        public ResilienceStats(CircuitBreaker.CircuitBreakerStats circuitBreaker,
+                               ConcurrencyLimiter.ConcurrencyLimiterStats concurrencyLimiter, long fallbackCount) {
+            this.circuitBreaker = circuitBreaker;
+            this.concurrencyLimiter = concurrencyLimiter;
+            this.fallbackCount = fallbackCount;
+        }
+
+        public CircuitBreaker.CircuitBreakerStats getCircuitBreaker() { return circuitBreaker; }
+        public ConcurrencyLimiter.ConcurrencyLimiterStats getConcurrencyLimiter() { return concurrencyLimiter; }
+        public long getFallbackCount() { return fallbackCount; }
+    }
+}
@@ -0,0 +1,164 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pm.chatbotwithai.config.CacheConfig;
+import com.pm.chatbotwithai.service.ai.AIProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Exact-match cache of provider responses. Entries are keyed on the provider, the preprocessed
+ * user input and a fingerprint of the full prompt context, and are bounded by size and age
+ * through the {@link CacheConfig#AI_RESPONSE_CACHE} Caffeine cache. The input is compared as
+ * is: the context repeats it, so folding its case could never produce a hit. Near-duplicate
+ * opening prompts are matched by the {@link SemanticResponseCache} instead.
+ *
+ * <p>Entries are the provider's raw output, before output moderation. The locale is not part of
+ * the key, so callers moderate each response they serve from here, as they do a fresh one.
+ */
+@Component
+public class AIResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(AIResponseCache.class);
+
+    @Value("${chatbot.ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chatbot.ai.cache.excluded-providers:}")
+    private Set<String> excludedProviders;
+
+    private final CaffeineCache cache;
+
+    @Autowired
+    public AIResponseCache(CacheManager cacheManager) {
+        this.cache = (CaffeineCache) Objects.requireNonNull(
+                cacheManager.getCache(CacheConfig.AI_RESPONSE_CACHE),
+                "AI response cache is not configured");
+    }
+
+    public boolean isEnabledFor(String providerType) {
+        return enabled && excludedProviders.stream().noneMatch(providerType::equalsIgnoreCase);
+    }
+
+    public ResponseCacheKey keyFor(String providerType, AIProvider.GenerationRequest request) {
+        return new ResponseCacheKey(
+                providerType.toLowerCase(Locale.ROOT),
+                request.getInput(),
+                fingerprint(request.getContext())
+        );
+    }
+
+    public Optional<AIProvider.GenerationResponse> get(ResponseCacheKey key) {
+        return Optional.ofNullable(cache.get(key, AIProvider.GenerationResponse.class));
+    }
+
+    public void put(ResponseCacheKey key, AIProvider.GenerationResponse response) {
+
+        if (response == null || response.getResponse() == null || response.getResponse().isBlank()) {
+            return;
+        }
+        cache.put(key, response);
+    }
+
+    public void clear() {
+        cache.clear();
+        logger.info("AI response cache cleared");
+    }
+
+    public ResponseCacheStats getStats() {
+        CacheStats stats = cache.getNativeCache().stats();
+
+        return new ResponseCacheStats(
+                enabled,
+                cache.getNativeCache().estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                stats.hitRate()
+        );
+    }
+
+    private static String fingerprint(String context) {
+
+        if (context == null || context.isEmpty()) {
+            return "";
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(context.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    // Inner classes
+    public static final class ResponseCacheKey {
+        private final String provider;
+        private final String input;
+        private final String contextFingerprint;
+
+        ResponseCacheKey(String provider, String input, String contextFingerprint) {
+            this.provider = provider;
+            this.input = input;
+            this.contextFingerprint = contextFingerprint;
+        }
+
+        public String getProvider() { return provider; }
+        public String getInput() { return input; }
+        public String getContextFingerprint() { return contextFingerprint; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ResponseCacheKey other)) return false;
+            return provider.equals(other.provider) &&
+                    input.equals(other.input) &&
+                    contextFingerprint.equals(other.contextFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(provider, input, contextFingerprint);
+        }
+    }
+
+    public static class ResponseCacheStats {
+        private final boolean enabled;
+        private final long size;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final double hitRate;
+
+        public ResponseCacheStats(boolean enabled, long size, long hitCount, long missCount,
+                                  long evictionCount, double hitRate) {
+            this.enabled = enabled;
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.hitRate = hitRate;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public long getSize() { return size; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public double getHitRate() { return hitRate; }
+    }
+}
@@ -0,0 +1,219 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.MessageRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recent messages of active conversations, so building a prompt does not load a conversation's
+ * whole message list. Each conversation gets a ring buffer of its last {@code capacity}
+ * messages, loaded with one limited query on a miss and appended to as messages are saved;
+ * building a context then costs the same for a conversation of ten messages or a thousand.
+ *
+ * <p>The buffers hold detached copies carrying only what a prompt needs, never entities with
+ * their conversation graph. Entries are evicted after {@code idle-minutes} without use and,
+ * least recently used first, once their estimated size exceeds {@code max-bytes}.
+ */
+@Component
+public class ConversationContextCache {
+    // Object headers, the copy's fields and the ring slot; the content is counted separately
+    private static final int MESSAGE_OVERHEAD_BYTES = 96;
+    private static final int RING_OVERHEAD_BYTES = 64;
+
+    private final MessageRepository messageRepository;
+    private final int capacity;
+    private final Cache<UUID, RecentMessages> cache;
+
+    @Autowired
+    public ConversationContextCache(MessageRepository messageRepository,
+                                    @Value("${chatbot.conversation.context-window:100}") int capacity,
+                                    @Value("${chatbot.conversation.context-cache.idle-minutes:30}") long idleMinutes,
+                                    @Value("${chatbot.conversation.context-cache.max-bytes:67108864}") long maxBytes) {
+        this.messageRepository = messageRepository;
+        this.capacity = Math.max(1, capacity);
+        this.cache = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .maximumWeight(maxBytes)
+                .weigher((UUID conversationId, RecentMessages recent) -> recent.estimatedBytes())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The newest messages of a conversation, loading them on a miss. Concurrent misses for the
+     * same conversation share one load.
+     */
+    public RecentContext get(UUID conversationId) {
+        return cache.get(conversationId, this::load).snapshot();
+    }
+
+    /**
+     * Appends a saved message to its conversation's buffer, if the conversation is cached; an
+     * uncached one picks the message up with its next load.
+     */
+    public void onMessageSaved(Message message) {
+        UUID conversationId = message.getConversation().getId();
+        Message copy = detach(message);
+
+        // compute rather than a plain append so the entry is weighed again
+        cache.asMap().computeIfPresent(conversationId, (id, recent) -> recent.append(copy));
+    }
+
+    public void invalidate(UUID conversationId) {
+        cache.invalidate(conversationId);
+    }
+
+    public ContextCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        long weight = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+
+        return new ContextCacheStats(capacity, cache.estimatedSize(), weight, stats.hitCount(),
+                stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+
+    private RecentMessages load(UUID conversationId) {
+        List<Message> newestFirst = messageRepository.findLatestMessagesByConversationId(
+                conversationId, PageRequest.of(0, capacity));
+        long total = newestFirst.size() < capacity ?
+                newestFirst.size() : messageRepository.countByConversationId(conversationId);
+        List<Message> copies = newestFirst.stream().map(ConversationContextCache::detach).toList();
+
+        return new RecentMessages(capacity, copies, total);
+    }
+
+    private static Message detach(Message message) {
+        Message copy = new Message();
+        copy.setId(message.getId());
+        copy.setContent(message.getContent());
+        copy.setMessageType(message.getMessageType());
+        copy.setSenderType(message.getSenderType());
+        copy.setCreatedAt(message.getCreatedAt());
+        return copy;
+    }
+
+    // Inner classes
+    private static final class RecentMessages {
+        private final Message[] ring;
+        private int next;
+        private int size;
+        private long total;
+        private long contentChars;
+
+        RecentMessages(int capacity, List<Message> newestFirst, long total) {
+            this.ring = new Message[capacity];
+            this.total = total;
+
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                push(newestFirst.get(i));
+            }
+        }
+
+        synchronized RecentMessages append(Message message) {
+
+            // A message saved while its conversation was being loaded may already be in the ring
+            if (message.getId() != null && contains(message.getId())) {
+                return this;
+            }
+            push(message);
+            total++;
+            return this;
+        }
+
+        synchronized RecentContext snapshot() {
+            List<Message> newestFirst = new ArrayList<>(size);
+
+            for (int i = 1; i <= size; i++) {
+                newestFirst.add(ring[(next - i + ring.length) % ring.length]);
+            }
+            return new RecentContext(newestFirst, (int) total);
+        }
+
+        synchronized int estimatedBytes() {
+            long bytes = RING_OVERHEAD_BYTES + (long) ring.length * 8 + (long) size * MESSAGE_OVERHEAD_BYTES
+                    + contentChars * 2;
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+
+        private void push(Message message) {
+            Message evicted = ring[next];
+
+            if (evicted != null) {
+                contentChars -= evicted.getContent().length();
+            }
+            ring[next] = message;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+            contentChars += message.getContent().length();
+        }
+
+        private boolean contains(UUID id) {
+
+            for (int i = 1; i <= size; i++) {
+
+                if (id.equals(ring[(next - i + ring.length) % ring.length].getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static class RecentContext {
+        private final List<Message> newestFirst;
+        private final int totalMessages;
+
+        public RecentContext(List<Message> newestFirst, int totalMessages) {
+            this.newestFirst = newestFirst;
+            this.totalMessages = totalMessages;
+        }
+
+        /**
+         * Up to {@code capacity} most recent messages, newest first; detached copies.
+         */
+        public List<Message> getNewestFirst() { return newestFirst; }
+        public int getTotalMessages() { return totalMessages; }
+    }
+
+    public static class ContextCacheStats {
+        private final int capacity;
+        private final long conversations;
+        private final long estimatedBytes;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final double hitRate;
+
+        public ContextCacheStats(int capacity, long conversations, long estimatedBytes, long hitCount,
+                                 long missCount, long evictionCount, double hitRate) {
+            this.capacity = capacity;
+            this.conversations = conversations;
+            this.estimatedBytes = estimatedBytes;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.hitRate = hitRate;
+        }
+
+        public int getCapacity() { return capacity; }
+        public long getConversations() { return conversations; }
+        public long getEstimatedBytes() { return estimatedBytes; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public double getHitRate() { return hitRate; }
+    }
+}
@@ -0,0 +1,154 @@
+package com.pm.chatbotwithai.service.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent calls with the same key share one underlying call.
+ * Every caller, including the one that started the call, receives its own dependent copy of
+ * the shared future, so cancelling it never cancels the call the other callers are waiting on.
+ * The waiters are counted, though: once every one of them has cancelled, nobody wants the
+ * result any more and the underlying call is cancelled too.
+ */
+public class RequestCoalescer<K, V> {
+    private final ConcurrentHashMap<K, SharedCall<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        SharedCall<V> created = new SharedCall<>();
+
+        while (true) {
+            SharedCall<V> existing = inFlight.putIfAbsent(key, created);
+
+            if (existing == null) {
+                break;
+            }
+            CompletableFuture<V> copy = join(key, existing);
+
+            if (copy != null) {
+                coalescedCount.incrementAndGet();
+                return copy;
+            }
+            // Abandoned by all its waiters and on its way out; start a fresh call instead
+            inFlight.remove(key, existing);
+        }
+        executedCount.incrementAndGet();
+        CompletableFuture<V> copy = join(key, created);
+
+        try {
+            CompletableFuture<V> underlying = call.get();
+            created.start(underlying);
+
+            underlying.whenComplete((value, throwable) -> {
+                // Unregister first so callers arriving after completion start a fresh call
+                inFlight.remove(key, created);
+
+                if (throwable != null) {
+                    created.shared.completeExceptionally(throwable);
+                } else {
+                    created.shared.complete(value);
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, created);
+            created.shared.completeExceptionally(ex);
+        }
+        return copy;
+    }
+
+    private CompletableFuture<V> join(K key, SharedCall<V> sharedCall) {
+        CompletableFuture<V> copy = sharedCall.join();
+
+        if (copy != null) {
+            copy.whenComplete((value, throwable) -> {
+
+                if (copy.isCancelled() && sharedCall.leave()) {
+                    abandonedCount.incrementAndGet();
+                    inFlight.remove(key, sharedCall);
+                }
+            });
+        }
+        return copy;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public CoalescingStats getStats() {
+        return new CoalescingStats(executedCount.get(), coalescedCount.get(), abandonedCount.get(),
+                inFlight.size());
+    }
+
+    // Inner classes
+    private static final class SharedCall<V> {
+        private final CompletableFuture<V> shared = new CompletableFuture<>();
+        // Guarded by this
+        private CompletableFuture<V> underlying;
+        private int waiters;
+        private boolean abandoned;
+
+        // Returns null once every waiter has left, so the caller does not join a cancelled call
+        synchronized CompletableFuture<V> join() {
+
+            if (abandoned) {
+                return null;
+            }
+            waiters++;
+            return shared.copy();
+        }
+
+        // Returns true when the last waiter left and the call was cancelled
+        boolean leave() {
+            CompletableFuture<V> toCancel;
+
+            synchronized (this) {
+
+                if (--waiters > 0 || shared.isDone()) {
+                    return false;
+                }
+                abandoned = true;
+                toCancel = underlying;
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+            return true;
+        }
+
+        void start(CompletableFuture<V> call) {
+            boolean cancel;
+
+            synchronized (this) {
+                underlying = call;
+                cancel = abandoned;
+            }
+            if (cancel) {
+                call.cancel(true);
+            }
+        }
+    }
+
+    public static class CoalescingStats {
+        private final long executedCount;
+        private final long coalescedCount;
+        private final long abandonedCount;
+        private final int inFlightCount;
+
+        public CoalescingStats(long executedCount, long coalescedCount, long abandonedCount, int inFlightCount) {
+            this.executedCount = executedCount;
+            this.coalescedCount = coalescedCount;
+            this.abandonedCount = abandonedCount;
+            this.inFlightCount = inFlightCount;
+        }
+
+        public long getExecutedCount() { return executedCount; }
+        public long getCoalescedCount() { return coalescedCount; }
+        public long getAbandonedCount() { return abandonedCount; }
+        public int getInFlightCount() { return inFlightCount; }
+    }
+}
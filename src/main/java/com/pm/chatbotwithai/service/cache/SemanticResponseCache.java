@@ -0,0 +1,395 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.pm.chatbotwithai.service.ai.AIProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Near-duplicate prompt cache. Prompts are normalized (lower-cased, accent-folded, punctuation
+ * removed), reduced to a MinHash signature over character trigrams and indexed with LSH bands,
+ * so a lookup only compares against the few entries that share a band with the query. A stored
+ * answer is served when the estimated Jaccard similarity reaches the configured threshold.
+ *
+ * <p>Each provider and normalized prompt has at most one entry; storing it again replaces it. The
+ * index is bounded: expired entries are purged periodically and, once the entry limit is
+ * reached, entries are evicted oldest first, except that one served since it was last passed
+ * over gets a second chance at the back of the queue.
+ */
+@Component
+public class SemanticResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCache.class);
+    private static final int SHINGLE_SIZE = 3;
+    private static final int ROWS_PER_BAND = 4;
+
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final int bands;
+    private final long[] hashSeeds;
+    private final Set<String> excludedProviders;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<SemanticEntry>> buckets = new HashMap<>();
+    // Keyed by scope and normalized prompt, in insertion order
+    private final LinkedHashMap<String, SemanticEntry> entries = new LinkedHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Autowired
+    public SemanticResponseCache(
+            @Value("${chatbot.ai.semantic-cache.enabled:true}") boolean enabled,
+            @Value("${chatbot.ai.semantic-cache.similarity-threshold:0.85}") double similarityThreshold,
+            @Value("${chatbot.ai.semantic-cache.max-entries:5000}") int maxEntries,
+            @Value("${chatbot.ai.semantic-cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${chatbot.ai.semantic-cache.bands:16}") int bands,
+            @Value("${chatbot.ai.cache.excluded-providers:}") Set<String> excludedProviders) {
+        this.enabled = enabled;
+        this.excludedProviders = excludedProviders;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.bands = bands;
+        this.hashSeeds = new long[bands * ROWS_PER_BAND];
+
+        long seed = 0x9E3779B97F4A7C15L;
+
+        for (int i = 0; i < hashSeeds.length; i++) {
+            seed = mix(seed + i);
+            hashSeeds[i] = seed;
+        }
+    }
+
+    public boolean isEnabledFor(String providerType) {
+        return enabled && excludedProviders.stream().noneMatch(providerType::equalsIgnoreCase);
+    }
+
+    public Optional<AIProvider.GenerationResponse> findSimilar(String scope, String prompt) {
+
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long[] signature = signature(normalize(prompt));
+        long[] bandKeys = bandKeys(scope, signature);
+        long now = System.currentTimeMillis();
+
+        SemanticEntry best = null;
+        double bestSimilarity = 0.0;
+
+        lock.readLock().lock();
+        try {
+            for (long bandKey : bandKeys) {
+                List<SemanticEntry> bucket = buckets.get(bandKey);
+
+                if (bucket == null) {
+                    continue;
+                }
+                for (SemanticEntry entry : bucket) {
+
+                    if (entry == best || !entry.scope.equals(scope) || entry.isExpired(now, ttlMillis)) {
+                        continue;
+                    }
+                    double similarity = estimateSimilarity(signature, entry.signature);
+
+                    if (similarity > bestSimilarity) {
+                        best = entry;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (best == null || bestSimilarity < similarityThreshold) {
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+        best.referenced = true;
+        hitCount.incrementAndGet();
+        logger.debug("Semantic cache hit with estimated similarity {}", bestSimilarity);
+
+        return Optional.of(best.response);
+    }
+
+    public void put(String scope, String prompt, AIProvider.GenerationResponse response) {
+
+        if (!enabled || response == null || response.getResponse() == null || response.getResponse().isBlank()) {
+            return;
+        }
+        String normalized = normalize(prompt);
+        long[] signature = signature(normalized);
+        SemanticEntry entry = new SemanticEntry(scope + '\n' + normalized, scope, signature,
+                bandKeys(scope, signature), response, System.currentTimeMillis());
+
+        lock.writeLock().lock();
+        try {
+            SemanticEntry replaced = entries.get(entry.key);
+
+            if (replaced != null) {
+                removeEntry(replaced);
+            }
+            entries.put(entry.key, entry);
+
+            for (long bandKey : entry.bandKeys) {
+                buckets.computeIfAbsent(bandKey, k -> new ArrayList<>(2)).add(entry);
+            }
+            while (entries.size() > maxEntries) {
+                evictOne();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chatbot.ai.semantic-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            List<SemanticEntry> expired = entries.values().stream()
+                    .filter(entry -> entry.isExpired(now, ttlMillis))
+                    .toList();
+            expired.forEach(this::removeEntry);
+            evictionCount.addAndGet(expired.size());
+
+            if (!expired.isEmpty()) {
+                logger.debug("Purged {} expired semantic cache entries", expired.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SemanticCacheStats getStats() {
+        int size;
+
+        lock.readLock().lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        long hits = hitCount.get();
+        long misses = missCount.get();
+
+        return new SemanticCacheStats(enabled, size, hits, misses, evictionCount.get(),
+                hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+    }
+
+    /**
+     * Lower-cases, strips accents and collapses everything that is not a letter or digit into
+     * single spaces, so "Hola, ¿cómo estás?" and "hola como estas" normalize to the same text.
+     */
+    static String normalize(String text) {
+
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private long[] signature(String normalized) {
+        long[] signature = new long[hashSeeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        if (normalized.length() < SHINGLE_SIZE) {
+            applyShingle(signature, normalized.hashCode());
+            return signature;
+        }
+        for (int start = 0; start + SHINGLE_SIZE <= normalized.length(); start++) {
+            long shingle = 0;
+
+            for (int i = start; i < start + SHINGLE_SIZE; i++) {
+                shingle = shingle * 65_599 + normalized.charAt(i);
+            }
+            applyShingle(signature, shingle);
+        }
+        return signature;
+    }
+
+    private void applyShingle(long[] signature, long shingle) {
+
+        for (int i = 0; i < hashSeeds.length; i++) {
+            long value = mix(shingle ^ hashSeeds[i]);
+
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+
+    private long[] bandKeys(String scope, long[] signature) {
+        long[] keys = new long[bands];
+        long scopeHash = mix(scope.hashCode());
+
+        for (int band = 0; band < bands; band++) {
+            long key = mix(scopeHash + band);
+
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                key = mix(key ^ signature[band * ROWS_PER_BAND + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static double estimateSimilarity(long[] first, long[] second) {
+        int matches = 0;
+
+        for (int i = 0; i < first.length; i++) {
+
+            if (first[i] == second[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / first.length;
+    }
+
+    // Must be called with the write lock held. Every entry passed over loses its mark, so this
+    // stops within one round of the queue.
+    private void evictOne() {
+        Iterator<SemanticEntry> oldestFirst = entries.values().iterator();
+
+        while (true) {
+            SemanticEntry oldest = oldestFirst.next();
+
+            if (!oldest.referenced) {
+                removeEntry(oldest);
+                evictionCount.incrementAndGet();
+                return;
+            }
+            oldest.referenced = false;
+            oldestFirst.remove();
+            entries.put(oldest.key, oldest);
+            oldestFirst = entries.values().iterator();
+        }
+    }
+
+    private void removeEntry(SemanticEntry entry) {
+        entries.remove(entry.key);
+
+        for (long bandKey : entry.bandKeys) {
+            List<SemanticEntry> bucket = buckets.get(bandKey);
+
+            if (bucket != null) {
+                bucket.remove(entry);
+
+                if (bucket.isEmpty()) {
+                    buckets.remove(bandKey);
+                }
+            }
+        }
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Inner classes
+    private static final class SemanticEntry {
+        private final String key;
+        private final String scope;
+        private final long[] signature;
+        private final long[] bandKeys;
+        private final AIProvider.GenerationResponse response;
+        private final long createdAt;
+        // Set by a hit under the read lock, cleared by eviction under the write lock
+        private volatile boolean referenced;
+
+        SemanticEntry(String key, String scope, long[] signature, long[] bandKeys,
+                      AIProvider.GenerationResponse response, long createdAt) {
+            this.key = key;
+            this.scope = scope;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - createdAt > ttlMillis;
+        }
+    }
+
+    public static class SemanticCacheStats {
+        private final boolean enabled;
+        private final int size;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final double hitRate;
+
+        public SemanticCacheStats(boolean enabled, int size, long hitCount, long missCount,
+                                  long evictionCount, double hitRate) {
+            this.enabled = enabled;
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.hitRate = hitRate;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getSize() { return size; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public double getHitRate() { return hitRate; }
+    }
+}
@@ -0,0 +1,176 @@
+package com.pm.chatbotwithai.service.health;
+
+import com.pm.chatbotwithai.service.AIModelService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Probes the AI provider on a fixed schedule and keeps the result, so health endpoints never
+ * reach the provider themselves: however often a load balancer polls, the upstream sees one
+ * probe per interval. The latest snapshot and the liveness and readiness views derived from it
+ * are replaced as a whole after each probe and read without locking; a bounded history of
+ * recent snapshots is kept for diagnosis.
+ */
+@Component
+public class ProviderHealthProber {
+    private static final Logger logger = LoggerFactory.getLogger(ProviderHealthProber.class);
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final AIModelService aiModelService;
+    private final long probeIntervalMs;
+    private final int historySize;
+    private final int readinessFailureThreshold;
+
+    private volatile HealthSnapshot latest = new HealthSnapshot(false, null, UNKNOWN, 0, 0, 0);
+    private volatile ReadinessView readiness = new ReadinessView(false, UNKNOWN, 0, 0);
+
+    // Guarded by itself
+    private final ArrayDeque<HealthSnapshot> history = new ArrayDeque<>();
+
+    @Autowired
+    public ProviderHealthProber(AIModelService aiModelService,
+                                @Value("${chatbot.health.probe-interval-ms:10000}") long probeIntervalMs,
+                                @Value("${chatbot.health.history-size:30}") int historySize,
+                                @Value("${chatbot.health.readiness-failure-threshold:3}") int readinessFailureThreshold) {
+        this.aiModelService = aiModelService;
+        this.probeIntervalMs = probeIntervalMs;
+        this.historySize = Math.max(1, historySize);
+        this.readinessFailureThreshold = Math.max(1, readinessFailureThreshold);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${chatbot.health.probe-interval-ms:10000}")
+    public synchronized void probe() {
+        long start = System.nanoTime();
+        AIModelService.ModelHealthStatus status;
+
+        try {
+            status = aiModelService.probeHealth();
+        } catch (RuntimeException ex) {
+            logger.warn("Health probe failed", ex);
+            status = new AIModelService.ModelHealthStatus(false, null, "UNHEALTHY", System.currentTimeMillis());
+        }
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        int consecutiveFailures = status.isLoaded() ? 0 : latest.getConsecutiveFailures() + 1;
+        HealthSnapshot snapshot = new HealthSnapshot(status.isLoaded(), status.getVersion(), status.getStatus(),
+                status.getTimestamp(), durationMs, consecutiveFailures);
+
+        if (!snapshot.getStatus().equals(latest.getStatus())) {
+            logger.info("AI provider health changed from {} to {}", latest.getStatus(), snapshot.getStatus());
+        }
+        synchronized (history) {
+
+            if (history.size() == historySize) {
+                history.removeFirst();
+            }
+            history.addLast(snapshot);
+        }
+        latest = snapshot;
+        readiness = new ReadinessView(isReady(snapshot), snapshot.getStatus(), consecutiveFailures,
+                snapshot.getCheckedAt());
+    }
+
+    public HealthSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * The application is live as long as probes keep running; a prober that stopped reporting
+     * for several intervals points at a stuck scheduler, which only a restart fixes.
+     */
+    public LivenessView getLiveness() {
+        HealthSnapshot snapshot = latest;
+        long now = System.currentTimeMillis();
+        boolean started = snapshot.getCheckedAt() > 0;
+        boolean stalled = started && now - snapshot.getCheckedAt() > 3 * probeIntervalMs + 30_000;
+
+        return new LivenessView(!stalled, started ? now - snapshot.getCheckedAt() : -1);
+    }
+
+    public ReadinessView getReadiness() {
+        return readiness;
+    }
+
+    public List<HealthSnapshot> getHistory() {
+        synchronized (history) {
+            return List.copyOf(history);
+        }
+    }
+
+    // A provider that recovers within the threshold keeps the instance in rotation
+    private boolean isReady(HealthSnapshot snapshot) {
+
+        if ("HEALTHY".equals(snapshot.getStatus())) {
+            return true;
+        }
+        return "DEGRADED".equals(snapshot.getStatus()) && snapshot.getConsecutiveFailures() < readinessFailureThreshold;
+    }
+
+    // Inner classes
+    public static class HealthSnapshot {
+        private final boolean healthy;
+        private final String version;
+        private final String status;
+        private final long checkedAt;
+        private final long durationMs;
+        private final int consecutiveFailures;
+
+        public HealthSnapshot(boolean healthy, String version, String status, long checkedAt, long durationMs,
+                              int consecutiveFailures) {
+            this.healthy = healthy;
+            this.version = version;
+            this.status = status;
+            this.checkedAt = checkedAt;
+            this.durationMs = durationMs;
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public boolean isHealthy() { return healthy; }
+        public String getVersion() { return version; }
+        public String getStatus() { return status; }
+        public long getCheckedAt() { return checkedAt; }
+        public long getDurationMs() { return durationMs; }
+        public int getConsecutiveFailures() { return consecutiveFailures; }
+    }
+
+    public static class LivenessView {
+        private final boolean live;
+        private final long lastProbeAgeMs;
+
+        public LivenessView(boolean live, long lastProbeAgeMs) {
+            this.live = live;
+            this.lastProbeAgeMs = lastProbeAgeMs;
+        }
+
+        public boolean isLive() { return live; }
+        public String getStatus() { return live ? "UP" : "DOWN"; }
+        public long getLastProbeAgeMs() { return lastProbeAgeMs; }
+    }
+
+    public static class ReadinessView {
+        private final boolean ready;
+        private final String aiModelStatus;
+        private final int consecutiveFailures;
+        private final long checkedAt;
+
+        public ReadinessView(boolean ready, String aiModelStatus, int consecutiveFailures, long checkedAt) {
+            this.ready = ready;
+            this.aiModelStatus = aiModelStatus;
+            this.consecutiveFailures = consecutiveFailures;
+            this.checkedAt = checkedAt;
+        }
+
+        public boolean isReady() { return ready; }
+        public String getStatus() { return ready ? "UP" : "OUT_OF_SERVICE"; }
+        public String getAiModelStatus() { return aiModelStatus; }
+        public int getConsecutiveFailures() { return consecutiveFailures; }
+        public long getCheckedAt() { return checkedAt; }
+    }
+}
@@ -0,0 +1,399 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Multi-pattern matcher over folded text: case and diacritics are removed and whitespace runs
+ * count as a single space, so {@code "Discriminación"} matches the term {@code discriminacion}.
+ * Scanning finds terms anywhere in the text, inflected forms included ("hacker" contains
+ * {@code hack}); a {@linkplain #wordCursor() word cursor} only matches whole words, with no letter
+ * on either side, so that redacting {@code odio} leaves "episodio" alone.
+ * Failure links are resolved into a full transition table when the automaton is built, so
+ * scanning costs one table lookup per character however many terms there are.
+ *
+ * <p>Instances are immutable and safe to share. Scanning state lives in a {@link Cursor}, which
+ * can be fed text piece by piece.
+ */
+public final class AhoCorasickAutomaton {
+    private static final int ROOT = 0;
+    private static final int OTHER = 0;
+    private static final int FOLD_TABLE_SIZE = 0x250;
+    private static final char[] FOLD_TABLE = buildFoldTable();
+
+    private final String[] terms;
+    private final String[] categories;
+    private final int maxTermLength;
+
+    // Symbol lookup: a direct table for Latin characters, binary search for the rest
+    private final int[] latinSymbols = new int[FOLD_TABLE_SIZE];
+    private final char[] otherChars;
+    private final int[] otherSymbols;
+    private final int symbolCount;
+
+    // transitions[state * symbolCount + symbol]; output[state] is the longest term ending there, or -1
+    private final int[] transitions;
+    private final int[] output;
+    // Longest term that is a proper suffix of each term, or -1; walks the other terms ending at a state
+    private final int[] shorterSuffix;
+    // Length of the term prefix each state stands for
+    private final int[] depth;
+
+    private AhoCorasickAutomaton(Map<String, String> categoryByTerm) {
+        this.terms = categoryByTerm.keySet().toArray(String[]::new);
+        this.categories = categoryByTerm.values().toArray(String[]::new);
+        this.maxTermLength = Arrays.stream(terms).mapToInt(String::length).max().orElse(1);
+
+        TreeSet<Character> alphabet = new TreeSet<>();
+
+        for (String term : terms) {
+
+            for (int i = 0; i < term.length(); i++) {
+                alphabet.add(term.charAt(i));
+            }
+        }
+        List<Character> others = new ArrayList<>();
+        int nextSymbol = 1;
+
+        for (char c : alphabet) {
+
+            if (c < FOLD_TABLE_SIZE) {
+                latinSymbols[c] = nextSymbol++;
+            } else {
+                others.add(c);
+            }
+        }
+        this.otherChars = new char[others.size()];
+        this.otherSymbols = new int[others.size()];
+
+        for (int i = 0; i < others.size(); i++) {
+            otherChars[i] = others.get(i);
+            otherSymbols[i] = nextSymbol++;
+        }
+        this.symbolCount = nextSymbol;
+
+        // Trie first, one row of children per state
+        List<int[]> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        children.add(new int[symbolCount]);
+        terminal.add(-1);
+        depths.add(0);
+
+        for (int t = 0; t < terms.length; t++) {
+            int state = ROOT;
+
+            for (int i = 0; i < terms[t].length(); i++) {
+                int symbol = symbolOf(terms[t].charAt(i));
+
+                if (children.get(state)[symbol] == 0) {
+                    children.get(state)[symbol] = children.size();
+                    children.add(new int[symbolCount]);
+                    terminal.add(-1);
+                    depths.add(i + 1);
+                }
+                state = children.get(state)[symbol];
+            }
+            terminal.set(state, t);
+        }
+
+        // Then failure links, breadth first, folded into the transition table
+        int states = children.size();
+        this.transitions = new int[states * symbolCount];
+        this.output = new int[states];
+        this.depth = depths.stream().mapToInt(Integer::intValue).toArray();
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        output[ROOT] = -1;
+
+        for (int symbol = 1; symbol < symbolCount; symbol++) {
+            int child = children.get(ROOT)[symbol];
+            transitions[symbol] = child;
+
+            if (child != 0) {
+                failure[child] = ROOT;
+                output[child] = terminal.get(child);
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+
+            for (int symbol = 1; symbol < symbolCount; symbol++) {
+                int child = children.get(state)[symbol];
+                int fallback = transitions[failure[state] * symbolCount + symbol];
+
+                if (child == 0) {
+                    transitions[state * symbolCount + symbol] = fallback;
+                    continue;
+                }
+                transitions[state * symbolCount + symbol] = child;
+                failure[child] = fallback;
+                output[child] = terminal.get(child) >= 0 ? terminal.get(child) : output[fallback];
+                queue.add(child);
+            }
+        }
+        this.shorterSuffix = new int[terms.length];
+
+        for (int state = 1; state < states; state++) {
+
+            if (terminal.get(state) >= 0) {
+                shorterSuffix[terminal.get(state)] = output[failure[state]];
+            }
+        }
+    }
+
+    /**
+     * Builds an automaton for the given terms; terms are folded first, and when two fold to the
+     * same text the later category wins.
+     */
+    public static AhoCorasickAutomaton build(Map<String, String> categoryByTerm) {
+        Map<String, String> folded = new LinkedHashMap<>();
+
+        categoryByTerm.forEach((term, category) -> {
+            String key = fold(term);
+
+            if (!key.isEmpty()) {
+                folded.put(key, category);
+            }
+        });
+        return new AhoCorasickAutomaton(folded);
+    }
+
+    /**
+     * Folds text the way it is scanned: lower case, without diacritics, trimmed and with each
+     * whitespace run turned into a single space.
+     */
+    public static String fold(CharSequence text) {
+        StringBuilder folded = new StringBuilder(text.length());
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = foldChar(text.charAt(i));
+
+            if (c != ' ' || (!folded.isEmpty() && folded.charAt(folded.length() - 1) != ' ')) {
+                folded.append(c);
+            }
+        }
+        int end = folded.length();
+
+        while (end > 0 && folded.charAt(end - 1) == ' ') {
+            end--;
+        }
+        folded.setLength(end);
+        return folded.toString();
+    }
+
+    /**
+     * First term found anywhere in the text, even inside a longer word.
+     */
+    public Optional<Match> findFirst(CharSequence text) {
+        return findFirst(text, cursor());
+    }
+
+    /**
+     * First term found as a whole word.
+     */
+    public Optional<Match> findFirstWord(CharSequence text) {
+        return findFirst(text, wordCursor());
+    }
+
+    private static Optional<Match> findFirst(CharSequence text, Cursor cursor) {
+
+        for (int i = 0; i < text.length(); i++) {
+            Match match = cursor.feed(text.charAt(i));
+
+            if (match != null) {
+                return Optional.of(match);
+            }
+        }
+        return Optional.ofNullable(cursor.finish());
+    }
+
+    /**
+     * Cursor that reports a term as soon as its last character is fed, wherever it starts.
+     */
+    public Cursor cursor() {
+        return new Cursor(false);
+    }
+
+    /**
+     * Cursor that only reports terms standing as whole words, one character late.
+     */
+    public Cursor wordCursor() {
+        return new Cursor(true);
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public int getStateCount() {
+        return output.length;
+    }
+
+    private int symbolOf(char folded) {
+
+        if (folded < FOLD_TABLE_SIZE) {
+            return latinSymbols[folded];
+        }
+        int index = Arrays.binarySearch(otherChars, folded);
+        return index >= 0 ? otherSymbols[index] : OTHER;
+    }
+
+    static char foldChar(char c) {
+
+        if (c < FOLD_TABLE_SIZE) {
+            return FOLD_TABLE[c];
+        }
+        return Character.isWhitespace(c) || Character.isSpaceChar(c) ? ' ' : Character.toLowerCase(c);
+    }
+
+    private static char[] buildFoldTable() {
+        char[] table = new char[FOLD_TABLE_SIZE];
+
+        for (char c = 0; c < FOLD_TABLE_SIZE; c++) {
+
+            if (c <= ' ' || Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                table[c] = ' ';
+                continue;
+            }
+            // The first character of the canonical decomposition is the base letter
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            table[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        return table;
+    }
+
+    // Inner classes
+
+    /**
+     * Scanning state for one text, which may arrive in pieces. Not thread-safe.
+     */
+    public final class Cursor {
+        // Input positions and letter flags of the last folded characters, more than maxTermLength
+        // of them, to locate matches and check the character before one
+        private final long[] positions = new long[Integer.highestOneBit(maxTermLength) << 1];
+        private final boolean[] letters = new boolean[positions.length];
+        private final int mask = positions.length - 1;
+        private final boolean wholeWords;
+        private int state = ROOT;
+        private boolean afterSpace = true;
+        private long position;
+        private int foldedCount;
+        // Whole-word match on its left that ended with the last character; the next one decides
+        private Match candidate;
+
+        private Cursor(boolean wholeWords) {
+            this.wholeWords = wholeWords;
+        }
+
+        /**
+         * Feeds the next character and returns the longest term that ends with it. A word cursor
+         * returns instead the term that ended just before it, if this character ends the word;
+         * a term ending the text is then only returned by {@link #finish()}.
+         */
+        public Match feed(char c) {
+            long index = position++;
+            char folded = foldChar(c);
+
+            if (folded == ' ') {
+
+                if (afterSpace) {
+                    return null;
+                }
+                afterSpace = true;
+            } else {
+                afterSpace = false;
+            }
+            boolean letter = Character.isLetter(folded);
+            Match confirmed = candidate != null && !letter ? candidate : null;
+            candidate = null;
+
+            letters[foldedCount & mask] = letter;
+            positions[foldedCount++ & mask] = index;
+            state = transitions[state * symbolCount + symbolOf(folded)];
+
+            if (!wholeWords) {
+                int term = output[state];
+                return term < 0 ? null : matchEndingAt(term, index);
+            }
+            // Longest first; a shorter term ending here may still start at a word boundary
+            for (int term = output[state]; term >= 0; term = shorterSuffix[term]) {
+                int before = foldedCount - terms[term].length() - 1;
+
+                if (before < 0 || !letters[before & mask]) {
+                    candidate = matchEndingAt(term, index);
+                    break;
+                }
+            }
+            return confirmed;
+        }
+
+        private Match matchEndingAt(int term, long index) {
+            long start = positions[(foldedCount - terms[term].length()) & mask];
+            return new Match(terms[term], categories[term], start, index + 1);
+        }
+
+        /**
+         * Ends the text: returns the whole word term that ends with the last character fed, if
+         * any. A substring cursor has already reported it.
+         */
+        public Match finish() {
+            Match last = candidate;
+            candidate = null;
+            return last;
+        }
+
+        /**
+         * Number of characters fed so far.
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Input position where the longest partial match in progress starts, or the current
+         * position when there is none. Text before it can no longer become part of a match.
+         */
+        public long getPendingStart() {
+            int pending = depth[state];
+            long start = pending == 0 ? position : positions[(foldedCount - pending) & mask];
+            return candidate != null ? Math.min(candidate.getStart(), start) : start;
+        }
+
+        public void reset() {
+            candidate = null;
+            state = ROOT;
+            afterSpace = true;
+            position = 0;
+            foldedCount = 0;
+        }
+    }
+
+    public static final class Match {
+        private final String term;
+        private final String category;
+        private final long start;
+        private final long end;
+
+        public Match(String term, String category, long start, long end) {
+            this.term = term;
+            this.category = category;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTerm() { return term; }
+        public String getCategory() { return category; }
+        public long getStart() { return start; }
+        public long getEnd() { return end; }
+    }
+}
@@ -0,0 +1,297 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import com.pm.chatbotwithai.exception.ContentModerationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks user text against per-locale lexicons ({@code <lexicon-location><locale>.txt}). Each
+ * lexicon is compiled into an {@link AhoCorasickAutomaton}, plus one automaton over all of them
+ * for requests without a known locale. The compiled set is swapped in as a whole, so a check
+ * sees either the old lexicons or the new ones; a reload that fails keeps the old set.
+ *
+ * <p>Lexicons are read from {@code file:moderation/} by default, so edits there are reloaded; a
+ * locale with no file there uses the copy bundled in the jar, which cannot change until a restart.
+ */
+@Service
+public class ContentModerationService {
+    private static final Logger logger = LoggerFactory.getLogger(ContentModerationService.class);
+    private static final String BUNDLED_LEXICON_LOCATION = "classpath:moderation/";
+
+    private final ResourceLoader resourceLoader;
+    private final boolean enabled;
+    private final String lexiconLocation;
+    private final List<String> locales;
+    private final OutputModerationMode outputMode;
+    private final String cutoffNotice;
+
+    private volatile CompiledLexicons lexicons;
+
+    private final AtomicLong checkedCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong reloadFailures = new AtomicLong();
+    private final AtomicLong outputRedactions = new AtomicLong();
+    private final AtomicLong outputCutoffs = new AtomicLong();
+
+    @Autowired
+    public ContentModerationService(ResourceLoader resourceLoader,
+                                    @Value("${chatbot.moderation.enabled:true}") boolean enabled,
+                                    @Value("${chatbot.moderation.lexicon-location:file:moderation/}") String lexiconLocation,
+                                    @Value("${chatbot.moderation.locales:es,en}") List<String> locales,
+                                    @Value("${chatbot.moderation.output.mode:redact}") String outputMode,
+                                    @Value("${chatbot.moderation.output.cutoff-notice:[Respuesta interrumpida por moderación de contenido]}")
+                                    String cutoffNotice) {
+        this.resourceLoader = resourceLoader;
+        this.enabled = enabled;
+        this.lexiconLocation = lexiconLocation.endsWith("/") ? lexiconLocation : lexiconLocation + "/";
+        this.locales = locales.stream().map(ContentModerationService::normalizeLocale).toList();
+        this.outputMode = OutputModerationMode.fromValue(outputMode);
+        this.cutoffNotice = cutoffNotice;
+    }
+
+    // A missing or broken lexicon at startup is a deployment error, not something to run without
+    @PostConstruct
+    public void initialize() {
+        lexicons = compile();
+        logger.info("Content moderation loaded {} terms for locales {}", lexicons.combined.getTermCount(), locales);
+    }
+
+    /**
+     * @throws ContentModerationException with the category of the first term found
+     */
+    public void moderate(String text, String locale) {
+        Optional<AhoCorasickAutomaton.Match> violation = findViolation(text, locale);
+
+        if (violation.isPresent()) {
+            blockedCount.incrementAndGet();
+            logger.debug("Content moderation matched '{}' ({})", violation.get().getTerm(), violation.get().getCategory());
+            throw new ContentModerationException(violation.get().getCategory());
+        }
+    }
+
+    /**
+     * A filter for one streamed response, using the lexicons current at the time of the call.
+     * Returns null when output moderation is off.
+     */
+    public StreamingModerationFilter outputFilter(String locale) {
+
+        if (!enabled || outputMode == OutputModerationMode.OFF) {
+            return null;
+        }
+        return new StreamingModerationFilter(automatonFor(locale), outputMode, cutoffNotice, this);
+    }
+
+    /**
+     * Moderates a complete response, the same way a stream of it would be.
+     */
+    public String moderateOutput(String text, String locale) {
+        StreamingModerationFilter filter = outputFilter(locale);
+
+        if (filter == null || text == null) {
+            return text;
+        }
+        // A term ending the text is only found by finish, so it runs before the check
+        String moderated = filter.accept(text) + filter.finish();
+        return filter.getMatchedCategory() == null ? text : moderated;
+    }
+
+    public Optional<AhoCorasickAutomaton.Match> findViolation(CharSequence text, String locale) {
+
+        if (!enabled || text == null) {
+            return Optional.empty();
+        }
+        checkedCount.incrementAndGet();
+        return automatonFor(locale).findFirst(text);
+    }
+
+    /**
+     * The automaton for a locale such as {@code es} or {@code es-MX}, falling back to the
+     * language and then to all lexicons together.
+     */
+    public AhoCorasickAutomaton automatonFor(String locale) {
+        CompiledLexicons current = lexicons;
+
+        if (locale == null || locale.isBlank()) {
+            return current.combined;
+        }
+        String normalized = normalizeLocale(locale);
+        AhoCorasickAutomaton automaton = current.byLocale.get(normalized);
+
+        if (automaton == null && normalized.indexOf('-') > 0) {
+            automaton = current.byLocale.get(normalized.substring(0, normalized.indexOf('-')));
+        }
+        return automaton != null ? automaton : current.combined;
+    }
+
+    /**
+     * Recompiles every lexicon and swaps the result in. Returns false, keeping the current
+     * lexicons, if any of them cannot be read.
+     */
+    public synchronized boolean reload() {
+
+        try {
+            CompiledLexicons reloaded = compile();
+            lexicons = reloaded;
+            reloadCount.incrementAndGet();
+            logger.info("Content moderation reloaded: {} terms for locales {}",
+                    reloaded.combined.getTermCount(), locales);
+            return true;
+        } catch (RuntimeException ex) {
+            reloadFailures.incrementAndGet();
+            logger.warn("Content moderation reload failed; keeping the current lexicons", ex);
+            return false;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${chatbot.moderation.reload-interval-ms:30000}",
+            fixedDelayString = "${chatbot.moderation.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+
+        if (!lastModified().equals(lexicons.lastModified)) {
+            reload();
+        }
+    }
+
+    public ModerationStats getStats() {
+        CompiledLexicons current = lexicons;
+        Map<String, Integer> termsByLocale = new LinkedHashMap<>();
+        current.byLocale.forEach((locale, automaton) -> termsByLocale.put(locale, automaton.getTermCount()));
+
+        return new ModerationStats(enabled, termsByLocale, current.combined.getStateCount(), current.loadedAt,
+                checkedCount.get(), blockedCount.get(), reloadCount.get(), reloadFailures.get(), outputMode,
+                outputRedactions.get(), outputCutoffs.get());
+    }
+
+    void recordOutputMatch(AhoCorasickAutomaton.Match match, OutputModerationMode mode) {
+        (mode == OutputModerationMode.CUTOFF ? outputCutoffs : outputRedactions).incrementAndGet();
+        logger.debug("Output moderation matched '{}' ({}), {}", match.getTerm(), match.getCategory(), mode);
+    }
+
+    private CompiledLexicons compile() {
+        Map<String, AhoCorasickAutomaton> byLocale = new LinkedHashMap<>();
+        Map<String, String> allTerms = new LinkedHashMap<>();
+        Map<String, Long> lastModified = lastModified();
+
+        for (String locale : locales) {
+            ModerationLexicon lexicon = readLexicon(locale);
+            byLocale.put(locale, AhoCorasickAutomaton.build(lexicon.getCategoryByTerm()));
+            allTerms.putAll(lexicon.getCategoryByTerm());
+        }
+        return new CompiledLexicons(Collections.unmodifiableMap(byLocale), AhoCorasickAutomaton.build(allTerms),
+                lastModified);
+    }
+
+    private ModerationLexicon readLexicon(String locale) {
+        Resource resource = lexiconResource(locale);
+
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return ModerationLexicon.parse(resource.getDescription(), reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read moderation lexicon " + resource.getDescription(), ex);
+        }
+    }
+
+    private Map<String, Long> lastModified() {
+        Map<String, Long> lastModified = new HashMap<>();
+
+        for (String locale : locales) {
+
+            try {
+                lastModified.put(locale, lexiconResource(locale).lastModified());
+            } catch (IOException ex) {
+                lastModified.put(locale, -1L);
+            }
+        }
+        return lastModified;
+    }
+
+    private Resource lexiconResource(String locale) {
+        Resource resource = resourceLoader.getResource(lexiconLocation + locale + ".txt");
+        return resource.exists() ? resource : resourceLoader.getResource(BUNDLED_LEXICON_LOCATION + locale + ".txt");
+    }
+
+    private static String normalizeLocale(String locale) {
+        return locale.strip().replace('_', '-').toLowerCase(Locale.ROOT);
+    }
+
+    // Inner classes
+    private static final class CompiledLexicons {
+        private final Map<String, AhoCorasickAutomaton> byLocale;
+        private final AhoCorasickAutomaton combined;
+        private final Map<String, Long> lastModified;
+        private final long loadedAt = System.currentTimeMillis();
+
+        CompiledLexicons(Map<String, AhoCorasickAutomaton> byLocale, AhoCorasickAutomaton combined,
+                         Map<String, Long> lastModified) {
+            this.byLocale = byLocale;
+            this.combined = combined;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public static class ModerationStats {
+        private final boolean enabled;
+        private final Map<String, Integer> termsByLocale;
+        private final int automatonStates;
+        private final long loadedAt;
+        private final long checkedCount;
+        private final long blockedCount;
+        private final long reloadCount;
+        private final long reloadFailures;
+        private final OutputModerationMode outputMode;
+        private final long outputRedactions;
+        private final long outputCutoffs;
+
+        public ModerationStats(boolean enabled, Map<String, Integer> termsByLocale, int automatonStates,
+                               long loadedAt, long checkedCount, long blockedCount, long reloadCount,
+                               long reloadFailures, OutputModerationMode outputMode, long outputRedactions,
+                               long outputCutoffs) {
+            this.enabled = enabled;
+            this.termsByLocale = termsByLocale;
+            this.automatonStates = automatonStates;
+            this.loadedAt = loadedAt;
+            this.checkedCount = checkedCount;
+            this.blockedCount = blockedCount;
+            this.reloadCount = reloadCount;
+            this.reloadFailures = reloadFailures;
+            this.outputMode = outputMode;
+            this.outputRedactions = outputRedactions;
+            this.outputCutoffs = outputCutoffs;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public Map<String, Integer> getTermsByLocale() { return termsByLocale; }
+        public int getAutomatonStates() { return automatonStates; }
+        public long getLoadedAt() { return loadedAt; }
+        public long getCheckedCount() { return checkedCount; }
+        public long getBlockedCount() { return blockedCount; }
+        public long getReloadCount() { return reloadCount; }
+        public long getReloadFailures() { return reloadFailures; }
+        public OutputModerationMode getOutputMode() { return outputMode; }
+        public long getOutputRedactions() { return outputRedactions; }
+        public long getOutputCutoffs() { return outputCutoffs; }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Terms to moderate for one locale, read from a plain-text file: {@code [category]} lines open a
+ * section, every other non-blank line is a term in the current section and {@code #} starts a
+ * comment. Terms may be written with or without accents; matching ignores them.
+ */
+public final class ModerationLexicon {
+    private final String source;
+    private final Map<String, String> categoryByTerm;
+
+    private ModerationLexicon(String source, Map<String, String> categoryByTerm) {
+        this.source = source;
+        this.categoryByTerm = Collections.unmodifiableMap(categoryByTerm);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a term appears before any category
+     */
+    public static ModerationLexicon parse(String source, Reader reader) throws IOException {
+        Map<String, String> categoryByTerm = new LinkedHashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String category = null;
+        String line;
+        int lineNumber = 0;
+
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String entry = (comment >= 0 ? line.substring(0, comment) : line).strip();
+
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (entry.startsWith("[") && entry.endsWith("]")) {
+                category = entry.substring(1, entry.length() - 1).strip().toUpperCase(Locale.ROOT);
+                continue;
+            }
+            if (category == null || category.isEmpty()) {
+                throw new IllegalArgumentException(
+                        String.format("%s:%d: term '%s' has no [category] above it", source, lineNumber, entry));
+            }
+            categoryByTerm.put(entry, category);
+        }
+        return new ModerationLexicon(source, categoryByTerm);
+    }
+
+    public String getSource() { return source; }
+    public Map<String, String> getCategoryByTerm() { return categoryByTerm; }
+}
@@ -0,0 +1,27 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import java.util.Locale;
+
+/**
+ * What happens to model output that contains a moderated term.
+ */
+public enum OutputModerationMode {
+    /** Output is not checked. */
+    OFF,
+    /** The term is masked and the response carries on. */
+    REDACT,
+    /** The response ends before the term, followed by a notice. */
+    CUTOFF;
+
+    /**
+     * Case-insensitive lookup for configuration values; unknown values fail fast.
+     */
+    public static OutputModerationMode fromValue(String value) {
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new IllegalArgumentException("Unknown output moderation mode: " + value, ex);
+        }
+    }
+}
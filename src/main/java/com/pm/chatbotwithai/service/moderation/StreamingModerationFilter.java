@@ -0,0 +1,113 @@
+package com.pm.chatbotwithai.service.moderation;
+
+/**
+ * Moderates model output as it streams. Chunks go through one {@link AhoCorasickAutomaton.Cursor}
+ * for the whole response, so a term split across chunks is still found. Only the text that could
+ * still turn out to be a term is held back, which is at most a term's length plus the character
+ * that shows the word ends; the rest is released with the chunk it arrived in.
+ *
+ * <p>One instance per response; not thread-safe, which suits a stream's sequential signals.
+ */
+public final class StreamingModerationFilter {
+    private static final char MASK = '*';
+
+    private final AhoCorasickAutomaton.Cursor cursor;
+    private final OutputModerationMode mode;
+    private final String cutoffNotice;
+    private final ContentModerationService moderationService;
+
+    // Text received but not yet released; its first character is at input position releasedUpTo
+    private final StringBuilder pending = new StringBuilder();
+    private long releasedUpTo;
+    private boolean cutOff;
+    private String matchedCategory;
+
+    StreamingModerationFilter(AhoCorasickAutomaton automaton, OutputModerationMode mode, String cutoffNotice,
+                              ContentModerationService moderationService) {
+        this.cursor = automaton.wordCursor();
+        this.mode = mode;
+        this.cutoffNotice = cutoffNotice;
+        this.moderationService = moderationService;
+    }
+
+    /**
+     * Scans the next chunk and returns the text that can be released now, possibly empty. After
+     * a cutoff, everything from the offending term on is dropped and later chunks are ignored.
+     */
+    public String accept(CharSequence chunk) {
+
+        if (cutOff || chunk == null || chunk.isEmpty()) {
+            return "";
+        }
+        pending.append(chunk);
+
+        for (int i = 0; i < chunk.length(); i++) {
+            AhoCorasickAutomaton.Match match = cursor.feed(chunk.charAt(i));
+
+            if (match != null && apply(match)) {
+                return release(pending.length());
+            }
+        }
+        return release((int) (cursor.getPendingStart() - releasedUpTo));
+    }
+
+    /**
+     * Ends the response: returns the text still held back, or the cutoff notice if the stream
+     * was cut off.
+     */
+    public String finish() {
+
+        if (cutOff) {
+            return cutoffNotice;
+        }
+        AhoCorasickAutomaton.Match match = cursor.finish();
+
+        if (match != null && apply(match)) {
+            return release(pending.length()) + cutoffNotice;
+        }
+        return release(pending.length());
+    }
+
+    public boolean isCutOff() {
+        return cutOff;
+    }
+
+    /**
+     * Category of the last term found, or null if the output was clean so far.
+     */
+    public String getMatchedCategory() {
+        return matchedCategory;
+    }
+
+    // Masks the term, or drops it and everything after it; returns whether the stream was cut off
+    private boolean apply(AhoCorasickAutomaton.Match match) {
+        matchedCategory = match.getCategory();
+        int start = (int) (match.getStart() - releasedUpTo);
+        int end = (int) (match.getEnd() - releasedUpTo);
+        moderationService.recordOutputMatch(match, mode);
+
+        if (mode == OutputModerationMode.CUTOFF) {
+            cutOff = true;
+            pending.setLength(start);
+            return true;
+        }
+        for (int j = start; j < end; j++) {
+
+            if (!Character.isWhitespace(pending.charAt(j))) {
+                pending.setCharAt(j, MASK);
+            }
+        }
+        return false;
+    }
+
+    private String release(int length) {
+
+        if (length <= 0) {
+            return "";
+        }
+        String released = pending.substring(0, length);
+        pending.delete(0, length);
+        releasedUpTo += length;
+        return released;
+    }
+}
@@ -0,0 +1,123 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that follows the upstream's capacity using the latency gradient. A slow
+ * moving average of the round-trip time stands in for the no-load latency and a fast one for
+ * the current latency; their ratio shrinks below one as requests start queueing upstream, which
+ * scales the limit down, while a stable ratio lets the limit grow by a small headroom of
+ * {@code sqrt(limit)}. Failed calls cut the limit multiplicatively.
+ *
+ * <p>Calls over the limit are rejected rather than queued; the caller decides whether to fall
+ * back or fail fast.
+ */
+public class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+    private static final double LONG_RTT_ALPHA = 0.01;
+    private static final double SHORT_RTT_ALPHA = 0.2;
+    private static final double SMOOTHING = 0.2;
+    private static final double FAILURE_BACKOFF = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // Guarded by this; limit is also read lock-free on the acquire path
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+    private double shortRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+
+        while (true) {
+            int current = inFlight.get();
+
+            if (current >= limit) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(long rttNanos, boolean success) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        update(rttNanos, success, inFlightAtCompletion);
+    }
+
+    @Override
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public ConcurrencyLimiterStats getStats() {
+        return new ConcurrencyLimiterStats(name, "adaptive", limit, inFlight.get(), rejectedCount.get());
+    }
+
+    private synchronized void update(long rttNanos, boolean success, int inFlightAtCompletion) {
+
+        if (!success) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * FAILURE_BACKOFF);
+            publish();
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            shortRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos = SHORT_RTT_ALPHA * rttNanos + (1 - SHORT_RTT_ALPHA) * shortRttNanos;
+        longRttNanos = LONG_RTT_ALPHA * rttNanos + (1 - LONG_RTT_ALPHA) * longRttNanos;
+
+        // Once recent latency drops well below the baseline, decay the baseline toward it so it
+        // is not left inflated by an old slow period, which would hide the next slowdown
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // Leave the limit alone, up or down, while it is not being exercised
+        if (inFlightAtCompletion < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longRttNanos / shortRttNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = (1 - SMOOTHING) * estimatedLimit + SMOOTHING * target;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        publish();
+    }
+
+    private void publish() {
+        int newLimit = (int) estimatedLimit;
+
+        if (newLimit != limit) {
+            logger.debug("Concurrency limit '{}' changed from {} to {}", name, limit, newLimit);
+            limit = newLimit;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of concurrent calls into a dependency. Calls beyond the cap are rejected
+ * immediately instead of queueing, so a slow dependency cannot tie up every worker thread.
+ */
+public class Bulkhead implements ConcurrencyLimiter {
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrentCalls) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public void onComplete(long rttNanos, boolean success) {
+        release();
+    }
+
+    @Override
+    public void release() {
+        permits.release();
+    }
+
+    @Override
+    public int getLimit() {
+        return maxConcurrentCalls;
+    }
+
+    @Override
+    public ConcurrencyLimiterStats getStats() {
+        return new ConcurrencyLimiterStats(name, "fixed", maxConcurrentCalls,
+                maxConcurrentCalls - permits.availablePermits(), rejectedCount.get());
+    }
+}
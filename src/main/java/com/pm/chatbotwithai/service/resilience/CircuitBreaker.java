@@ -0,0 +1,201 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker. The outcome of the last {@code windowSize} calls is kept in a
+ * ring buffer; once at least {@code minimumCalls} are recorded and either the failure rate or
+ * the slow-call rate reaches its threshold, the breaker opens and rejects calls for
+ * {@code openDuration}. It then lets a few trial calls through (half-open) and closes again
+ * only if they all succeed quickly.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // Outcome flags per slot; guarded by this
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int recordedCalls;
+    private int nextSlot;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long rejectedCount;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                          int halfOpenCalls) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * Returns whether a call may proceed. Every permitted call must be followed by exactly one
+     * {@link #onResult} so half-open trial slots are handed back.
+     */
+    public synchronized boolean tryAcquirePermission() {
+
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> {
+
+                if (halfOpenPermits < halfOpenCalls) {
+                    halfOpenPermits++;
+                    yield true;
+                }
+                rejectedCount++;
+                yield false;
+            }
+            case OPEN -> {
+                rejectedCount++;
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Hands back the permission of a call whose outcome says nothing about the dependency, such
+     * as one its caller cancelled, without recording a result.
+     */
+    public synchronized void onIgnored() {
+
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onResult(long durationNanos, boolean success) {
+        boolean slow = durationNanos >= slowCallNanos;
+
+        if (state == State.HALF_OPEN) {
+
+            if (!success || slow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Late result of a call started before the breaker opened
+            return;
+        }
+        record(!success, slow);
+
+        if (recordedCalls >= minimumCalls &&
+                (rate(failureCount) >= failureRateThreshold || rate(slowCount) >= slowCallRateThreshold)) {
+            logger.warn("Circuit breaker '{}' opening: failure rate {}, slow-call rate {}",
+                    name, rate(failureCount), rate(slowCount));
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    public synchronized CircuitBreakerStats getStats() {
+        return new CircuitBreakerStats(name, getState().name(), recordedCalls, rate(failureCount),
+                rate(slowCount), rejectedCount);
+    }
+
+    private void record(boolean failed, boolean slow) {
+
+        if (recordedCalls == windowSize) {
+            failureCount -= failedCalls[nextSlot] ? 1 : 0;
+            slowCount -= slowCalls[nextSlot] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failedCalls[nextSlot] = failed;
+        slowCalls[nextSlot] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        nextSlot = (nextSlot + 1) % windowSize;
+    }
+
+    private double rate(int count) {
+        return recordedCalls == 0 ? 0.0 : (double) count / recordedCalls;
+    }
+
+    private void transitionTo(State newState) {
+
+        if (state != newState) {
+            logger.info("Circuit breaker '{}' changed state from {} to {}", name, state, newState);
+        }
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            recordedCalls = 0;
+            nextSlot = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+
+    // Inner classes
+    public static class CircuitBreakerStats {
+        private final String name;
+        private final String state;
+        private final int bufferedCalls;
+        private final double failureRate;
+        private final double slowCallRate;
+        private final long rejectedCount;
+
+        public CircuitBreakerStats(String name, String state, int bufferedCalls, double failureRate,
+                                   double slowCallRate, long rejectedCount) {
+            this.name = name;
+            this.state = state;
+            this.bufferedCalls = bufferedCalls;
+            this.failureRate = failureRate;
+            this.slowCallRate = slowCallRate;
+            this.rejectedCount = rejectedCount;
+        }
+
+        public String getName() { return name; }
+        public String getState() { return state; }
+        public int getBufferedCalls() { return bufferedCalls; }
+        public double getFailureRate() { return failureRate; }
+        public double getSlowCallRate() { return slowCallRate; }
+        public long getRejectedCount() { return rejectedCount; }
+    }
+}
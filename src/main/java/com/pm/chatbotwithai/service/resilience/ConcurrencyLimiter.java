@@ -0,0 +1,47 @@
+package com.pm.chatbotwithai.service.resilience;
+
+/**
+ * Admission control for calls into a dependency. Every successful {@link #tryAcquire()} must be
+ * paired with exactly one {@link #onComplete} or {@link #release()}; {@code onComplete} also
+ * lets adaptive implementations learn from the observed round-trip time.
+ */
+public interface ConcurrencyLimiter {
+
+    boolean tryAcquire();
+
+    void onComplete(long rttNanos, boolean success);
+
+    /**
+     * Returns a permit for a call that never reached the dependency, without recording a sample.
+     */
+    void release();
+
+    /**
+     * Current number of calls admitted at once.
+     */
+    int getLimit();
+
+    ConcurrencyLimiterStats getStats();
+
+    class ConcurrencyLimiterStats {
+        private final String name;
+        private final String type;
+        private final int limit;
+        private final int inFlight;
+        private final long rejectedCount;
+
+        public ConcurrencyLimiterStats(String name, String type, int limit, int inFlight, long rejectedCount) {
+            this.name = name;
+            this.type = type;
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.rejectedCount = rejectedCount;
+        }
+
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public int getLimit() { return limit; }
+        public int getInFlight() { return inFlight; }
+        public long getRejectedCount() { return rejectedCount; }
+    }
+}
@@ -0,0 +1,190 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import com.pm.chatbotwithai.exception.DeadlineExceededException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Time budget of one chat request, set where the request arrives and handed to every stage
+ * after it. Stages check it before starting, wait at most the time left and size their provider
+ * timeouts from it. It doubles as a cancellation token: when the budget runs out or the client
+ * goes away, the actions registered with {@link #onCancel} run, which is how in-flight provider
+ * calls for users who already left are stopped.
+ */
+public final class RequestDeadline {
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private final Duration budget;
+    private final long deadlineNanos;
+    // Completes with the reason once the request is cancelled, or with null when it finishes normally
+    private final CompletableFuture<String> outcome = new CompletableFuture<>();
+    private final ScheduledFuture<?> expiry;
+
+    private RequestDeadline(Duration budget) {
+        this.budget = budget;
+        this.deadlineNanos = System.nanoTime() + budget.toNanos();
+        this.expiry = TIMER.schedule(() -> cancel("deadline exceeded"), budget.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public static RequestDeadline after(Duration budget) {
+        return new RequestDeadline(budget);
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * The shorter of a stage's own timeout and the time left.
+     */
+    public Duration bound(Duration timeout) {
+        Duration remaining = remaining();
+        return timeout.compareTo(remaining) < 0 ? timeout : remaining;
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return outcome.isDone() && outcome.getNow(null) != null;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the budget is spent
+     * @throws CancellationException if the request was cancelled for another reason
+     */
+    public void check(String stage) {
+
+        if (isExpired()) {
+            throw new DeadlineExceededException(stage);
+        }
+        if (isCancelled()) {
+            throw new CancellationException("Request cancelled before " + stage + ": " + outcome.getNow(null));
+        }
+    }
+
+    /**
+     * Runs the action once the request is cancelled, straight away if it already was. Nothing
+     * runs if the request finishes first.
+     */
+    public void onCancel(Runnable action) {
+        outcome.thenAccept(reason -> {
+
+            if (reason != null) {
+                action.run();
+            }
+        });
+    }
+
+    public void cancel(String reason) {
+
+        if (outcome.complete(reason)) {
+            expiry.cancel(false);
+        }
+    }
+
+    /**
+     * Marks the request as done: registered actions are dropped and the expiry timer stops.
+     */
+    public void finish() {
+
+        if (outcome.complete(null)) {
+            expiry.cancel(false);
+        }
+    }
+
+    /**
+     * Waits for the future no longer than the time left, cancelling it if the deadline passes.
+     * A failure caused by the deadline firing elsewhere first is reported as the deadline too.
+     */
+    public <T> T await(CompletableFuture<T> future, String stage) {
+
+        try {
+            return future.get(remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new DeadlineExceededException(stage);
+        } catch (ExecutionException ex) {
+
+            if (isExpired()) {
+                throw new DeadlineExceededException(stage);
+            }
+            throw ex.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new CancellationException("Interrupted while waiting for " + stage);
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #await}: the returned future fails with
+     * {@link DeadlineExceededException} when the deadline passes, and {@code future} is cancelled.
+     */
+    public <T> CompletableFuture<T> limit(CompletableFuture<T> future, String stage) {
+        CompletableFuture<T> limited = new CompletableFuture<>();
+        // Cancelled first, so whoever sees the failure also sees the work stopped
+        ScheduledFuture<?> timeout = TIMER.schedule(() -> {
+            future.cancel(true);
+            limited.completeExceptionally(new DeadlineExceededException(stage));
+        }, remaining().toNanos(), TimeUnit.NANOSECONDS);
+
+        future.whenComplete((value, throwable) -> {
+            timeout.cancel(false);
+
+            if (throwable == null) {
+                limited.complete(value);
+            } else {
+                limited.completeExceptionally(isExpired() ? new DeadlineExceededException(stage) : throwable);
+            }
+        });
+        return limited;
+    }
+
+    /**
+     * Fails the stream with {@link DeadlineExceededException} when the deadline passes, however
+     * steadily it is still producing; cancelling the subscription stops the upstream.
+     */
+    public <T> Flux<T> limit(Flux<T> flux, String stage) {
+        return withTotalTimeout(flux, remaining())
+                .onErrorMap(ex -> !(ex instanceof DeadlineExceededException) && (ex instanceof TimeoutException || isExpired()),
+                        ex -> new DeadlineExceededException(stage));
+    }
+
+    /**
+     * Bounds a whole stream rather than each gap between elements, as {@link Flux#timeout} does.
+     */
+    public static <T> Flux<T> withTotalTimeout(Flux<T> flux, Duration timeout) {
+        return Flux.defer(() -> {
+            long endNanos = System.nanoTime() + timeout.toNanos();
+
+            return flux.timeout(Mono.delay(timeout),
+                    element -> Mono.delay(Duration.ofNanos(Math.max(0, endNanos - System.nanoTime()))));
+        });
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "request-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most requests finish well before their deadline; drop their timers instead of keeping them queued
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,278 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution for tail latency. The primary call is started immediately; if it has not
+ * finished after the configured percentile of recent primary latencies, an identical backup
+ * call is started and whichever succeeds first wins, the other one being cancelled.
+ *
+ * <p>Hedging is limited by a budget: every call earns {@code budget-ratio} of a hedge credit
+ * and every hedge spends a whole one, so at most that share of traffic is ever duplicated,
+ * even when the provider is slow across the board.
+ */
+@Component
+public class RequestHedger {
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+    private static final int MIN_SAMPLES = 20;
+    private static final int SAMPLES_PER_ESTIMATE = 16;
+    private static final double MAX_CREDITS = 10.0;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMs;
+    private final double budgetRatio;
+
+    // Ring buffer of recent primary latencies; guarded by this
+    private final long[] latencySamples;
+    private int sampleCount;
+    private int nextSample;
+    private int samplesSinceEstimate;
+    private double hedgeCredits;
+
+    // Percentile of latencySamples, re-estimated on the recording path so calls only read it; -1 until enough samples
+    private volatile long hedgeDelayMs = -1;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong budgetRejectedCount = new AtomicLong();
+
+    @Autowired
+    public RequestHedger(
+            @Value("${chatbot.ai.hedging.enabled:false}") boolean enabled,
+            @Value("${chatbot.ai.hedging.percentile:0.95}") double percentile,
+            @Value("${chatbot.ai.hedging.min-delay-ms:50}") long minDelayMs,
+            @Value("${chatbot.ai.hedging.budget-ratio:0.05}") double budgetRatio,
+            @Value("${chatbot.ai.hedging.window-size:512}") int windowSize) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.budgetRatio = budgetRatio;
+        this.latencySamples = new long[windowSize];
+    }
+
+    public <V> CompletableFuture<V> execute(Supplier<CompletableFuture<V>> call) {
+        return execute(call, call);
+    }
+
+    /**
+     * @param hedgeCall starts the backup attempt; it may fail when the attempt is not admitted,
+     *                  which leaves the primary attempt to finish on its own
+     */
+    public <V> CompletableFuture<V> execute(Supplier<CompletableFuture<V>> call,
+                                            Supplier<CompletableFuture<V>> hedgeCall) {
+
+        if (!enabled) {
+            return call.get();
+        }
+        requestCount.incrementAndGet();
+        earnCredit();
+        long delayMs = hedgeDelayMs;
+        long start = System.nanoTime();
+        CompletableFuture<V> primary = call.get();
+
+        if (delayMs < 0) {
+            primary.whenComplete((value, throwable) -> {
+
+                if (throwable == null) {
+                    recordLatency(start);
+                }
+            });
+            // Returned as is so that cancelling it still reaches the call
+            return primary;
+        }
+        CompletableFuture<V> result = new CompletableFuture<>();
+        HedgeState<V> state = new HedgeState<>(primary);
+
+        primary.whenComplete((value, throwable) -> {
+
+            if (throwable == null) {
+                recordLatency(start);
+            }
+            state.onPrimaryDone(result, value, throwable);
+        });
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+
+            if (primary.isDone() || result.isDone()) {
+                return;
+            }
+            if (!spendCredit()) {
+                budgetRejectedCount.incrementAndGet();
+                return;
+            }
+            hedgeCount.incrementAndGet();
+            logger.debug("Primary call still pending after {} ms, starting hedge", delayMs);
+
+            CompletableFuture<V> hedge;
+
+            try {
+                hedge = hedgeCall.get();
+            } catch (RuntimeException ex) {
+                hedge = CompletableFuture.failedFuture(ex);
+            }
+            state.startHedge(result, hedge);
+        });
+        // Cancelling the caller's future abandons both attempts
+        result.whenComplete((value, throwable) -> {
+
+            if (result.isCancelled()) {
+                state.cancelAll();
+            }
+        });
+        return result;
+    }
+
+    public HedgingStats getStats() {
+        return new HedgingStats(enabled, requestCount.get(), hedgeCount.get(), hedgeWinCount.get(),
+                budgetRejectedCount.get(), hedgeDelayMs);
+    }
+
+    private synchronized void earnCredit() {
+        hedgeCredits = Math.min(MAX_CREDITS, hedgeCredits + budgetRatio);
+    }
+
+    private synchronized boolean spendCredit() {
+
+        if (hedgeCredits < 1.0) {
+            return false;
+        }
+        hedgeCredits -= 1.0;
+        return true;
+    }
+
+    /**
+     * Records a primary latency and, every {@link #SAMPLES_PER_ESTIMATE} samples, re-estimates the
+     * hedge delay. The sort runs outside the lock on a copy, so neither calls nor other
+     * recordings wait for it.
+     */
+    private void recordLatency(long startNanos) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long[] sorted;
+
+        synchronized (this) {
+            latencySamples[nextSample] = latencyMs;
+            nextSample = (nextSample + 1) % latencySamples.length;
+            sampleCount = Math.min(sampleCount + 1, latencySamples.length);
+
+            if (sampleCount < MIN_SAMPLES
+                    || (++samplesSinceEstimate < SAMPLES_PER_ESTIMATE && hedgeDelayMs >= 0)) {
+                return;
+            }
+            samplesSinceEstimate = 0;
+            sorted = Arrays.copyOf(latencySamples, sampleCount);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        hedgeDelayMs = Math.max(minDelayMs, sorted[Math.max(0, index)]);
+    }
+
+    // Inner classes
+    private final class HedgeState<V> {
+        private final CompletableFuture<V> primary;
+        private CompletableFuture<V> hedge;
+        private Throwable firstFailure;
+
+        HedgeState(CompletableFuture<V> primary) {
+            this.primary = primary;
+        }
+
+        synchronized void onPrimaryDone(CompletableFuture<V> result, V value, Throwable throwable) {
+
+            if (throwable == null) {
+
+                if (!result.isDone()) {
+                    // Cancel the loser before publishing, so callers never observe it still running
+                    if (hedge != null) {
+                        hedge.cancel(true);
+                    }
+                    result.complete(value);
+                }
+            } else if (hedge == null || !recordFailure(throwable)) {
+                result.completeExceptionally(throwable);
+            }
+        }
+
+        synchronized void startHedge(CompletableFuture<V> result, CompletableFuture<V> hedge) {
+
+            if (result.isDone()) {
+                // The primary finished while the hedge was being started
+                hedge.cancel(true);
+                return;
+            }
+            this.hedge = hedge;
+
+            hedge.whenComplete((value, throwable) -> {
+                synchronized (this) {
+
+                    if (throwable == null) {
+
+                        if (!result.isDone()) {
+                            hedgeWinCount.incrementAndGet();
+                            primary.cancel(true);
+                            result.complete(value);
+                        }
+                    } else if (!recordFailure(throwable)) {
+                        result.completeExceptionally(throwable);
+                    }
+                }
+            });
+        }
+
+        synchronized void cancelAll() {
+            primary.cancel(true);
+
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+
+        // Returns true when this is the first of two failures, so the other attempt may still win
+        private boolean recordFailure(Throwable throwable) {
+
+            if (firstFailure == null) {
+                firstFailure = throwable;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static class HedgingStats {
+        private final boolean enabled;
+        private final long requestCount;
+        private final long hedgeCount;
+        private final long hedgeWinCount;
+        private final long budgetRejectedCount;
+        private final long currentDelayMs;
+
+        public HedgingStats(boolean enabled, long requestCount, long hedgeCount, long hedgeWinCount,
+                            long budgetRejectedCount, long currentDelayMs) {
+            this.enabled = enabled;
+            this.requestCount = requestCount;
+            this.hedgeCount = hedgeCount;
+            this.hedgeWinCount = hedgeWinCount;
+            this.budgetRejectedCount = budgetRejectedCount;
+            this.currentDelayMs = currentDelayMs;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public long getRequestCount() { return requestCount; }
+        public long getHedgeCount() { return hedgeCount; }
+        public long getHedgeWinCount() { return hedgeWinCount; }
+        public long getBudgetRejectedCount() { return budgetRejectedCount; }
+        public long getCurrentDelayMs() { return currentDelayMs; }
+        public double getHedgeRate() { return requestCount == 0 ? 0.0 : (double) hedgeCount / requestCount; }
+        public double getHedgeWinRate() { return hedgeCount == 0 ? 0.0 : (double) hedgeWinCount / hedgeCount; }
+    }
+}
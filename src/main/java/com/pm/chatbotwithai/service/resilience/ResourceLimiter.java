@@ -0,0 +1,94 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import com.pm.chatbotwithai.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits concurrent use of a shared resource such as the database connection pool. Unlike a
+ * {@link Bulkhead}, callers wait for a permit up to {@code acquireTimeout} before giving up,
+ * which is cheap when they run on virtual threads and keeps more callers than the resource can
+ * serve from piling up inside it.
+ */
+public class ResourceLimiter {
+    private final String name;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    public ResourceLimiter(String name, int maxConcurrent, Duration acquireTimeout) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T call(Supplier<T> action) {
+        return call(action, acquireTimeoutNanos);
+    }
+
+    /**
+     * Like {@link #call(Supplier)}, but waits no longer than {@code maxWait} when that is shorter
+     * than the configured acquire timeout, such as the time left before a request's deadline.
+     */
+    public <T> T call(Supplier<T> action, Duration maxWait) {
+        return call(action, Math.min(acquireTimeoutNanos, maxWait.toNanos()));
+    }
+
+    private <T> T call(Supplier<T> action, long waitNanos) {
+        acquire(waitNanos);
+
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public ResourceLimiterStats getStats() {
+        return new ResourceLimiterStats(name, maxConcurrent, maxConcurrent - permits.availablePermits(),
+                permits.getQueueLength(), timeoutCount.get());
+    }
+
+    private void acquire(long waitNanos) {
+        try {
+
+            if (!permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new ServiceOverloadedException("Timed out waiting for a '" + name + "' permit");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for a '" + name + "' permit");
+        }
+    }
+
+    // Inner classes
+    public static class ResourceLimiterStats {
+        private final String name;
+        private final int maxConcurrent;
+        private final int activeCount;
+        private final int waitingCount;
+        private final long timeoutCount;
+
+        public ResourceLimiterStats(String name, int maxConcurrent, int activeCount, int waitingCount,
+                                    long timeoutCount) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.activeCount = activeCount;
+            this.waitingCount = waitingCount;
+            this.timeoutCount = timeoutCount;
+        }
+
+        public String getName() { return name; }
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public int getActiveCount() { return activeCount; }
+        public int getWaitingCount() { return waitingCount; }
+        public long getTimeoutCount() { return timeoutCount; }
+    }
+}
@@ -0,0 +1,353 @@
+package com.pm.chatbotwithai.service.scheduling;
+
+import com.pm.chatbotwithai.exception.ServiceOverloadedException;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admission queue for provider calls with one queue per {@link GenerationPriority}. Up to
+ * {@code max-concurrent} calls run at once, or the provider's current concurrency limit once
+ * {@link #followConcurrencyLimit} attaches one; the rest wait and are released by stride
+ * scheduling, so each class gets a share of the freed slots proportional to its weight.
+ * A job that has waited longer than {@code max-wait-ms} is released ahead of the weights,
+ * which keeps batch and background work from starving under a constant interactive load.
+ */
+@Component
+public class GenerationScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(GenerationScheduler.class);
+    private static final GenerationPriority[] PRIORITIES = GenerationPriority.values();
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final Map<GenerationPriority, Double> strides = new EnumMap<>(GenerationPriority.class);
+    private volatile IntSupplier concurrencyLimit;
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final Map<GenerationPriority, ArrayDeque<ScheduledJob<?>>> queues = new EnumMap<>(GenerationPriority.class);
+    private final Map<GenerationPriority, Double> passes = new EnumMap<>(GenerationPriority.class);
+    private int running;
+
+    // Jobs the current thread has been handed a slot for and has yet to start; see startJobs
+    private final ThreadLocal<ArrayDeque<ScheduledJob<?>>> starting = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final Map<GenerationPriority, AtomicLong> submittedCounts = new EnumMap<>(GenerationPriority.class);
+    private final Map<GenerationPriority, AtomicLong> agedCounts = new EnumMap<>(GenerationPriority.class);
+    private final Map<GenerationPriority, AtomicLong> rejectedCounts = new EnumMap<>(GenerationPriority.class);
+
+    @Autowired
+    public GenerationScheduler(
+            @Value("${chatbot.ai.scheduling.enabled:true}") boolean enabled,
+            @Value("${chatbot.ai.scheduling.max-concurrent:16}") int maxConcurrent,
+            @Value("${chatbot.ai.scheduling.queue-capacity:1000}") int queueCapacity,
+            @Value("${chatbot.ai.scheduling.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${chatbot.ai.scheduling.weights.interactive:8}") int interactiveWeight,
+            @Value("${chatbot.ai.scheduling.weights.batch:2}") int batchWeight,
+            @Value("${chatbot.ai.scheduling.weights.background:1}") int backgroundWeight) {
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.concurrencyLimit = () -> maxConcurrent;
+
+        strides.put(GenerationPriority.INTERACTIVE, 1.0 / Math.max(1, interactiveWeight));
+        strides.put(GenerationPriority.BATCH, 1.0 / Math.max(1, batchWeight));
+        strides.put(GenerationPriority.BACKGROUND, 1.0 / Math.max(1, backgroundWeight));
+
+        for (GenerationPriority priority : PRIORITIES) {
+            queues.put(priority, new ArrayDeque<>());
+            passes.put(priority, 0.0);
+            submittedCounts.put(priority, new AtomicLong());
+            agedCounts.put(priority, new AtomicLong());
+            rejectedCounts.put(priority, new AtomicLong());
+        }
+    }
+
+    /**
+     * Admits as many calls as {@code limit} currently allows instead of {@code max-concurrent}.
+     * An adaptive limiter behind the scheduler only learns from calls it is given, so a lower
+     * fixed bound here would keep it from ever binding or growing. {@code null} restores
+     * {@code max-concurrent}.
+     */
+    public void followConcurrencyLimit(IntSupplier limit) {
+        concurrencyLimit = limit != null ? limit : () -> maxConcurrent;
+        List<ScheduledJob<?>> admitted;
+
+        synchronized (lock) {
+            admitted = admitQueued();
+        }
+        admitted.forEach(this::startJobs);
+    }
+
+    public <V> CompletableFuture<V> submit(GenerationPriority priority, Supplier<CompletableFuture<V>> call) {
+
+        if (!enabled) {
+            return call.get();
+        }
+        ScheduledJob<V> job = new ScheduledJob<>(call);
+        submittedCounts.get(priority).incrementAndGet();
+        boolean startNow = false;
+
+        synchronized (lock) {
+
+            if (running < admissionLimit() && queuesEmpty()) {
+                running++;
+                startNow = true;
+            } else {
+                ArrayDeque<ScheduledJob<?>> queue = queues.get(priority);
+
+                if (queue.size() >= queueCapacity) {
+                    rejectedCounts.get(priority).incrementAndGet();
+                    return CompletableFuture.failedFuture(new ServiceOverloadedException(
+                            "Generation queue for " + priority + " is full"));
+                }
+                if (queue.isEmpty()) {
+                    // A class returning from idle must not cash in credit it "saved" while idle
+                    passes.put(priority, Math.max(passes.get(priority), minActivePass()));
+                }
+                queue.addLast(job);
+            }
+        }
+        if (startNow) {
+            startJobs(job);
+        }
+        return job.result;
+    }
+
+    public SchedulerStats getStats() {
+        List<PriorityClassStats> classes = new ArrayList<>();
+        int runningNow;
+
+        synchronized (lock) {
+            runningNow = running;
+
+            for (GenerationPriority priority : PRIORITIES) {
+                classes.add(new PriorityClassStats(priority.name(), queues.get(priority).size(),
+                        submittedCounts.get(priority).get(), agedCounts.get(priority).get(),
+                        rejectedCounts.get(priority).get()));
+            }
+        }
+        return new SchedulerStats(enabled, admissionLimit(), runningNow, classes);
+    }
+
+    /**
+     * Starts the job, then any job handed a slot while it was starting. A call that fails
+     * synchronously, as one rejected by an open circuit breaker does, completes inside
+     * {@link #start} and frees its slot for the next queued job there; that job is started by
+     * this loop rather than from the completion callback, so a run of such failures drains the
+     * queue without growing the stack.
+     */
+    private void startJobs(ScheduledJob<?> job) {
+        ArrayDeque<ScheduledJob<?>> pending = starting.get();
+        pending.addLast(job);
+
+        if (pending.size() > 1) {
+            // A loop further up this thread's stack starts it once the current job is started
+            return;
+        }
+        while (!pending.isEmpty()) {
+            start(pending.peekFirst());
+            pending.pollFirst();
+        }
+    }
+
+    private <V> void start(ScheduledJob<V> job) {
+        CompletableFuture<V> call = startCall(job);
+
+        // A caller giving up on a running job cancels its call, which frees the slot below
+        job.result.whenComplete((value, throwable) -> {
+
+            if (job.result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        call.whenComplete((value, throwable) -> {
+            // Free the slot before publishing so a caller reacting to the result sees the capacity
+            onFinished();
+
+            if (throwable != null) {
+                job.result.completeExceptionally(throwable);
+            } else {
+                job.result.complete(value);
+            }
+        });
+    }
+
+    private static <V> CompletableFuture<V> startCall(ScheduledJob<V> job) {
+
+        try {
+            return job.call.get();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void onFinished() {
+        List<ScheduledJob<?>> admitted;
+
+        synchronized (lock) {
+            running--;
+            admitted = admitQueued();
+        }
+        admitted.forEach(this::startJobs);
+    }
+
+    // Must be called with the lock held. The limit may have grown since the last call, so this
+    // can hand out several slots; after a shrink it hands out none until enough calls finish.
+    private List<ScheduledJob<?>> admitQueued() {
+        List<ScheduledJob<?>> admitted = new ArrayList<>();
+        int limit = admissionLimit();
+
+        while (running < limit) {
+            ScheduledJob<?> next = pollNext();
+
+            if (next == null) {
+                break;
+            }
+            running++;
+            admitted.add(next);
+        }
+        return admitted;
+    }
+
+    private int admissionLimit() {
+        return Math.max(1, concurrencyLimit.getAsInt());
+    }
+
+    // Must be called with the lock held
+    private ScheduledJob<?> pollNext() {
+
+        while (true) {
+            GenerationPriority chosen = null;
+            long now = System.nanoTime();
+            long oldestAged = Long.MAX_VALUE;
+
+            for (GenerationPriority priority : PRIORITIES) {
+                ScheduledJob<?> head = queues.get(priority).peekFirst();
+
+                if (head != null && now - head.enqueuedAt > maxWaitNanos && head.enqueuedAt < oldestAged) {
+                    oldestAged = head.enqueuedAt;
+                    chosen = priority;
+                }
+            }
+            if (chosen != null) {
+                agedCounts.get(chosen).incrementAndGet();
+                logger.debug("Releasing {} generation that exceeded the maximum queue wait", chosen);
+            } else {
+                double lowestPass = Double.MAX_VALUE;
+
+                for (GenerationPriority priority : PRIORITIES) {
+
+                    if (!queues.get(priority).isEmpty() && passes.get(priority) < lowestPass) {
+                        lowestPass = passes.get(priority);
+                        chosen = priority;
+                    }
+                }
+            }
+            if (chosen == null) {
+                return null;
+            }
+            passes.put(chosen, passes.get(chosen) + strides.get(chosen));
+            ScheduledJob<?> job = queues.get(chosen).pollFirst();
+
+            // Skip jobs whose caller already gave up
+            if (!job.result.isDone()) {
+                return job;
+            }
+        }
+    }
+
+    private boolean queuesEmpty() {
+
+        for (GenerationPriority priority : PRIORITIES) {
+
+            if (!queues.get(priority).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double minActivePass() {
+        double min = Double.MAX_VALUE;
+
+        for (GenerationPriority priority : PRIORITIES) {
+
+            if (!queues.get(priority).isEmpty()) {
+                min = Math.min(min, passes.get(priority));
+            }
+        }
+        return min == Double.MAX_VALUE ? 0.0 : min;
+    }
+
+    // Inner classes
+    private static final class ScheduledJob<V> {
+        private final Supplier<CompletableFuture<V>> call;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        ScheduledJob(Supplier<CompletableFuture<V>> call) {
+            this.call = call;
+        }
+    }
+
+    public static class SchedulerStats {
+        private final boolean enabled;
+        private final int maxConcurrent;
+        private final int running;
+        private final List<PriorityClassStats> classes;
+
+        public SchedulerStats(boolean enabled, int maxConcurrent, int running, List<PriorityClassStats> classes) {
+            this.enabled = enabled;
+            this.maxConcurrent = maxConcurrent;
+            this.running = running;
+            this.classes = classes;
+        }
+
+        public boolean isEnabled() { return enabled; }
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public int getRunning() { return running; }
+        public List<PriorityClassStats> getClasses() { return classes; }
+    }
+
+    public static class PriorityClassStats {
+        private final String priority;
+        private final int queued;
+        private final long submittedCount;
+        private final long agedCount;
+        private final long rejectedCount;
+
+        public PriorityClassStats(String priority, int queued, long submittedCount, long agedCount,
+                                  long rejectedCount) {
+            this.priority = priority;
+            this.queued = queued;
+            this.submittedCount = submittedCount;
+            this.agedCount = agedCount;
+            this.rejectedCount = rejectedCount;
+        }
+
+        public String getPriority() { return priority; }
+        public int getQueued() { return queued; }
+        public long getSubmittedCount() { return submittedCount; }
+        public long getAgedCount() { return agedCount; }
+        public long getRejectedCount() { return rejectedCount; }
+    }
+}
@@ -0,0 +1,254 @@
+package com.pm.chatbotwithai.service.text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalizes text in a single left-to-right scan: trims, optionally strips one leading label
+ * (such as {@code "Asistente:"}) with the whitespace after it, collapses whitespace runs to a
+ * single space and caps the length. Pipelines are immutable and built once; each {@link #apply}
+ * writes into a per-thread buffer and allocates only the resulting string, or nothing at all
+ * when the text was already normalized.
+ *
+ * <p>Whitespace means the same as {@code \s} in {@link java.util.regex.Pattern}, and trimming
+ * follows {@link String#trim()}, so results match the regular expressions this class replaces.
+ */
+public final class TextPipeline {
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+    // Larger buffers are dropped after use so one long prompt does not pin memory to a pool thread
+    private static final int MAX_RETAINED_CAPACITY = 32 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+
+    private final List<String> labels;
+    private final boolean collapseWhitespace;
+    private final int maxChars;
+    private final String ellipsis;
+
+    private TextPipeline(Builder builder) {
+        this.labels = List.copyOf(builder.labels);
+        this.collapseWhitespace = builder.collapseWhitespace;
+        this.maxChars = builder.maxChars;
+        this.ellipsis = builder.ellipsis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String apply(CharSequence text) {
+
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = acquireBuffer();
+
+        try {
+            boolean modified = scan(text, 0, out);
+
+            if (!modified && text instanceof String unchanged) {
+                return unchanged;
+            }
+            return out.toString();
+        } finally {
+            releaseBuffer(out);
+        }
+    }
+
+    /**
+     * Whether normalizing {@code text} from {@code from} onwards gives {@code expected}, without
+     * building the normalized string.
+     */
+    public boolean matches(CharSequence text, int from, String expected) {
+
+        if (text == null) {
+            return expected.isEmpty();
+        }
+        StringBuilder out = acquireBuffer();
+
+        try {
+            scan(text, from, out);
+            return expected.contentEquals(out);
+        } finally {
+            releaseBuffer(out);
+        }
+    }
+
+    public boolean matches(CharSequence text, String expected) {
+        return matches(text, 0, expected);
+    }
+
+    /**
+     * Same as {@code text.trim().isEmpty()} without the copy.
+     */
+    public static boolean isBlank(CharSequence text) {
+
+        if (text == null) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@code text.toLowerCase().contains(needle.toLowerCase())} without the copies.
+     */
+    public static boolean containsIgnoreCase(String text, String needle) {
+
+        if (needle.isEmpty()) {
+            return true;
+        }
+        int last = text.length() - needle.length();
+        char lower = Character.toLowerCase(needle.charAt(0));
+        char upper = Character.toUpperCase(needle.charAt(0));
+
+        for (int i = 0; i <= last; i++) {
+            char c = text.charAt(i);
+
+            if ((c == lower || c == upper) && text.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean endsWithSentencePunctuation(CharSequence text) {
+
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        char last = text.charAt(text.length() - 1);
+        return last == '.' || last == '!' || last == '?';
+    }
+
+    // Writes the normalized text into out and reports whether it differs from the input
+    private boolean scan(CharSequence text, int from, StringBuilder out) {
+        int start = from;
+        int end = text.length();
+
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean modified = start > 0 || end < text.length();
+
+        for (String label : labels) {
+
+            if (startsWith(text, start, end, label)) {
+                start += label.length();
+
+                while (start < end && isWhitespace(text.charAt(start))) {
+                    start++;
+                }
+                modified = true;
+                break;
+            }
+        }
+        boolean inWhitespace = false;
+
+        for (int i = start; i < end; i++) {
+
+            if (out.length() == maxChars) {
+                // The input is trimmed, so anything left still produces at least one character
+                out.append(ellipsis);
+                return true;
+            }
+            char c = text.charAt(i);
+
+            if (collapseWhitespace && isWhitespace(c)) {
+
+                if (inWhitespace || c != ' ') {
+                    modified = true;
+                }
+                if (!inWhitespace) {
+                    out.append(' ');
+                    inWhitespace = true;
+                }
+                continue;
+            }
+            inWhitespace = false;
+            out.append(c);
+        }
+        return modified;
+    }
+
+    private static boolean startsWith(CharSequence text, int start, int end, String prefix) {
+
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Virtual threads are not reused, so a thread-local buffer would only add a map entry per task
+    private static StringBuilder acquireBuffer() {
+
+        if (Thread.currentThread().isVirtual()) {
+            return new StringBuilder(INITIAL_BUFFER_CAPACITY);
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static void releaseBuffer(StringBuilder buffer) {
+
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY && !Thread.currentThread().isVirtual()) {
+            BUFFER.remove();
+        }
+    }
+
+    // Inner classes
+    public static final class Builder {
+        private final List<String> labels = new ArrayList<>();
+        private boolean collapseWhitespace;
+        private int maxChars = Integer.MAX_VALUE;
+        private String ellipsis = "";
+
+        private Builder() {
+        }
+
+        /**
+         * Strips the first of these labels that opens the trimmed text, plus the whitespace after it.
+         */
+        public Builder stripLeadingLabel(String... labels) {
+            this.labels.addAll(List.of(labels));
+            return this;
+        }
+
+        public Builder collapseWhitespace() {
+            this.collapseWhitespace = true;
+            return this;
+        }
+
+        /**
+         * Cuts the normalized text after {@code maxChars} characters and appends {@code ellipsis}.
+         */
+        public Builder maxChars(int maxChars, String ellipsis) {
+            this.maxChars = maxChars;
+            this.ellipsis = ellipsis;
+            return this;
+        }
+
+        public TextPipeline build() {
+            return new TextPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-pair-encoding token counter compatible with tiktoken vocabularies ({@code .tiktoken}
+ * files: one {@code base64(token) rank} pair per line). Text is split with the cl100k
+ * pre-tokenization pattern, each piece is UTF-8 encoded and merged by rank exactly as the
+ * model's tokenizer does, so counts match what the provider bills and enforces.
+ *
+ * <p>Counting does not allocate per call: the vocabulary lives in one flat byte pool behind an
+ * open-addressing index, and the matcher and scratch buffers are reused per thread.
+ */
+public class BpeTokenizer implements Tokenizer {
+    private static final Pattern PRE_TOKENIZER = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}" +
+                    "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+
+    private final String name;
+
+    // Vocabulary: token bytes are stored back to back in pool
+    private final byte[] pool;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] ranks;
+    private final int[] index;
+    private final int indexMask;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private BpeTokenizer(String name, List<byte[]> tokens, List<Integer> tokenRanks) {
+        this.name = name;
+        int size = tokens.size();
+        int poolSize = 0;
+
+        for (byte[] token : tokens) {
+            poolSize += token.length;
+        }
+        this.pool = new byte[poolSize];
+        this.offsets = new int[size];
+        this.lengths = new int[size];
+        this.ranks = new int[size];
+
+        int capacity = Integer.highestOneBit(Math.max(16, size * 2 - 1)) << 1;
+        this.index = new int[capacity];
+        this.indexMask = capacity - 1;
+
+        int position = 0;
+
+        for (int i = 0; i < size; i++) {
+            byte[] token = tokens.get(i);
+            System.arraycopy(token, 0, pool, position, token.length);
+            offsets[i] = position;
+            lengths[i] = token.length;
+            ranks[i] = tokenRanks.get(i);
+            position += token.length;
+
+            int slot = hash(pool, offsets[i], lengths[i]) & indexMask;
+
+            while (index[slot] != 0) {
+                slot = (slot + 1) & indexMask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    public static BpeTokenizer load(String name, InputStream vocabulary) throws IOException {
+        List<byte[]> tokens = new ArrayList<>();
+        List<Integer> tokenRanks = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.US_ASCII))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                if (line.isBlank()) {
+                    continue;
+                }
+                int separator = line.indexOf(' ');
+
+                if (separator < 0) {
+                    throw new IOException("Malformed vocabulary line: " + line);
+                }
+                tokens.add(Base64.getDecoder().decode(line.substring(0, separator)));
+                tokenRanks.add(Integer.parseInt(line.substring(separator + 1).trim()));
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IOException("Vocabulary is empty");
+        }
+        return new BpeTokenizer(name, tokens, tokenRanks);
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        Scratch buffers = scratch.get();
+        Matcher matcher = buffers.matcher.reset(text);
+        int count = 0;
+
+        while (matcher.find()) {
+            count += countPiece(buffers, text, matcher.start(), matcher.end());
+        }
+        matcher.reset("");
+        return count;
+    }
+
+    @Override
+    public int prefixLengthWithin(CharSequence text, int maxTokens) {
+        Scratch buffers = scratch.get();
+        Matcher matcher = buffers.matcher.reset(text);
+        int count = 0;
+        int fits = 0;
+
+        try {
+            while (matcher.find()) {
+                count += countPiece(buffers, text, matcher.start(), matcher.end());
+
+                if (count > maxTokens) {
+                    return fits;
+                }
+                fits = matcher.end();
+            }
+            return text.length();
+        } finally {
+            matcher.reset("");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public int getVocabularySize() {
+        return ranks.length;
+    }
+
+    private int countPiece(Scratch buffers, CharSequence text, int start, int end) {
+        int length = buffers.encode(text, start, end);
+        byte[] bytes = buffers.bytes;
+
+        // Whole words are usually a single vocabulary entry
+        if (rankOf(bytes, 0, length) >= 0) {
+            return 1;
+        }
+        return mergeCount(buffers, length);
+    }
+
+    /**
+     * tiktoken's byte-pair merge: repeatedly join the adjacent pair with the lowest rank until
+     * no pair is in the vocabulary. {@code starts} holds the boundaries of the current parts
+     * and {@code pairRanks[i]} the rank of parts i and i+1 joined.
+     */
+    private int mergeCount(Scratch buffers, int length) {
+        byte[] bytes = buffers.bytes;
+        int[] starts = buffers.ints(0, length + 1);
+        int[] pairRanks = buffers.ints(1, length + 1);
+        int parts = length + 1;
+
+        for (int i = 0; i < parts; i++) {
+            starts[i] = i;
+        }
+        for (int i = 0; i < parts - 2; i++) {
+            pairRanks[i] = rankOrMax(bytes, starts[i], starts[i + 2]);
+        }
+        pairRanks[parts - 2] = Integer.MAX_VALUE;
+
+        while (parts > 2) {
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+
+            for (int i = 0; i < parts - 2; i++) {
+
+                if (pairRanks[i] < bestRank) {
+                    bestRank = pairRanks[i];
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            // Drop boundary best+1, then refresh the two pairs that now span new parts
+            System.arraycopy(starts, best + 2, starts, best + 1, parts - best - 2);
+            System.arraycopy(pairRanks, best + 2, pairRanks, best + 1, parts - best - 3);
+            parts--;
+
+            pairRanks[best] = best + 2 < parts ? rankOrMax(bytes, starts[best], starts[best + 2]) : Integer.MAX_VALUE;
+
+            if (best > 0) {
+                pairRanks[best - 1] = rankOrMax(bytes, starts[best - 1], starts[best + 1]);
+            }
+        }
+        return parts - 1;
+    }
+
+    private int rankOrMax(byte[] bytes, int start, int end) {
+        int rank = rankOf(bytes, start, end - start);
+        return rank >= 0 ? rank : Integer.MAX_VALUE;
+    }
+
+    private int rankOf(byte[] bytes, int offset, int length) {
+        int slot = hash(bytes, offset, length) & indexMask;
+
+        while (true) {
+            int entry = index[slot] - 1;
+
+            if (entry < 0) {
+                return -1;
+            }
+            if (lengths[entry] == length &&
+                    Arrays.equals(pool, offsets[entry], offsets[entry] + length, bytes, offset, offset + length)) {
+                return ranks[entry];
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811C9DC5;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Inner classes
+    private static final class Scratch {
+        private final Matcher matcher = PRE_TOKENIZER.matcher("");
+        private byte[] bytes = new byte[256];
+        private final int[][] ints = {new int[256], new int[256]};
+
+        int[] ints(int which, int size) {
+
+            if (ints[which].length < size) {
+                ints[which] = new int[Math.max(size, ints[which].length * 2)];
+            }
+            return ints[which];
+        }
+
+        // UTF-8 encodes text[start, end) into bytes and returns the encoded length
+        int encode(CharSequence text, int start, int end) {
+            int required = (end - start) * 3;
+
+            if (bytes.length < required) {
+                bytes = new byte[Math.max(required, bytes.length * 2)];
+            }
+            int position = 0;
+
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[position++] = (byte) (0xE0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.service.text.TextPipeline;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Builds the conversation history sent with a prompt so that it fits the model's context
+ * window: what is left after the completion budget and the prompt framing is filled with the
+ * newest messages. The history is returned in chronological order.
+ *
+ * <p>To let a prefix-caching inference server reuse its KV cache across turns, the window does
+ * not slide one message at a time. Its first message is aligned to a multiple of
+ * {@code block-messages} (counted from the start of the conversation), so between two block
+ * boundaries every prompt is the previous prompt plus the new turns. The window's
+ * {@link ContextWindow#getPrefixId() prefix ID} only changes when the start moves. The price is
+ * up to {@code block-messages - 1} fewer messages than would fit. A block size of one restores
+ * exact filling, where the oldest message that only partly fits is cut to the remaining tokens
+ * and no prefix ID is issued.
+ *
+ * <p>When the conversation has a rolling summary of its older messages, the summary opens the
+ * history and is part of the prefix.
+ */
+@Component
+public class ContextWindowBuilder {
+    // "Contexto de la conversación:", the current turn and the "Asistente:" cue
+    private static final int PROMPT_FRAME_TOKENS = 32;
+    private static final String PROMPT_HEADER = "Contexto de la conversación:\n";
+    // Whitespace is collapsed the same way the input was preprocessed
+    private static final TextPipeline WHITESPACE_PIPELINE = TextPipeline.builder().collapseWhitespace().build();
+    private static final String ASSISTANT_CUE = "Asistente:";
+    private static final String SUMMARY_LABEL = "Resumen de la conversación anterior: ";
+
+    private final Tokenizer tokenizer;
+    private final int contextWindowTokens;
+    private final int completionTokens;
+    private final int blockMessages;
+
+    @Autowired
+    public ContextWindowBuilder(Tokenizer tokenizer,
+                                @Value("${chatbot.ai.context-window-tokens:4096}") int contextWindowTokens,
+                                @Value("${chatbot.ai.max-tokens:512}") int completionTokens,
+                                @Value("${chatbot.ai.prefix-cache.block-messages:8}") int blockMessages) {
+        this.tokenizer = tokenizer;
+        this.contextWindowTokens = contextWindowTokens;
+        this.completionTokens = completionTokens;
+        this.blockMessages = Math.max(1, blockMessages);
+    }
+
+    public ContextWindow build(List<Message> newestFirst, int totalMessages, String currentInput) {
+        return build(null, newestFirst, totalMessages, currentInput);
+    }
+
+    /**
+     * @param summary rolling summary of the messages before {@code newestFirst}, or null; it
+     *                opens the history and may take up to half of the budget
+     * @param newestFirst candidate messages, most recent first
+     * @param totalMessages number of messages in the whole conversation, used to place the
+     *                      candidates at their absolute positions
+     * @param currentInput the user input the prompt is being built for; its tokens are reserved
+     *                     up front
+     */
+    public ContextWindow build(String summary, List<Message> newestFirst, int totalMessages, String currentInput) {
+        int budget = historyBudget(currentInput);
+        String summaryLine = "";
+
+        if (summary != null && !summary.isBlank()) {
+            summaryLine = tokenizer.truncateToTokens(SUMMARY_LABEL + summary.strip(), budget / 2).stripTrailing() + "\n";
+            budget -= tokenizer.countTokens(summaryLine);
+        }
+        if (blockMessages == 1) {
+            return new ContextWindow(summaryLine + fillExactly(newestFirst, budget), null);
+        }
+        String[] lines = new String[newestFirst.size()];
+        int fitting = 0;
+        int remaining = budget;
+
+        for (Message message : newestFirst) {
+            lines[fitting] = formatLine(message);
+            int tokens = tokenizer.countTokens(lines[fitting]);
+
+            if (tokens > remaining) {
+                break;
+            }
+            remaining -= tokens;
+            fitting++;
+        }
+        if (fitting == 0) {
+            // Not even the newest message fits whole, so there is no stable prefix to offer
+            return new ContextWindow(summaryLine + fillExactly(newestFirst, budget), null);
+        }
+        int total = Math.max(totalMessages, newestFirst.size());
+        int oldestFitting = total - fitting;
+        int windowStart = ceilToBlock(oldestFitting);
+        int included = Math.min(fitting, Math.max(1, total - windowStart));
+        StringBuilder history = new StringBuilder(summaryLine);
+
+        for (int i = included - 1; i >= 0; i--) {
+            history.append(lines[i]);
+        }
+        return new ContextWindow(history.toString(), prefixIdFor(summaryLine, newestFirst.get(included - 1)));
+    }
+
+    public int historyBudget(String currentInput) {
+        int inputTokens = currentInput != null ? tokenizer.countTokens(currentInput) : 0;
+        return Math.max(0, contextWindowTokens - completionTokens - PROMPT_FRAME_TOKENS - inputTokens);
+    }
+
+    /**
+     * Frames a history and the current input as the prompt sent to the model. The history is
+     * expected to end with the current user message, as {@link #build} returns it; the prompt
+     * then ends with the assistant cue, so the next turn's prompt starts with this one.
+     */
+    public static String assemblePrompt(String history, String input) {
+        StringBuilder prompt = new StringBuilder();
+        String currentTurn = "Usuario: " + input;
+
+        if (history != null && !history.isBlank()) {
+            String trimmed = history.strip();
+            prompt.append(PROMPT_HEADER).append(trimmed).append('\n');
+
+            int lastTurn = lastUserTurn(trimmed);
+
+            if (lastTurn < 0 || !WHITESPACE_PIPELINE.matches(trimmed, lastTurn, currentTurn)) {
+                prompt.append(currentTurn).append('\n');
+            }
+        } else {
+            prompt.append(currentTurn).append('\n');
+        }
+        return prompt.append(ASSISTANT_CUE).toString();
+    }
+
+    private String fillExactly(List<Message> newestFirst, int budget) {
+        Deque<String> lines = new ArrayDeque<>();
+
+        for (Message message : newestFirst) {
+
+            if (budget <= 0) {
+                break;
+            }
+            String line = formatLine(message);
+            int tokens = tokenizer.countTokens(line);
+
+            if (tokens > budget) {
+                String truncated = tokenizer.truncateToTokens(line, budget);
+
+                if (!truncated.isBlank()) {
+                    lines.addFirst(truncated.stripTrailing() + "\n");
+                }
+                break;
+            }
+            lines.addFirst(line);
+            budget -= tokens;
+        }
+        return String.join("", lines);
+    }
+
+    private int ceilToBlock(int position) {
+        return (position + blockMessages - 1) / blockMessages * blockMessages;
+    }
+
+    // The summary and the first message pin down the whole prefix: everything after them is append-only
+    private static String prefixIdFor(String summaryLine, Message first) {
+        String seed = first.getId() != null ? first.getId().toString() : formatLine(first);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(PROMPT_HEADER.getBytes(StandardCharsets.UTF_8));
+            digest.update(summaryLine.getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(seed.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    // Start of the last user line, or -1 if the history has none
+    private static int lastUserTurn(String history) {
+        int lastTurn = history.lastIndexOf("\nUsuario: ");
+
+        if (lastTurn >= 0) {
+            return lastTurn + 1;
+        }
+        return history.startsWith("Usuario: ") ? 0 : -1;
+    }
+
+    private static String formatLine(Message message) {
+        String sender = message.isFromUser() ? "Usuario" : "Asistente";
+        return sender + ": " + message.getContent() + "\n";
+    }
+
+    // Inner classes
+    public static class ContextWindow {
+        private final String history;
+        private final String prefixId;
+
+        public ContextWindow(String history, String prefixId) {
+            this.history = history;
+            this.prefixId = prefixId;
+        }
+
+        public String getHistory() { return history; }
+        public String getPrefixId() { return prefixId; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+/**
+ * Fallback used when no vocabulary is configured: assumes four characters per token, which is
+ * roughly right for English and slightly pessimistic for Spanish.
+ */
+public class HeuristicTokenizer implements Tokenizer {
+    private static final int CHARS_PER_TOKEN = 4;
+
+    @Override
+    public int countTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    @Override
+    public int prefixLengthWithin(CharSequence text, int maxTokens) {
+        int limit = (int) Math.min(text.length(), (long) maxTokens * CHARS_PER_TOKEN);
+
+        if (limit >= text.length()) {
+            return text.length();
+        }
+        // Back off to the last whitespace so words stay whole
+        for (int i = limit; i > 0; i--) {
+
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    @Override
+    public String getName() {
+        return "heuristic";
+    }
+}
@@ -0,0 +1,22 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+/**
+ * Counts model tokens. Implementations must be thread-safe.
+ */
+public interface Tokenizer {
+
+    int countTokens(CharSequence text);
+
+    /**
+     * Length of the longest prefix of {@code text} that fits in {@code maxTokens}, cut at a
+     * pre-tokenization boundary so a word is never split halfway through.
+     */
+    int prefixLengthWithin(CharSequence text, int maxTokens);
+
+    default String truncateToTokens(String text, int maxTokens) {
+        int length = prefixLengthWithin(text, maxTokens);
+        return length >= text.length() ? text : text.substring(0, length);
+    }
+
+    String getName();
+}
@@ -0,0 +1,32 @@
+package com.pm.chatbotwithai.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "chatbot.ai.cache.max-size=250",
+        "chatbot.ai.cache.ttl-minutes=15"
+})
+class CacheConfigTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void responseCacheIsBoundedBySizeAndAgeAndRecordsStats() {
+        Cache<Object, Object> cache = ((CaffeineCache) cacheManager.getCache(CacheConfig.AI_RESPONSE_CACHE))
+                .getNativeCache();
+
+        assertEquals(250, cache.policy().eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(15), cache.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        assertTrue(cache.policy().isRecordingStats());
+    }
+}
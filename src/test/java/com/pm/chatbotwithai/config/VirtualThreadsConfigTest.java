@@ -0,0 +1,57 @@
+package com.pm.chatbotwithai.config;
+
+import com.pm.chatbotwithai.model.dto.request.MessageRequest;
+import com.pm.chatbotwithai.model.dto.response.ChatResponse;
+import com.pm.chatbotwithai.service.ConversationService;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "chatbot.async.virtual-threads=true",
+        "chatbot.ai.mock.latency=none"
+})
+class VirtualThreadsConfigTest {
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    @Qualifier("aiExecutor")
+    private ExecutorService aiExecutor;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Test
+    void bothExecutorsRunTasksOnVirtualThreads() throws Exception {
+        assertTrue(CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), taskExecutor)
+                .get(5, TimeUnit.SECONDS));
+        assertTrue(aiExecutor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void chatRequestsCompleteInVirtualThreadMode() throws Exception {
+        MessageRequest request = new MessageRequest("hola", "virtual-user");
+        request.setPriority(GenerationPriority.INTERACTIVE);
+
+        ChatResponse response = conversationService
+                .processMessageAsync(request, RequestDeadline.after(Duration.ofSeconds(10)))
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess());
+        assertNotNull(response.getAiResponse().getContent());
+    }
+}
@@ -0,0 +1,158 @@
+package com.pm.chatbotwithai.controller;
+
+import com.pm.chatbotwithai.exception.ContentModerationException;
+import com.pm.chatbotwithai.exception.ProviderUnavailableException;
+import com.pm.chatbotwithai.model.dto.response.ChatResponse;
+import com.pm.chatbotwithai.model.dto.response.ChatStreamEvent;
+import com.pm.chatbotwithai.service.ConversationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChatControllerTest {
+    private static final String MESSAGE = "{\"content\": \"hola\"}";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private ConversationService conversationService;
+
+    @Test
+    void providerUnavailableReachesTheJsonClientAs503() throws Exception {
+        failWith(new ProviderUnavailableException("Circuit breaker open"));
+
+        mvc.perform(asyncDispatch(sendJson()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errorCode").value("PROVIDER_UNAVAILABLE"));
+    }
+
+    @Test
+    void blockedInputIs400WithTheModerationCategory() throws Exception {
+        failWith(new ContentModerationException("VIOLENCE"));
+
+        mvc.perform(asyncDispatch(sendJson()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("CONTENT_MODERATION"))
+                .andExpect(jsonPath("$.moderationCategory").value("VIOLENCE"));
+    }
+
+    @Test
+    void unclassifiedFailuresAreStill500() throws Exception {
+        failWith(new IllegalStateException("boom"));
+
+        mvc.perform(asyncDispatch(sendJson()))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.errorCode").value("PROCESSING_ERROR"));
+    }
+
+    @Test
+    void streamedMessageIsFramedAsServerSentEvents() throws Exception {
+        ChatResponse completed = new ChatResponse(UUID.randomUUID(), null, null);
+        when(conversationService.processMessageStream(any(), any())).thenReturn(Flux.just(
+                ChatStreamEvent.chunk("¡Hola!"), ChatStreamEvent.chunk(" ¿Qué tal?"), ChatStreamEvent.complete(completed)));
+
+        String body = stream();
+
+        List<String> events = Arrays.stream(body.split("\n\n")).map(String::strip).filter(e -> !e.isEmpty()).toList();
+        assertEquals(3, events.size(), body);
+        assertTrue(events.get(0).startsWith("event:chunk\ndata:"), events.get(0));
+        assertTrue(events.get(0).contains("\"content\":\"¡Hola!\""), events.get(0));
+        assertTrue(events.get(1).contains("\"content\":\" ¿Qué tal?\""), events.get(1));
+        assertTrue(events.get(2).startsWith("event:complete\ndata:"), events.get(2));
+        assertTrue(events.get(2).contains(completed.getConversationId().toString()), events.get(2));
+    }
+
+    @Test
+    void streamFailureEndsWithAnErrorEvent() throws Exception {
+        when(conversationService.processMessageStream(any(), any())).thenReturn(Flux.concat(
+                Flux.just(ChatStreamEvent.chunk("Hola")),
+                Flux.error(new ProviderUnavailableException("Circuit breaker open"))));
+
+        String body = stream();
+
+        assertTrue(body.contains("event:chunk"), body);
+        assertTrue(body.strip().endsWith("\"errorCode\":\"PROVIDER_UNAVAILABLE\"}"), body);
+        assertTrue(body.contains("event:error\ndata:"), body);
+    }
+
+    @Test
+    void anyAcceptGetsTheJsonResponse() throws Exception {
+        when(conversationService.processMessageAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ChatResponse(UUID.randomUUID(), null, null)));
+
+        MvcResult result = mvc.perform(post("/api/v1/chat/message")
+                        .header("X-User-ID", "controller-user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.ALL)
+                        .content(MESSAGE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.success").value(true));
+        verify(conversationService, never()).processMessageStream(any(), any());
+    }
+
+    private String stream() throws Exception {
+        MvcResult result = mvc.perform(post("/api/v1/chat/message")
+                        .header("X-User-ID", "controller-user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content(MESSAGE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+
+        assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(
+                MediaType.parseMediaType(result.getResponse().getContentType())));
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private MvcResult sendJson() throws Exception {
+        return mvc.perform(post("/api/v1/chat/message")
+                        .header("X-User-ID", "controller-user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(MESSAGE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // Fails on another thread, so the controller sees the CompletionException the real service produces
+    private void failWith(RuntimeException failure) {
+        when(conversationService.processMessageAsync(any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.<ChatResponse>supplyAsync(() -> {
+                    throw failure;
+                }));
+    }
+}
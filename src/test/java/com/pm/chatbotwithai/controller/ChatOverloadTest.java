@@ -0,0 +1,108 @@
+package com.pm.chatbotwithai.controller;
+
+import com.pm.chatbotwithai.service.AIModelService;
+import com.pm.chatbotwithai.service.resilience.ResourceLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Overload rejections from the real pipeline, end to end: one generation slot with no queue
+ * behind it, and one database permit with a short wait.
+ */
+@SpringBootTest(properties = {
+        "chatbot.ai.mock.latency=fixed:1000",
+        "chatbot.ai.scheduling.max-concurrent=1",
+        "chatbot.ai.scheduling.queue-capacity=0",
+        "chatbot.async.limits.database=1",
+        "chatbot.async.limits.acquire-timeout-ms=100",
+        "chatbot.ai.cache.enabled=false",
+        "chatbot.ai.semantic-cache.enabled=false",
+        "chatbot.ai.coalescing.enabled=false"
+})
+@AutoConfigureMockMvc
+class ChatOverloadTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AIModelService aiModelService;
+
+    @Autowired
+    private ResourceLimiter databaseLimiter;
+
+    @Test
+    void fullGenerationQueueIs503() throws Exception {
+        MvcResult first = send("queue-user-1", "¿cuál es tu nombre?");
+        waitUntil(() -> aiModelService.getSchedulerStats().getRunning() == 1);
+
+        mvc.perform(asyncDispatch(send("queue-user-2", "necesito ayuda")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.errorCode").value("SERVICE_OVERLOADED"));
+
+        mvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+    }
+
+    @Test
+    void databasePermitTimeoutIs503() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> databaseLimiter.call(() -> {
+            awaitQuietly(release);
+            return null;
+        }));
+        waitUntil(() -> databaseLimiter.getStats().getActiveCount() == 1);
+
+        try {
+            mvc.perform(asyncDispatch(send("database-user", "hola")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.errorCode").value("SERVICE_OVERLOADED"));
+            assertTrue(databaseLimiter.getStats().getTimeoutCount() >= 1);
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private MvcResult send(String userId, String content) throws Exception {
+        return mvc.perform(post("/api/v1/chat/message")
+                        .header("X-User-ID", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"" + content + "\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.ai.MockLatencyModel;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Callers sharing a coalesced provider call each keep their own deadline: the one that started
+ * it running out of time must not fail the others.
+ */
+@SpringBootTest(properties = {
+        "chatbot.ai.provider=local",
+        "chatbot.health.probe-interval-ms=3600000"
+})
+class CoalescedRequestDeadlineTest {
+    private static final StandInInferenceServer server = start();
+
+    @Autowired
+    private AIModelService aiModelService;
+
+    @DynamicPropertySource
+    static void localEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("chatbot.ai.local.endpoint", server::getGenerateEndpoint);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void leaderRunningOutOfTimeDoesNotFailTheFollowers() throws Exception {
+        server.setLatency(MockLatencyModel.fixed(600));
+        int callsBefore = server.getGenerateCalls();
+
+        CompletableFuture<AIModelService.AIResponse> leader = aiModelService.generateResponseAsync(
+                "¿qué hora es en Tokio?", null, GenerationPriority.INTERACTIVE, null,
+                RequestDeadline.after(Duration.ofMillis(200)));
+        CompletableFuture<AIModelService.AIResponse> follower = aiModelService.generateResponseAsync(
+                "¿qué hora es en Tokio?", null, GenerationPriority.INTERACTIVE, null,
+                RequestDeadline.after(Duration.ofSeconds(10)));
+
+        assertNotNull(follower.get(5, TimeUnit.SECONDS).getResponse());
+        assertTrue(leader.isCompletedExceptionally());
+        assertEquals(callsBefore + 1, server.getGenerateCalls());
+        assertEquals(1, aiModelService.getCoalescingStats().getCoalescedCount());
+    }
+
+    private static StandInInferenceServer start() {
+        try {
+            return new StandInInferenceServer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
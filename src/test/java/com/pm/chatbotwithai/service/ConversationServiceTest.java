@@ -0,0 +1,154 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.model.dto.request.MessageRequest;
+import com.pm.chatbotwithai.model.dto.response.ChatResponse;
+import com.pm.chatbotwithai.model.dto.response.ChatStreamEvent;
+import com.pm.chatbotwithai.model.dto.response.ConversationResponse;
+import com.pm.chatbotwithai.model.entity.Conversation;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.ConversationRepository;
+import com.pm.chatbotwithai.repository.MessageRepository;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "chatbot.conversation.max-messages=3",
+        "chatbot.ai.mock.latency=none",
+        // Above what a streamed reply scores, so replacing it with the fallback would show
+        "chatbot.ai.confidence-threshold=0.95",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ConversationServiceTest {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void messageCountIsMaintainedWithInsertsAndEnforcesTheLimit() {
+        String conversationId = conversationService.createConversation("count-user", "Contador").getId().toString();
+
+        send(conversationId, "hola");
+        send(conversationId, "¿qué tal?");
+
+        // Two exchanges: the second user message took the last slot and its reply is still stored
+        Conversation stored = conversationRepository.findById(UUID.fromString(conversationId)).orElseThrow();
+        assertEquals(4, stored.getMessageCount());
+        assertEquals(4, messageRepository.countByConversationId(stored.getId()));
+
+        assertThrows(CompletionException.class, () -> send(conversationId, "una más"));
+        assertEquals(4, messageRepository.countByConversationId(stored.getId()));
+
+        ConversationResponse listed = conversationService.getUserConversations("count-user", 0, 10)
+                .getContent().get(0);
+        assertEquals(4, listed.getMessageCount());
+    }
+
+    @Test
+    void listingUsesTheSameNumberOfStatementsWhateverThePageSize() {
+
+        for (int i = 0; i < 12; i++) {
+            Conversation conversation = new Conversation("listing-user", "Conversación " + i);
+            conversation.setMessageCount(2);
+            conversation = conversationRepository.save(conversation);
+            messageRepository.save(new Message(conversation, "pregunta " + i));
+            messageRepository.save(new Message(conversation, "respuesta " + i + " " + "x".repeat(200), 5L, 0.9, "test"));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<ConversationResponse> small = conversationService.getUserConversations("listing-user", 0, 2).getContent();
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<ConversationResponse> large = conversationService.getUserConversations("listing-user", 0, 10).getContent();
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(2, small.size());
+        assertEquals(10, large.size());
+        // The rows and the total count, however many rows the page holds
+        assertEquals(2, smallPageStatements);
+        assertEquals(smallPageStatements, largePageStatements);
+        assertEquals(0, statistics.getCollectionLoadCount());
+
+        ConversationResponse newest = large.get(0);
+        assertEquals(2, newest.getMessageCount());
+        assertTrue(newest.getLastMessagePreview().startsWith("respuesta"));
+        assertTrue(newest.getLastMessagePreview().endsWith("..."));
+        assertEquals(123, newest.getLastMessagePreview().length());
+        assertTrue(newest.getMessages().isEmpty());
+    }
+
+    @Test
+    void moreConcurrentRequestsThanTaskExecutorThreadsAllComplete() throws Exception {
+        // Three times the platform pool's core size, each from its own user to stay under the rate limit
+        List<CompletableFuture<ChatResponse>> responses = IntStream.range(0, 12)
+                .mapToObj(i -> {
+                    MessageRequest request = new MessageRequest("hola " + i, "concurrent-user-" + i);
+                    request.setPriority(GenerationPriority.INTERACTIVE);
+                    return conversationService.processMessageAsync(request, RequestDeadline.after(Duration.ofSeconds(30)));
+                })
+                .toList();
+
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        responses.forEach(response -> assertTrue(response.join().isSuccess()));
+    }
+
+    @Test
+    void streamedReplyIsStoredExactlyAsStreamed() {
+        MessageRequest request = new MessageRequest("hola", "stream-user");
+        request.setPriority(GenerationPriority.INTERACTIVE);
+
+        List<ChatStreamEvent> events = conversationService
+                .processMessageStream(request, RequestDeadline.after(Duration.ofSeconds(10)))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        String streamed = events.stream()
+                .filter(event -> event.getType() == ChatStreamEvent.EventType.CHUNK)
+                .map(ChatStreamEvent::getContent)
+                .collect(Collectors.joining());
+        ChatStreamEvent completed = events.get(events.size() - 1);
+        assertEquals(ChatStreamEvent.EventType.COMPLETE, completed.getType());
+        assertFalse(streamed.isBlank());
+        assertEquals(streamed, completed.getResponse().getAiResponse().getContent());
+
+        List<Message> stored = messageRepository.findByConversationIdOrderByCreatedAtAsc(
+                completed.getResponse().getConversationId());
+        assertEquals(2, stored.size());
+        assertEquals(streamed, stored.get(1).getContent());
+    }
+
+    private ChatResponse send(String conversationId, String content) {
+        MessageRequest request = new MessageRequest(content, "count-user");
+        request.setConversationId(conversationId);
+        request.setPriority(GenerationPriority.INTERACTIVE);
+
+        return conversationService.processMessageAsync(request, RequestDeadline.after(Duration.ofSeconds(10))).join();
+    }
+}
@@ -0,0 +1,105 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.model.entity.Conversation;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.ConversationRepository;
+import com.pm.chatbotwithai.repository.MessageRepository;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * While the breaker is open the fallback provider answers, and its demo text must never be
+ * stored as a conversation's summary.
+ */
+@SpringBootTest(properties = {
+        "chatbot.ai.provider=local",
+        "chatbot.ai.resilience.circuit-breaker.window-size=2",
+        "chatbot.ai.resilience.circuit-breaker.minimum-calls=2",
+        "chatbot.ai.resilience.circuit-breaker.open-duration-ms=60000",
+        "chatbot.conversation.summary.batch-messages=2",
+        "chatbot.health.probe-interval-ms=3600000"
+})
+class ConversationSummarizerFallbackTest {
+    private static final StandInInferenceServer server = start();
+
+    @Autowired
+    private ConversationSummarizer summarizer;
+
+    @Autowired
+    private AIModelService aiModelService;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @DynamicPropertySource
+    static void localEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("chatbot.ai.local.endpoint", server::getGenerateEndpoint);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void fallbackReplyIsNotStoredAsTheSummary() throws Exception {
+        Conversation conversation = conversationRepository.save(new Conversation("summary-fallback-user", "Resumen"));
+
+        for (int i = 0; i < 4; i++) {
+            Message message = i % 2 == 0
+                    ? new Message(conversation, "pregunta " + i)
+                    : new Message(conversation, "respuesta " + i, 10L, 0.9, "test");
+            conversation.addMessage(message);
+            messageRepository.save(message);
+        }
+        server.setErrorRate(1.0, 500);
+
+        for (int i = 0; i < 2; i++) {
+            aiModelService.generateResponseAsync("fallo " + i, null)
+                    .exceptionally(ex -> null)
+                    .get(5, TimeUnit.SECONDS);
+        }
+        assertEquals("OPEN", aiModelService.getResilienceStats().orElseThrow().getCircuitBreaker().getState());
+
+        long failuresBefore = summarizer.getStats().getFailedCount();
+        summarizer.onMessagesAdded(conversation.getId(), 4, 0);
+        awaitIdle(failuresBefore);
+
+        Conversation reloaded = conversationRepository.findById(conversation.getId()).orElseThrow();
+        assertEquals(failuresBefore + 1, summarizer.getStats().getFailedCount());
+        assertEquals(0, reloaded.getSummarizedMessageCount());
+        assertNull(reloaded.getSummary());
+    }
+
+    private void awaitIdle(long failuresBefore) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (summarizer.getStats().getInProgress() > 0 || (summarizer.getStats().getFailedCount() == failuresBefore
+                && summarizer.getStats().getCompletedCount() == 0)) {
+            assertTrue(System.currentTimeMillis() < deadline, "summarization did not finish in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private static StandInInferenceServer start() {
+        try {
+            return new StandInInferenceServer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
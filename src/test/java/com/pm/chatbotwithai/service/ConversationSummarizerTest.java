@@ -0,0 +1,100 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.model.entity.Conversation;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.ConversationRepository;
+import com.pm.chatbotwithai.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "chatbot.conversation.summary.batch-messages=2",
+        "chatbot.ai.mock.latency=none"
+})
+class ConversationSummarizerTest {
+
+    @Autowired
+    private ConversationSummarizer summarizer;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @MockitoSpyBean
+    private AIModelService aiModelService;
+
+    @Test
+    void oldestMessagesAreFoldedIntoTheSummaryInTheBackground() throws Exception {
+        Conversation conversation = conversationRepository.save(new Conversation("summary-user", "Resumen"));
+
+        for (int i = 0; i < 5; i++) {
+            Message message = i % 2 == 0
+                    ? new Message(conversation, "pregunta " + i)
+                    : new Message(conversation, "respuesta " + i, 10L, 0.9, "test");
+            conversation.addMessage(message);
+            messageRepository.save(message);
+        }
+        // Five messages, none summarized: not enough for a batch of two plus two recent ones yet
+        summarizer.onMessagesAdded(conversation.getId(), 3, 0);
+        summarizer.onMessagesAdded(conversation.getId(), 5, 0);
+
+        Conversation summarized = awaitSummary(conversation);
+        assertEquals(2, summarized.getSummarizedMessageCount());
+        assertNotNull(summarized.getSummary());
+
+        // Saving the stale copy the request path still holds must not roll the summary back
+        conversation.setTitle("Resumen actualizado");
+        conversationRepository.save(conversation);
+
+        Conversation reloaded = conversationRepository.findById(conversation.getId()).orElseThrow();
+        assertEquals("Resumen actualizado", reloaded.getTitle());
+        assertEquals(2, reloaded.getSummarizedMessageCount());
+        assertEquals(summarized.getSummary(), reloaded.getSummary());
+    }
+
+    @Test
+    void laterBatchesStartAfterTheSummarizedMessages() {
+        Conversation conversation = conversationRepository.save(new Conversation("summary-user-2", "Resumen"));
+
+        for (int i = 0; i < 7; i++) {
+            Message message = i % 2 == 0
+                    ? new Message(conversation, "pregunta " + i)
+                    : new Message(conversation, "respuesta " + i, 10L, 0.9, "test");
+            conversation.addMessage(message);
+            messageRepository.save(message);
+        }
+        conversationRepository.advanceSummary(conversation.getId(), "Resumen previo", 2, 0);
+
+        summarizer.onMessagesAdded(conversation.getId(), 7, 2);
+
+        ArgumentCaptor<String> transcript = ArgumentCaptor.forClass(String.class);
+        verify(aiModelService, timeout(5000)).summarizeAsync(eq("Resumen previo"), transcript.capture(), anyInt());
+        assertEquals("Usuario: pregunta 2\nAsistente: respuesta 3\n", transcript.getValue());
+    }
+
+    private Conversation awaitSummary(Conversation conversation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (System.currentTimeMillis() < deadline) {
+            Conversation current = conversationRepository.findById(conversation.getId()).orElseThrow();
+
+            if (current.getSummarizedMessageCount() > 0 && summarizer.getStats().getInProgress() == 0) {
+                return current;
+            }
+            Thread.sleep(20);
+        }
+        fail("Conversation was not summarized: " + summarizer.getStats().getFailedCount() + " failures");
+        return null;
+    }
+}
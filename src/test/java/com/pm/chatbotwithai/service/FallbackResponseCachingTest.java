@@ -0,0 +1,121 @@
+package com.pm.chatbotwithai.service;
+
+import com.pm.chatbotwithai.service.resilience.CircuitBreaker;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A reply served by the fallback while the breaker is open must not be cached under the real
+ * provider's key: once the breaker closes, the same prompt has to reach the provider again.
+ */
+@SpringBootTest(properties = {
+        "chatbot.ai.provider=local",
+        "chatbot.ai.resilience.circuit-breaker.window-size=2",
+        "chatbot.ai.resilience.circuit-breaker.minimum-calls=2",
+        "chatbot.ai.resilience.circuit-breaker.open-duration-ms=300",
+        "chatbot.ai.resilience.circuit-breaker.half-open-calls=1",
+        "chatbot.health.probe-interval-ms=3600000"
+})
+class FallbackResponseCachingTest {
+    private static final StandInInferenceServer server = start();
+
+    @Autowired
+    private AIModelService aiModelService;
+
+    @DynamicPropertySource
+    static void localEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("chatbot.ai.local.endpoint", server::getGenerateEndpoint);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void fallbackReplyIsNotServedFromTheCacheOnceTheBreakerCloses() throws Exception {
+        openBreaker();
+
+        int callsBefore = server.getGenerateCalls();
+        aiModelService.generateResponseAsync("hola", null).get(5, TimeUnit.SECONDS);
+        assertEquals(callsBefore, server.getGenerateCalls());
+
+        closeBreaker();
+        aiModelService.generateResponseAsync("hola", null).get(5, TimeUnit.SECONDS);
+
+        assertEquals(callsBefore + 1, server.getGenerateCalls());
+    }
+
+    @Test
+    void streamedFallbackReplyIsNotServedFromTheCacheOnceTheBreakerCloses() throws Exception {
+        openBreaker();
+
+        int callsBefore = server.getGenerateCalls();
+        String fallback = stream("¿qué tiempo hace mañana?");
+        assertFalse(fallback.isEmpty());
+        assertEquals(callsBefore, server.getGenerateCalls());
+
+        closeBreaker();
+        stream("¿qué tiempo hace mañana?");
+
+        assertEquals(callsBefore + 1, server.getGenerateCalls());
+    }
+
+    private void openBreaker() throws Exception {
+        server.setErrorRate(1.0, 500);
+
+        for (int i = 0; i < 2; i++) {
+            aiModelService.generateResponseAsync("fallo " + System.nanoTime(), null)
+                    .exceptionally(ex -> null)
+                    .get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(CircuitBreaker.State.OPEN.name(), breakerState());
+        server.setErrorRate(0, 500);
+    }
+
+    // The first call after the open period is the single half-open trial; it closes the breaker
+    private void closeBreaker() throws InterruptedException {
+        waitUntil(() -> CircuitBreaker.State.HALF_OPEN.name().equals(breakerState()));
+    }
+
+    private String breakerState() {
+        return aiModelService.getResilienceStats().orElseThrow().getCircuitBreaker().getState();
+    }
+
+    private String stream(String input) {
+        return aiModelService.generateResponseStream(input, null)
+                .collect(Collectors.joining())
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static StandInInferenceServer start() {
+        try {
+            return new StandInInferenceServer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancedLocalAIProviderTest {
+    private StandInInferenceServer first;
+    private StandInInferenceServer second;
+    private LoadBalancedLocalAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        first = new StandInInferenceServer();
+        second = new StandInInferenceServer();
+        WebClient webClient = WebClient.create();
+
+        provider = new LoadBalancedLocalAIProvider(
+                List.of(first.getGenerateEndpoint(), second.getGenerateEndpoint()),
+                endpoint -> new LocalAIProvider(endpoint, "", webClient),
+                Duration.ofMinutes(10));
+        provider.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void requestsAreSpreadAcrossHealthyEndpoints() throws Exception {
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals("Respuesta a hola", provider.generateResponse(request("hola")).getResponse());
+        }
+        assertTrue(first.getGenerateCalls() > 0);
+        assertTrue(second.getGenerateCalls() > 0);
+        assertEquals(40, provider.getEndpointStats().stream()
+                .mapToLong(LoadBalancedLocalAIProvider.EndpointStats::getRequestCount)
+                .sum());
+    }
+
+    @Test
+    void endpointFailingHealthCheckIsEjected() throws Exception {
+        second.close();
+        provider.checkEndpoints();
+
+        for (int i = 0; i < 10; i++) {
+            provider.generateResponse(request("hola"));
+        }
+        assertEquals(10, first.getGenerateCalls());
+        assertFalse(provider.getEndpointStats().get(1).isHealthy());
+    }
+
+    @Test
+    void endpointWithoutSamplesIsNotFloodedWithRequests() throws Exception {
+        Map<String, HeldProvider> delegates = new LinkedHashMap<>();
+        LoadBalancedLocalAIProvider balancer = new LoadBalancedLocalAIProvider(List.of("a", "b"),
+                url -> delegates.computeIfAbsent(url, key -> new HeldProvider()), Duration.ofMinutes(10));
+        balancer.initialize();
+
+        // One finished request gives one endpoint a latency sample; the other has none
+        balancer.generateResponseAsync(request("hola"), null);
+        HeldProvider seasoned = delegates.values().stream().filter(d -> !d.pending.isEmpty()).findFirst().orElseThrow();
+        seasoned.pending.remove(0).complete(new AIProvider.GenerationResponse("ok", 1.0, "test"));
+
+        for (int i = 0; i < 3; i++) {
+            balancer.generateResponseAsync(request("hola"), null);
+        }
+        delegates.values().forEach(delegate -> assertFalse(delegate.pending.isEmpty()));
+        balancer.shutdown();
+    }
+
+    @Test
+    void initializationAndHealthChecksReachEveryEndpoint() throws Exception {
+        Map<String, HeldProvider> delegates = new LinkedHashMap<>();
+        LoadBalancedLocalAIProvider balancer = new LoadBalancedLocalAIProvider(List.of("a", "b"),
+                url -> delegates.computeIfAbsent(url, key -> new HeldProvider()), Duration.ofMinutes(10));
+        balancer.initialize();
+        delegates.values().forEach(delegate -> assertEquals(1, delegate.initializations));
+
+        delegates.get("b").healthy = false;
+        balancer.healthCheck();
+
+        assertFalse(balancer.getEndpointStats().get(1).isHealthy());
+        delegates.get("a").healthy = false;
+        assertThrows(RuntimeException.class, balancer::healthCheck);
+        balancer.shutdown();
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return new AIProvider.GenerationRequest.Builder()
+                .input(input)
+                .timeoutSeconds(5)
+                .build();
+    }
+
+    // Keeps every call pending until the test completes it
+    private static final class HeldProvider implements AIProvider {
+        private final List<CompletableFuture<GenerationResponse>> pending = new ArrayList<>();
+        private int initializations;
+        private volatile boolean healthy = true;
+
+        @Override
+        public void initialize() {
+            initializations++;
+        }
+
+        @Override
+        public GenerationResponse generateResponse(GenerationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<GenerationResponse> generateResponseAsync(GenerationRequest request, Executor executor) {
+            CompletableFuture<GenerationResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }
+
+        @Override
+        public void healthCheck() {
+
+            if (!healthy) {
+                throw new IllegalStateException("down");
+            }
+        }
+
+        @Override
+        public String getModelVersion() {
+            return "held";
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
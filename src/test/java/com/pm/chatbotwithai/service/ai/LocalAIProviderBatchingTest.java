@@ -0,0 +1,76 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAIProviderBatchingTest {
+    private StandInInferenceServer server;
+    private LocalAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StandInInferenceServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void fullBatchIsSentAsOneCallAndFannedOutInOrder() {
+        provider = new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create(),
+                4, Duration.ofSeconds(5));
+
+        List<CompletableFuture<AIProvider.GenerationResponse>> futures = IntStream.range(0, 4)
+                .mapToObj(i -> provider.generateResponseAsync(request("pregunta " + i), null))
+                .toList();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("Respuesta a pregunta " + i, futures.get(i).join().getResponse());
+        }
+        assertEquals(List.of(4), server.getBatchSizes());
+        assertEquals(0, server.getGenerateCalls());
+    }
+
+    @Test
+    void partialBatchIsFlushedAfterLinger() throws Exception {
+        provider = new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create(),
+                8, Duration.ofMillis(20));
+
+        AIProvider.GenerationResponse response = provider.generateResponse(request("hola"));
+
+        assertEquals("Respuesta a hola", response.getResponse());
+        assertEquals(List.of(1), server.getBatchSizes());
+    }
+
+    @Test
+    void batchingDisabledUsesSingleGenerateEndpoint() throws Exception {
+        provider = new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create());
+
+        assertEquals("Respuesta a hola", provider.generateResponse(request("hola")).getResponse());
+        assertEquals(1, server.getGenerateCalls());
+        assertEquals(0, server.getBatchCalls());
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return new AIProvider.GenerationRequest.Builder()
+                .input(input)
+                .context("Usuario: " + input)
+                .timeoutSeconds(5)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAIProviderTest {
+    private StandInInferenceServer server;
+    private LocalAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StandInInferenceServer();
+        provider = new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.close();
+    }
+
+    @Test
+    void generationRequestCarriesInputContextAndLimits() throws Exception {
+        AIProvider.GenerationRequest request = new AIProvider.GenerationRequest.Builder()
+                .input("hola")
+                .context("Usuario: hola")
+                .maxTokens(64)
+                .prefixId("conversation-1")
+                .build();
+
+        AIProvider.GenerationResponse response = provider.generateResponse(request);
+
+        assertEquals("Respuesta a hola", response.getResponse());
+        assertEquals(0.9, response.getConfidence());
+        JsonNode body = server.getLastRequestBody();
+        assertEquals("hola", body.path("input").asText());
+        assertEquals("Usuario: hola", body.path("context").asText());
+        assertEquals(64, body.path("max_tokens").asInt());
+        assertFalse(body.path("stream").asBoolean());
+        assertEquals("conversation-1", body.path("prefix_id").asText());
+        assertTrue(server.getLastRequestHeader("Content-Type").startsWith("application/json"));
+    }
+
+    @Test
+    void errorStatusIsReportedWithTheResponseStatus() {
+        server.setErrorRate(1.0, 503);
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(request("hola"), null).join());
+
+        WebClientResponseException cause = assertInstanceOf(WebClientResponseException.class,
+                failure.getCause().getCause());
+        assertEquals(503, cause.getStatusCode().value());
+    }
+
+    @Test
+    void slowServerFailsTheCallAtTheRequestTimeout() {
+        server.setLatency(MockLatencyModel.parse("fixed:2000"));
+
+        long start = System.nanoTime();
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(shortRequest("hola"), null).join());
+
+        assertInstanceOf(TimeoutException.class, failure.getCause().getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    void ndjsonStreamYieldsTokensUntilTheDoneLine() {
+        List<String> tokens = provider.streamResponse(request("hola mundo")).collectList().block();
+
+        assertEquals(List.of("Respuesta ", "a ", "hola ", "mundo"), tokens);
+        assertTrue(server.getLastRequestBody().path("stream").asBoolean());
+        assertEquals("application/x-ndjson", server.getLastRequestHeader("Accept"));
+    }
+
+    @Test
+    void slowStreamFailsAtTheRequestTimeout() {
+        server.setTokensPerSecond(2);
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> provider.streamResponse(shortRequest("hola mundo")).collectList().block());
+
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return new AIProvider.GenerationRequest.Builder()
+                .input(input)
+                .timeoutSeconds(5)
+                .build();
+    }
+
+    // The deadline caps the configured timeout, which only comes in whole seconds
+    private static AIProvider.GenerationRequest shortRequest(String input) {
+        return new AIProvider.GenerationRequest.Builder()
+                .input(input)
+                .timeoutSeconds(5)
+                .deadline(RequestDeadline.after(Duration.ofMillis(200)))
+                .build();
+    }
+}
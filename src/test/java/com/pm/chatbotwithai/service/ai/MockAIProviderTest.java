@@ -0,0 +1,96 @@
+package com.pm.chatbotwithai.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockAIProviderTest {
+
+    @Test
+    void sameSeedAndRequestGiveTheSameAnswer() throws Exception {
+        MockAIProvider first = initialized(new MockAIProvider(512, 0.5, 42, MockLatencyModel.NONE, 0));
+        MockAIProvider second = initialized(new MockAIProvider(512, 0.5, 42, MockLatencyModel.NONE, 0));
+
+        AIProvider.GenerationResponse a = first.generateResponse(request("¿qué hora es?"));
+        AIProvider.GenerationResponse b = second.generateResponseAsync(request("¿qué hora es?"), null).join();
+
+        assertEquals(a.getResponse(), b.getResponse());
+        assertEquals(a.getConfidence(), b.getConfidence());
+    }
+
+    @Test
+    void delayedResponsesDoNotHoldExecutorThreads() throws Exception {
+        MockAIProvider provider = initialized(new MockAIProvider(512, 0.5, 1, MockLatencyModel.fixed(200), 0));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<AIProvider.GenerationResponse>> futures = IntStream.range(0, 50)
+                    .mapToObj(i -> provider.generateResponseAsync(request("hola " + i), executor))
+                    .toList();
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Sleeping on two threads would take 50 * 200 / 2 ms
+            assertTrue(elapsedMillis < 2000, "took " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    void logNormalSamplesAreCenteredOnTheMedian() {
+        MockLatencyModel model = MockLatencyModel.parse("lognormal:120,0.6");
+        SplittableRandom random = new SplittableRandom(7);
+        long[] samples = IntStream.range(0, 10_001).mapToLong(i -> model.sampleMillis(random)).sorted().toArray();
+
+        assertEquals(120, samples[5_000], 10);
+        assertTrue(samples[9_900] > 400);
+    }
+
+    @Test
+    void histogramSamplesStayInsideTheRecordedBuckets() {
+        MockLatencyModel model = MockLatencyModel.parse("histogram:100=3,500=1");
+        SplittableRandom random = new SplittableRandom(7);
+        long[] samples = IntStream.range(0, 4_000).mapToLong(i -> model.sampleMillis(random)).toArray();
+        long fast = Arrays.stream(samples).filter(sample -> sample < 100).count();
+
+        assertTrue(Arrays.stream(samples).allMatch(sample -> sample >= 0 && sample < 500));
+        assertEquals(3_000, fast, 150);
+    }
+
+    @Test
+    void malformedSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MockLatencyModel.parse("fixed"));
+        assertThrows(IllegalArgumentException.class, () -> MockLatencyModel.parse("gamma:1,2"));
+        assertSame(MockLatencyModel.NONE, MockLatencyModel.parse("none"));
+    }
+
+    @Test
+    void streamIsPacedByTokensPerSecond() throws Exception {
+        MockAIProvider provider = initialized(new MockAIProvider(512, 0.5, 1, MockLatencyModel.NONE, 100));
+        long start = System.nanoTime();
+
+        List<String> chunks = provider.streamResponse(request("hola")).collectList().block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // One chunk every 10 ms
+        assertNotNull(chunks);
+        assertTrue(elapsedMillis >= chunks.size() * 10L - 5, "took " + elapsedMillis + " ms");
+    }
+
+    private static MockAIProvider initialized(MockAIProvider provider) throws Exception {
+        provider.initialize();
+        return provider;
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return AIProvider.GenerationRequest.builder().input(input).build();
+    }
+}
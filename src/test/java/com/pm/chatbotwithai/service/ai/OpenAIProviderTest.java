@@ -0,0 +1,118 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIProviderTest {
+    private StandInInferenceServer server;
+    private OpenAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StandInInferenceServer();
+        provider = new OpenAIProvider("test-key", "stand-in-model", WebClient.create(),
+                server.getChatCompletionsEndpoint());
+        provider.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.close();
+    }
+
+    @Test
+    void completionIsReadFromTheFirstChoice() throws Exception {
+        assertEquals("Respuesta a hola", provider.generateResponse(request("hola")).getResponse());
+        assertEquals(1, server.getChatCompletionCalls());
+    }
+
+    @Test
+    void completionRequestIsAuthenticatedAndCarriesTheModel() throws Exception {
+        provider.generateResponse(AIProvider.GenerationRequest.builder().input("hola").maxTokens(64).build());
+
+        JsonNode body = server.getLastRequestBody();
+        assertEquals("Bearer test-key", server.getLastRequestHeader("Authorization"));
+        assertEquals("stand-in-model", body.path("model").asText());
+        assertEquals("user", body.path("messages").get(0).path("role").asText());
+        assertEquals("hola", body.path("messages").get(0).path("content").asText());
+        assertEquals(64, body.path("max_tokens").asInt());
+        assertFalse(body.path("stream").asBoolean());
+    }
+
+    @Test
+    void streamedDeltasAddUpToTheAnswer() {
+        List<String> chunks = provider.streamResponse(request("hola mundo")).collectList().block();
+
+        assertNotNull(chunks);
+        assertEquals(4, chunks.size());
+        assertEquals("Respuesta a hola mundo", String.join("", chunks));
+    }
+
+    @Test
+    void streamEndsAtTheDoneMarkerWithoutParsingIt() {
+        List<String> chunks = provider.streamResponse(request("hola")).collectList().block();
+
+        assertEquals(List.of("Respuesta ", "a ", "hola"), chunks);
+        assertTrue(server.getLastRequestBody().path("stream").asBoolean());
+        assertEquals("text/event-stream", server.getLastRequestHeader("Accept"));
+    }
+
+    @Test
+    void errorStatusIsReportedWithTheResponseStatus() {
+        server.setErrorRate(1.0, 429);
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(request("hola"), null).join());
+
+        WebClientResponseException cause = assertInstanceOf(WebClientResponseException.class,
+                failure.getCause().getCause());
+        assertEquals(429, cause.getStatusCode().value());
+    }
+
+    @Test
+    void slowServerFailsTheCallAtTheRequestTimeout() {
+        server.setLatency(MockLatencyModel.parse("fixed:2000"));
+        AIProvider.GenerationRequest request = AIProvider.GenerationRequest.builder()
+                .input("hola")
+                .deadline(RequestDeadline.after(Duration.ofMillis(200)))
+                .build();
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(request, null).join());
+
+        assertInstanceOf(TimeoutException.class, failure.getCause().getCause());
+    }
+
+    @Test
+    void injectedErrorsAndResetsSurfaceAsFailures() {
+        server.setErrorRate(1.0, 503);
+        assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(request("hola"), null).join());
+
+        server.setErrorRate(0, 500);
+        server.setResetRate(1.0);
+        assertThrows(CompletionException.class,
+                () -> provider.generateResponseAsync(request("hola"), null).join());
+
+        assertEquals(1, server.getInjectedErrors());
+        assertEquals(1, server.getInjectedResets());
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return AIProvider.GenerationRequest.builder().input(input).build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.pm.chatbotwithai.service.ai;
+
+import com.pm.chatbotwithai.exception.ProviderUnavailableException;
+import com.pm.chatbotwithai.exception.ServiceOverloadedException;
+import com.pm.chatbotwithai.service.resilience.Bulkhead;
+import com.pm.chatbotwithai.service.resilience.CircuitBreaker;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientAIProviderTest {
+    private StandInInferenceServer server;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private ResilientAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StandInInferenceServer(0, 4, 7);
+        circuitBreaker = new CircuitBreaker("stand-in", 10, 10, 0.5, 1.0,
+                Duration.ofSeconds(10), Duration.ofMinutes(1), 1);
+        MockAIProvider fallback = new MockAIProvider(512, 0.5, 1, MockLatencyModel.NONE, 0);
+        fallback.initialize();
+
+        bulkhead = new Bulkhead("stand-in", 50);
+        provider = new ResilientAIProvider(
+                new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create()),
+                fallback, circuitBreaker, bulkhead);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.close();
+    }
+
+    @Test
+    void breakerOpensOnInjectedFailuresAndCallsMoveToTheFallback() throws Exception {
+        server.setErrorRate(0.6, 500);
+        server.setResetRate(0.2);
+
+        for (int i = 0; i < 10; i++) {
+            provider.generateResponseAsync(request("hola"), null).exceptionally(ex -> null).join();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        int callsBefore = server.getGenerateCalls() + server.getInjectedErrors() + server.getInjectedResets();
+        AIProvider.GenerationResponse response = provider.generateResponse(request("hola"));
+
+        assertEquals("mock-1.0", response.getModelVersion());
+        assertEquals(callsBefore, server.getGenerateCalls() + server.getInjectedErrors() + server.getInjectedResets());
+    }
+
+    @Test
+    void concurrencyCapQueuesGenerationsOnTheServer() {
+        server.setLatency(MockLatencyModel.fixed(50));
+
+        List<CompletableFuture<AIProvider.GenerationResponse>> futures = IntStream.range(0, 12)
+                .mapToObj(i -> provider.generateResponseAsync(request("pregunta " + i), null))
+                .toList();
+
+        futures.forEach(CompletableFuture::join);
+        assertEquals(4, server.getMaxInFlight());
+    }
+
+    @Test
+    void cancelledCallFreesItsPermitWithoutCountingAsAFailure() throws Exception {
+        server.setLatency(MockLatencyModel.fixed(2_000));
+
+        CompletableFuture<AIProvider.GenerationResponse> future = provider.generateResponseAsync(request("hola"), null);
+        Thread.sleep(100);
+        future.cancel(true);
+
+        assertEquals(0, bulkhead.getStats().getInFlight());
+        assertEquals(0, circuitBreaker.getStats().getBufferedCalls());
+    }
+
+    @Test
+    void callsOverTheConcurrencyLimitFailFastInsteadOfFallingBack() throws Exception {
+        server.setLatency(MockLatencyModel.fixed(500));
+        MockAIProvider fallback = new MockAIProvider(512, 0.5, 1, MockLatencyModel.NONE, 0);
+        fallback.initialize();
+        ResilientAIProvider singleSlot = new ResilientAIProvider(
+                new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create()),
+                fallback, circuitBreaker, new Bulkhead("stand-in", 1));
+
+        CompletableFuture<AIProvider.GenerationResponse> first = singleSlot.generateResponseAsync(request("hola"), null);
+        CompletableFuture<AIProvider.GenerationResponse> second = singleSlot.generateResponseAsync(request("hola"), null);
+
+        CompletionException rejection = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(ServiceOverloadedException.class, rejection.getCause());
+        assertFalse(first.join().isDegraded());
+        assertEquals(0, singleSlot.getStats().getFallbackCount());
+    }
+
+    @Test
+    void hedgeIsNeverServedByTheFallback() {
+        server.setErrorRate(1.0, 500);
+
+        for (int i = 0; i < 10; i++) {
+            provider.generateResponseAsync(request("hola"), null).exceptionally(ex -> null).join();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        long fallbacksBefore = provider.getStats().getFallbackCount();
+
+        CompletionException rejection = assertThrows(CompletionException.class,
+                () -> provider.generateHedgeAsync(request("hola"), null).join());
+
+        assertInstanceOf(ProviderUnavailableException.class, rejection.getCause());
+        assertEquals(fallbacksBefore, provider.getStats().getFallbackCount());
+        assertEquals(0, bulkhead.getStats().getInFlight());
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return AIProvider.GenerationRequest.builder().input(input).build();
+    }
+}
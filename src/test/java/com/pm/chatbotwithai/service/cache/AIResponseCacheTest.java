@@ -0,0 +1,112 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pm.chatbotwithai.config.CacheConfig;
+import com.pm.chatbotwithai.service.ai.AIProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AIResponseCacheTest {
+
+    private static final AIProvider.GenerationResponse GREETING =
+            new AIProvider.GenerationResponse("¡Hola! ¿En qué puedo ayudarte?", 0.9, "mock-1.0");
+
+    private static AIResponseCache newCache(Caffeine<Object, Object> caffeine) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.AI_RESPONSE_CACHE);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(caffeine.recordStats());
+        return new AIResponseCache(cacheManager);
+    }
+
+    @Test
+    void sameInputAndContextGiveTheSameKey() {
+        AIResponseCache cache = newCache(Caffeine.newBuilder());
+
+        cache.put(cache.keyFor("Mock", request("hola")), GREETING);
+
+        assertEquals(GREETING, cache.get(cache.keyFor("mock", request("hola"))).orElseThrow());
+        assertEquals(1, cache.getStats().getHitCount());
+    }
+
+    @Test
+    void statsCountHitsAndMisses() {
+        AIResponseCache cache = newCache(Caffeine.newBuilder());
+        AIResponseCache.ResponseCacheKey key = cache.keyFor("mock", request("hola"));
+
+        assertTrue(cache.get(key).isEmpty());
+        cache.put(key, GREETING);
+        cache.get(key);
+        cache.get(key);
+
+        AIResponseCache.ResponseCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2.0 / 3, stats.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void blankResponsesAreNotCached() {
+        AIResponseCache cache = newCache(Caffeine.newBuilder());
+        AIResponseCache.ResponseCacheKey key = cache.keyFor("mock", request("hola"));
+
+        cache.put(key, new AIProvider.GenerationResponse("  ", 0.9, "mock-1.0"));
+
+        assertTrue(cache.get(key).isEmpty());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        AtomicLong nanos = new AtomicLong();
+        AIResponseCache cache = newCache(Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(60))
+                .ticker(nanos::get));
+        AIResponseCache.ResponseCacheKey key = cache.keyFor("mock", request("hola"));
+        cache.put(key, GREETING);
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(59));
+        assertTrue(cache.get(key).isPresent());
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertTrue(cache.get(key).isEmpty());
+    }
+
+    @Test
+    void sizeBoundEvictsEntries() {
+        AIResponseCache cache = newCache(Caffeine.newBuilder()
+                .maximumSize(2)
+                .executor(Runnable::run));
+
+        for (String input : new String[] {"uno", "dos", "tres", "cuatro"}) {
+            cache.put(cache.keyFor("mock", request(input)), GREETING);
+        }
+
+        AIResponseCache.ResponseCacheStats stats = cache.getStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(2, stats.getEvictionCount());
+    }
+
+    @Test
+    void inputIsKeyedAsSentLikeTheContextThatRepeatsIt() {
+        AIResponseCache cache = newCache(Caffeine.newBuilder());
+
+        AIResponseCache.ResponseCacheKey upper = cache.keyFor("mock", request("Hola"));
+        AIResponseCache.ResponseCacheKey lower = cache.keyFor("mock", request("hola"));
+
+        assertEquals("Hola", upper.getInput());
+        assertNotEquals(upper, lower);
+    }
+
+    private static AIProvider.GenerationRequest request(String input) {
+        return AIProvider.GenerationRequest.builder()
+                .input(input)
+                .context("Usuario: " + input)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.pm.chatbotwithai.model.dto.request.MessageRequest;
+import com.pm.chatbotwithai.model.dto.response.ChatStreamEvent;
+import com.pm.chatbotwithai.service.ConversationService;
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import com.pm.chatbotwithai.service.resilience.RequestDeadline;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The response cache holds raw provider text, so a stream served from it must still be moderated.
+ * The test lexicon blocks "placer", which the mock provider's reply to "hola" contains.
+ */
+@SpringBootTest(properties = {
+        "chatbot.ai.mock.latency=none",
+        "chatbot.moderation.lexicon-location=classpath:moderation-test/",
+        "chatbot.moderation.locales=es",
+        "chatbot.moderation.output.mode=redact"
+})
+class CachedStreamModerationTest {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private AIResponseCache responseCache;
+
+    @Test
+    void streamServedFromTheCacheIsModeratedAgain() {
+        responseCache.clear();
+        long hitsBefore = responseCache.getStats().getHitCount();
+
+        String fresh = stream("cached-stream-user-1");
+        String cached = stream("cached-stream-user-2");
+
+        assertEquals(hitsBefore + 1, responseCache.getStats().getHitCount());
+        assertTrue(fresh.contains("******"), fresh);
+        assertFalse(fresh.toLowerCase().contains("placer"), fresh);
+        assertEquals(fresh, cached);
+    }
+
+    private String stream(String userId) {
+        MessageRequest request = new MessageRequest("hola", userId);
+        request.setLocale("es");
+        request.setPriority(GenerationPriority.INTERACTIVE);
+
+        return conversationService.processMessageStream(request, RequestDeadline.after(Duration.ofSeconds(10)))
+                .filter(event -> event.getType() == ChatStreamEvent.EventType.CHUNK)
+                .map(ChatStreamEvent::getContent)
+                .collect(Collectors.joining())
+                .block(Duration.ofSeconds(10));
+    }
+}
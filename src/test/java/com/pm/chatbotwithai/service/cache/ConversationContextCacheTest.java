@@ -0,0 +1,71 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.pm.chatbotwithai.model.entity.Conversation;
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.repository.ConversationRepository;
+import com.pm.chatbotwithai.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "chatbot.conversation.context-window=4",
+        "chatbot.ai.mock.latency=none"
+})
+class ConversationContextCacheTest {
+
+    @Autowired
+    private ConversationContextCache contextCache;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void missLoadsOnlyTheNewestMessagesAndWritesKeepTheRingCurrent() {
+        Conversation conversation = conversationRepository.save(new Conversation("context-user", "Contexto"));
+
+        for (int i = 0; i < 10; i++) {
+            messageRepository.save(new Message(conversation, "mensaje " + i));
+        }
+        ConversationContextCache.RecentContext loaded = contextCache.get(conversation.getId());
+
+        assertEquals(List.of("mensaje 9", "mensaje 8", "mensaje 7", "mensaje 6"), contents(loaded));
+        assertEquals(10, loaded.getTotalMessages());
+
+        Message saved = messageRepository.save(new Message(conversation, "respuesta", 5L, 0.9, "test"));
+        contextCache.onMessageSaved(saved);
+        // Seen twice, as when a save races with the load that already picked it up
+        contextCache.onMessageSaved(saved);
+        long missesBefore = contextCache.getStats().getMissCount();
+
+        ConversationContextCache.RecentContext updated = contextCache.get(conversation.getId());
+
+        assertEquals(List.of("respuesta", "mensaje 9", "mensaje 8", "mensaje 7"), contents(updated));
+        assertEquals(11, updated.getTotalMessages());
+        assertFalse(updated.getNewestFirst().get(0).isFromUser());
+        assertEquals(missesBefore, contextCache.getStats().getMissCount());
+    }
+
+    @Test
+    void savesToUncachedConversationsArePickedUpByTheNextLoad() {
+        Conversation conversation = conversationRepository.save(new Conversation("context-user", "Nueva"));
+        Message saved = messageRepository.save(new Message(conversation, "hola"));
+        contextCache.onMessageSaved(saved);
+
+        ConversationContextCache.RecentContext loaded = contextCache.get(conversation.getId());
+
+        assertEquals(List.of("hola"), contents(loaded));
+        assertEquals(1, loaded.getTotalMessages());
+    }
+
+    private static List<String> contents(ConversationContextCache.RecentContext context) {
+        return context.getNewestFirst().stream().map(Message::getContent).toList();
+    }
+}
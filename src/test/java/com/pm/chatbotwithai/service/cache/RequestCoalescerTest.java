@@ -0,0 +1,75 @@
+package com.pm.chatbotwithai.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    @Test
+    void concurrentCallsWithSameKeyShareOneExecution() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = coalescer.execute("hola", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = coalescer.execute("hola", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("unexpected");
+        });
+        upstream.complete("respuesta");
+
+        assertEquals("respuesta", first.join());
+        assertEquals("respuesta", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1, coalescer.getStats().getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelTheSharedCall() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.execute("hola", () -> upstream);
+        CompletableFuture<String> follower = coalescer.execute("hola", () -> upstream);
+        leader.cancel(true);
+        upstream.complete("respuesta");
+
+        assertFalse(upstream.isCancelled());
+        assertTrue(leader.isCancelled());
+        assertEquals("respuesta", follower.join());
+    }
+
+    @Test
+    void cancellingEveryCallerCancelsTheSharedCall() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.execute("hola", () -> upstream);
+        CompletableFuture<String> follower = coalescer.execute("hola", () -> upstream);
+        leader.cancel(true);
+        follower.cancel(true);
+
+        assertTrue(upstream.isCancelled());
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(1, coalescer.getStats().getAbandonedCount());
+        assertEquals("nueva", coalescer.execute("hola", () -> CompletableFuture.completedFuture("nueva")).join());
+    }
+
+    @Test
+    void failedCallIsSharedAndNotRetainedForLaterCallers() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+        CompletableFuture<String> failed = coalescer.execute("hola",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("ok", coalescer.execute("hola", () -> CompletableFuture.completedFuture("ok")).join());
+    }
+}
@@ -0,0 +1,77 @@
+package com.pm.chatbotwithai.service.cache;
+
+import com.pm.chatbotwithai.service.ai.AIProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticResponseCacheTest {
+
+    private static final AIProvider.GenerationResponse GREETING =
+            new AIProvider.GenerationResponse("¡Hola! ¿En qué puedo ayudarte?", 0.9, "mock-1.0");
+
+    private SemanticResponseCache newCache(int maxEntries) {
+        return new SemanticResponseCache(true, 0.85, maxEntries, 60, 16, Set.of());
+    }
+
+    @Test
+    void normalizeFoldsAccentsCaseAndPunctuation() {
+        assertEquals("hola como estas", SemanticResponseCache.normalize("Hola, ¿cómo estás?"));
+        assertEquals("hola como estas", SemanticResponseCache.normalize("  hola   como estas "));
+    }
+
+    @Test
+    void servesParaphrasedPromptFromCache() {
+        SemanticResponseCache cache = newCache(100);
+        cache.put("mock", "hola, ¿cómo estás?", GREETING);
+
+        assertSame(GREETING, cache.findSimilar("mock", "Hola como estas").orElseThrow());
+        assertEquals(1, cache.getStats().getHitCount());
+    }
+
+    @Test
+    void doesNotServeUnrelatedPromptsOrOtherScopes() {
+        SemanticResponseCache cache = newCache(100);
+        cache.put("mock", "hola, ¿cómo estás?", GREETING);
+
+        assertTrue(cache.findSimilar("mock", "¿qué tiempo hace mañana en Madrid?").isEmpty());
+        assertTrue(cache.findSimilar("openai", "hola como estas").isEmpty());
+        assertEquals(2, cache.getStats().getMissCount());
+    }
+
+    @Test
+    void staysWithinEntryLimitAndKeepsPopularEntries() {
+        SemanticResponseCache cache = newCache(20);
+        cache.put("mock", "hola, ¿cómo estás?", GREETING);
+
+        for (int i = 0; i < 50; i++) {
+
+            // Served again between two passes of the eviction queue
+            if (i % 10 == 0) {
+                assertTrue(cache.findSimilar("mock", "hola como estas").isPresent(), "after " + i);
+            }
+            cache.put("mock", "pregunta frecuente número " + i + " sobre facturación " + (i * 7919),
+                    new AIProvider.GenerationResponse("respuesta " + i, 0.9, "mock-1.0"));
+        }
+
+        assertEquals(20, cache.getStats().getSize());
+        assertEquals(31, cache.getStats().getEvictionCount());
+        assertTrue(cache.findSimilar("mock", "hola como estas").isPresent());
+    }
+
+    @Test
+    void storingTheSamePromptAgainReplacesItsEntry() {
+        SemanticResponseCache cache = newCache(100);
+        AIProvider.GenerationResponse newer = new AIProvider.GenerationResponse("¡Buenas!", 0.9, "mock-1.0");
+
+        cache.put("mock", "hola, ¿cómo estás?", GREETING);
+        cache.put("mock", "Hola como estás", newer);
+        cache.put("openai", "hola, ¿cómo estás?", GREETING);
+
+        assertEquals(2, cache.getStats().getSize());
+        assertSame(newer, cache.findSimilar("mock", "hola como estas").orElseThrow());
+        assertEquals(0, cache.getStats().getEvictionCount());
+    }
+}
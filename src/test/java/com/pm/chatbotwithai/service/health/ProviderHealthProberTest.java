@@ -0,0 +1,84 @@
+package com.pm.chatbotwithai.service.health;
+
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "chatbot.ai.provider=local",
+        "chatbot.health.probe-interval-ms=3600000",
+        "chatbot.health.readiness-failure-threshold=2"
+})
+@AutoConfigureMockMvc
+class ProviderHealthProberTest {
+    private static final StandInInferenceServer server = start();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ProviderHealthProber prober;
+
+    @DynamicPropertySource
+    static void localEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("chatbot.ai.local.endpoint", server::getGenerateEndpoint);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void healthEndpointsAreServedFromTheLastProbe() throws Exception {
+        prober.probe();
+        int upstreamCalls = server.getHealthCalls();
+
+        for (int i = 0; i < 50; i++) {
+            mvc.perform(get("/api/v1/chat/health")).andExpect(status().isOk());
+            mvc.perform(get("/api/v1/chat/health/ready")).andExpect(status().isOk());
+            mvc.perform(get("/api/v1/chat/health/live")).andExpect(status().isOk());
+        }
+        assertEquals(upstreamCalls, server.getHealthCalls());
+
+        // One failed probe is tolerated, the second takes the instance out of rotation
+        server.setHealthy(false);
+        prober.probe();
+        mvc.perform(get("/api/v1/chat/health/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aiModelStatus").value("DEGRADED"));
+
+        prober.probe();
+        mvc.perform(get("/api/v1/chat/health/ready"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.consecutiveFailures").value(2));
+        mvc.perform(get("/api/v1/chat/health/live")).andExpect(status().isOk());
+
+        server.setHealthy(true);
+        prober.probe();
+        mvc.perform(get("/api/v1/chat/health/ready")).andExpect(status().isOk());
+        assertTrue(prober.getHistory().size() >= 4);
+    }
+
+    private static StandInInferenceServer start() {
+        try {
+            return new StandInInferenceServer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
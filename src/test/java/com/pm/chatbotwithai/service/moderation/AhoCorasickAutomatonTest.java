@@ -0,0 +1,173 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickAutomatonTest {
+
+    @Test
+    void matchesIgnoringCaseAccentsAndWhitespaceRuns() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(Map.of(
+                "discriminación", "HATE",
+                "discurso de odio", "HATE"));
+
+        assertTrue(automaton.findFirst("Eso es DISCRIMINACION pura").isPresent());
+        assertTrue(automaton.findFirst("eso es discriminacion").isPresent());
+        assertTrue(automaton.findFirst("un discurso\n  de   ODIO").isPresent());
+        assertFalse(automaton.findFirst("un discurso de amor").isPresent());
+    }
+
+    @Test
+    void reportsTheTermAndWhereItIsInTheOriginalText() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(Map.of("malware", "MALWARE"));
+        String text = "¿Cómo   instalo un  MALWARE?";
+
+        AhoCorasickAutomaton.Match match = automaton.findFirst(text).orElseThrow();
+
+        assertEquals("malware", match.getTerm());
+        assertEquals("MALWARE", match.getCategory());
+        assertEquals("MALWARE", text.substring((int) match.getStart(), (int) match.getEnd()));
+    }
+
+    @Test
+    void overlappingTermsAreFoundThroughFailureLinks() {
+        Map<String, String> terms = new LinkedHashMap<>();
+        terms.put("he", "A");
+        terms.put("she", "B");
+        terms.put("hers", "C");
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(terms);
+
+        // "she" ends first; "he" ends at the same place but is shorter
+        assertEquals("she", automaton.findFirst("ushers").orElseThrow().getTerm());
+        assertEquals("he", automaton.findFirst("xhers").orElseThrow().getTerm());
+        // As whole words the longer one wins too, and the shorter one is still found when the
+        // longer one starts inside a word
+        assertEquals("she", automaton.findFirstWord("u she rs").orElseThrow().getTerm());
+        assertEquals("hers", automaton.findFirstWord("u hers").orElseThrow().getTerm());
+        assertEquals("he", automaton.findFirstWord("x-he rs").orElseThrow().getTerm());
+    }
+
+    @Test
+    void findsTermsInsideLongerWords() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(Map.of(
+                "hack", "MALWARE",
+                "odio", "HATE"));
+
+        assertEquals("hack", automaton.findFirst("Quiero ser hacker").orElseThrow().getTerm());
+        assertEquals("hack", automaton.findFirst("cómo hackear una cuenta").orElseThrow().getTerm());
+        assertEquals("odio", automaton.findFirst("los odios viejos").orElseThrow().getTerm());
+    }
+
+    @Test
+    void termsOnlyMatchWholeWords() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(Map.of(
+                "odio", "HATE",
+                "virus", "MALWARE",
+                "hack", "MALWARE"));
+
+        assertFalse(automaton.findFirstWord("Un episodio sobre el custodio").isPresent());
+        assertFalse(automaton.findFirstWord("Instala un antivirus antes del hackathon").isPresent());
+        assertEquals("odio", automaton.findFirstWord("Siento odio.").orElseThrow().getTerm());
+        assertEquals("virus", automaton.findFirstWord("(virus)").orElseThrow().getTerm());
+        assertEquals("hack", automaton.findFirstWord("hack").orElseThrow().getTerm());
+    }
+
+    @Test
+    void agreesWithNaiveSearchOnRandomText() {
+        SplittableRandom random = new SplittableRandom(3);
+        Map<String, String> terms = new LinkedHashMap<>();
+
+        for (int i = 0; i < 200; i++) {
+            terms.put(randomWord(random, 2 + random.nextInt(5)), "C" + i % 4);
+        }
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(terms);
+
+        for (int i = 0; i < 2_000; i++) {
+            String text = randomWord(random, random.nextInt(40));
+            Optional<AhoCorasickAutomaton.Match> match = automaton.findFirst(text);
+            int expectedEnd = naiveFirstEnd(terms, text, false);
+
+            assertEquals(expectedEnd >= 0, match.isPresent(), text);
+            match.ifPresent(found -> assertEquals(expectedEnd, found.getEnd(), text));
+        }
+    }
+
+    @Test
+    void agreesWithNaiveWholeWordSearchOnRandomText() {
+        SplittableRandom random = new SplittableRandom(5);
+        Map<String, String> terms = new LinkedHashMap<>();
+
+        for (int i = 0; i < 200; i++) {
+            terms.put(randomWord(random, 2 + random.nextInt(5)), "C" + i % 4);
+        }
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(terms);
+
+        for (int i = 0; i < 2_000; i++) {
+            String text = randomText(random, random.nextInt(40));
+            Optional<AhoCorasickAutomaton.Match> match = automaton.findFirstWord(text);
+            int expectedEnd = naiveFirstEnd(terms, text, true);
+
+            assertEquals(expectedEnd >= 0, match.isPresent(), text);
+            match.ifPresent(found -> assertEquals(expectedEnd, found.getEnd(), text));
+        }
+    }
+
+    @Test
+    void cursorCarriesPartialMatchesAcrossPieces() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.build(Map.of("violencia", "VIOLENCE"));
+        AhoCorasickAutomaton.Cursor cursor = automaton.cursor();
+        AhoCorasickAutomaton.Match match = null;
+
+        for (String piece : new String[] {"Hablemos de la vio", "len", "cia", " en el cine"}) {
+
+            for (int i = 0; i < piece.length() && match == null; i++) {
+                match = cursor.feed(piece.charAt(i));
+            }
+        }
+        assertNotNull(match);
+        assertEquals(15, match.getStart());
+    }
+
+    private static int naiveFirstEnd(Map<String, String> terms, String text, boolean wholeWords) {
+
+        for (int end = 1; end <= text.length(); end++) {
+
+            for (String term : terms.keySet()) {
+                int start = end - term.length();
+
+                if (start >= 0 && text.startsWith(term, start)
+                        && (!wholeWords || (start == 0 || text.charAt(start - 1) == ' ')
+                                && (end == text.length() || text.charAt(end) == ' '))) {
+                    return end;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Words of the random alphabet separated by single spaces
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(3) == 0 && !text.isEmpty() && text.charAt(text.length() - 1) != ' '
+                    ? ' ' : (char) ('a' + random.nextInt(4)));
+        }
+        return text.toString();
+    }
+
+    private static String randomWord(SplittableRandom random, int length) {
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import com.pm.chatbotwithai.exception.ContentModerationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentModerationServiceTest {
+
+    @TempDir
+    Path lexiconDir;
+
+    private ContentModerationService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(lexiconDir.resolve("es.txt"), "[HATE]\ndiscriminación\n");
+        Files.writeString(lexiconDir.resolve("en.txt"), "[MALWARE]\nkeylogger # also in Spanish chats\n");
+        service = new ContentModerationService(new DefaultResourceLoader(), true,
+                lexiconDir.toUri().toString(), List.of("es", "EN"), "redact", "[cortado]");
+        service.initialize();
+    }
+
+    @Test
+    void violationsCarryTheMatchedCategory() {
+        ContentModerationException ex = assertThrows(ContentModerationException.class,
+                () -> service.moderate("Eso es DISCRIMINACION", "es-MX"));
+
+        assertEquals("HATE", ex.getCategory());
+        assertDoesNotThrow(() -> service.moderate("Hola, ¿qué tal?", "es"));
+    }
+
+    @Test
+    void localeSelectsTheLexiconAndAbsentLocaleUsesAll() {
+        assertTrue(service.findViolation("instala un keylogger", "es").isEmpty());
+        assertTrue(service.findViolation("instala un keylogger", "en_US").isPresent());
+        assertTrue(service.findViolation("instala un keylogger", null).isPresent());
+        assertTrue(service.findViolation("instala un keylogger", "fr").isPresent());
+    }
+
+    @Test
+    void inputIsCheckedForInflectedTermsWhileOutputOnlyRedactsWholeWords() {
+        ContentModerationService shipped = new ContentModerationService(new DefaultResourceLoader(), true,
+                "classpath:moderation/", List.of("es", "en"), "redact", "[cortado]");
+        shipped.initialize();
+
+        for (String input : List.of("quiero ser hacker", "enséñame a hackear", "soy spammer", "odiar a mi vecino")) {
+            assertTrue(shipped.findViolation(input, "es").isPresent(), input);
+        }
+        assertEquals("Vi un episodio ayer", shipped.moderateOutput("Vi un episodio ayer", "es"));
+        assertEquals("Siento ****.", shipped.moderateOutput("Siento odio.", "es"));
+    }
+
+    @Test
+    void lexiconCopiedOutOfTheJarIsReloadedWhenItChanges() throws Exception {
+        Path editable = lexiconDir.resolve("editable");
+        Files.createDirectory(editable);
+        ContentModerationService bundled = new ContentModerationService(new DefaultResourceLoader(), true,
+                editable.toUri().toString(), List.of("es"), "redact", "[cortado]");
+        bundled.initialize();
+        assertTrue(bundled.findViolation("violencia", "es").isPresent());
+
+        Path spanish = editable.resolve("es.txt");
+        Files.writeString(spanish, "[SPAM]\ncompra ya\n");
+        bundled.reloadIfChanged();
+        assertTrue(bundled.findViolation("compra ya", "es").isPresent());
+        assertTrue(bundled.findViolation("violencia", "es").isEmpty());
+
+        Files.writeString(spanish, "[SPAM]\ncompra ya\noferta\n");
+        Files.setLastModifiedTime(spanish, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        bundled.reloadIfChanged();
+        assertTrue(bundled.findViolation("gran oferta", "es").isPresent());
+        assertEquals(2, bundled.getStats().getReloadCount());
+    }
+
+    @Test
+    void changedLexiconsAreSwappedInAndBrokenOnesAreIgnored() throws Exception {
+        Path spanish = lexiconDir.resolve("es.txt");
+        Files.writeString(spanish, "[SPAM]\ncompra ya\n");
+        Files.setLastModifiedTime(spanish, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        service.reloadIfChanged();
+        assertTrue(service.findViolation("¡Compra   YA!", "es").isPresent());
+        assertTrue(service.findViolation("discriminación", "es").isEmpty());
+
+        Files.writeString(spanish, "término sin categoría\n");
+        assertFalse(service.reload());
+        assertTrue(service.findViolation("compra ya", "es").isPresent());
+        assertEquals(1, service.getStats().getReloadCount());
+        assertEquals(1, service.getStats().getReloadFailures());
+    }
+}
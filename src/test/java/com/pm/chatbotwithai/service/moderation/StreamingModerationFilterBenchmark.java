@@ -0,0 +1,93 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per streamed chunk of output moderation: a clean response of about 1 KB, split into
+ * chunks the size of a token or of a small batch of tokens, passed through unmoderated and
+ * through a {@link StreamingModerationFilter}. Run like {@code TextPipelineBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(StreamingModerationFilterBenchmark.CHUNKS)
+public class StreamingModerationFilterBenchmark {
+    static final int CHUNKS = 256;
+
+    @Param({"4", "32"})
+    private int chunkSize;
+
+    private ContentModerationService service;
+    private List<String> chunks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new ContentModerationService(new DefaultResourceLoader(), true, "classpath:moderation/",
+                List.of("es", "en"), "redact", "");
+        service.initialize();
+
+        String sentence = "Para cambiar la contraseña entra en Configuración y pulsa Restablecer; "
+                + "si el correo no llega, revisa la bandeja de entrada y espera unos minutos. ";
+        StringBuilder text = new StringBuilder();
+
+        while (text.length() < CHUNKS * chunkSize) {
+            text.append(sentence);
+        }
+        chunks = new ArrayList<>(CHUNKS);
+
+        for (int i = 0; i < CHUNKS; i++) {
+            chunks.add(text.substring(i * chunkSize, (i + 1) * chunkSize));
+        }
+    }
+
+    @Benchmark
+    public int passThrough() {
+        StringBuilder streamed = new StringBuilder();
+
+        for (String chunk : chunks) {
+            streamed.append(chunk);
+        }
+        return streamed.length();
+    }
+
+    @Benchmark
+    public int moderated() {
+        StreamingModerationFilter filter = service.outputFilter(null);
+        StringBuilder streamed = new StringBuilder();
+
+        for (String chunk : chunks) {
+            streamed.append(filter.accept(chunk));
+        }
+        return streamed.append(filter.finish()).length();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(StreamingModerationFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
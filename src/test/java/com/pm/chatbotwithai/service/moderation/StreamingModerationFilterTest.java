@@ -0,0 +1,100 @@
+package com.pm.chatbotwithai.service.moderation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingModerationFilterTest {
+    private static final String RESPONSE = "Te explico cómo funciona un malware de forma general.";
+
+    @Test
+    void termsSplitAtAnyChunkBoundaryAreRedacted() {
+        ContentModerationService service = service("redact");
+
+        for (int split = 1; split < RESPONSE.length(); split++) {
+            StreamingModerationFilter filter = service.outputFilter("es");
+            String output = filter.accept(RESPONSE.substring(0, split))
+                    + filter.accept(RESPONSE.substring(split))
+                    + filter.finish();
+
+            assertEquals("Te explico cómo funciona un ******* de forma general.", output, "split at " + split);
+        }
+    }
+
+    @Test
+    void onlyAPossibleTermPrefixIsHeldBack() {
+        StreamingModerationFilter filter = service("redact").outputFilter("es");
+
+        assertEquals("Un ", filter.accept("Un mal"));
+        assertEquals("", filter.accept("wa"));
+        assertEquals("malwala idea", filter.accept("la idea"));
+        assertEquals("", filter.finish());
+
+        // A whole term is held until the next character shows the word ends there
+        filter = service("redact").outputFilter("es");
+        assertEquals("Un ", filter.accept("Un malware"));
+        assertEquals("******* ", filter.accept(" "));
+        assertEquals("", filter.finish());
+    }
+
+    @Test
+    void cutoffStopsBeforeTheTermAndIgnoresTheRest() {
+        StreamingModerationFilter filter = service("cutoff").outputFilter("es");
+
+        String output = filter.accept("Te explico cómo funciona un mal")
+                + filter.accept("ware de forma general.");
+
+        assertTrue(filter.isCutOff());
+        assertEquals("MALWARE", filter.getMatchedCategory());
+        assertEquals("Te explico cómo funciona un ", output);
+        assertEquals("", filter.accept("más texto"));
+        assertEquals("[cortado]", filter.finish());
+    }
+
+    @Test
+    void wordsContainingATermPassThroughUntouched() {
+        ContentModerationService service = service("redact");
+
+        for (String text : new String[] {"Vimos el episodio con el custodio.", "Install an antivirus before the hackathon."}) {
+            StreamingModerationFilter filter = service.outputFilter("es");
+            StringBuilder output = new StringBuilder();
+
+            for (int i = 0; i < text.length(); i++) {
+                output.append(filter.accept(text.substring(i, i + 1)));
+            }
+            output.append(filter.finish());
+
+            assertEquals(text, output.toString());
+            assertNull(filter.getMatchedCategory());
+        }
+    }
+
+    @Test
+    void termEndingTheResponseIsCaughtWhenItFinishes() {
+        StreamingModerationFilter filter = service("redact").outputFilter("es");
+
+        assertEquals("Es un ", filter.accept("Es un virus"));
+        assertEquals("*****", filter.finish());
+        assertEquals("Es un *****", service("redact").moderateOutput("Es un virus", "es"));
+    }
+
+    @Test
+    void cleanOutputIsReturnedUnchanged() {
+        ContentModerationService service = service("cutoff");
+        String clean = "Hola, ¿en qué puedo ayudarte?";
+
+        assertSame(clean, service.moderateOutput(clean, "es"));
+        assertNull(service("off").outputFilter("es"));
+        assertEquals(0, service.getStats().getOutputCutoffs());
+    }
+
+    private static ContentModerationService service(String mode) {
+        ContentModerationService service = new ContentModerationService(new DefaultResourceLoader(), true,
+                "classpath:moderation/", List.of("es", "en"), mode, "[cortado]");
+        service.initialize();
+        return service;
+    }
+}
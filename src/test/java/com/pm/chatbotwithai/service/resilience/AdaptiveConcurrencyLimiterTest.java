@@ -0,0 +1,67 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long BASELINE = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 2, 100);
+
+        for (int i = 0; i < 200; i++) {
+            saturateAndComplete(limiter, BASELINE);
+        }
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 40, 2, 100);
+
+        for (int i = 0; i < 50; i++) {
+            saturateAndComplete(limiter, BASELINE);
+        }
+        int stableLimit = limiter.getLimit();
+
+        for (int i = 0; i < 50; i++) {
+            saturateAndComplete(limiter, BASELINE * 4);
+        }
+        assertTrue(limiter.getLimit() < stableLimit,
+                "limit went from " + stableLimit + " to " + limiter.getLimit());
+    }
+
+    @Test
+    void failuresBackOffAndCallsOverLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 2, 100);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.onComplete(BASELINE, false);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(1, limiter.getStats().getRejectedCount());
+    }
+
+    // Fills every permit, then completes one call so the sample is taken under full load
+    private static void saturateAndComplete(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        limiter.onComplete(rttNanos, true);
+
+        for (int i = 1; i < acquired; i++) {
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(FAST, i % 2 == 0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getStats().getRejectedCount());
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(SLOW, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrialCalls() throws Exception {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(FAST, false);
+        }
+        Thread.sleep(30);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onResult(FAST, true);
+        breaker.onResult(FAST, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedTrialCallReopensBreaker() throws Exception {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(FAST, false);
+        }
+        Thread.sleep(30);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(FAST, false);
+
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return new CircuitBreaker("test", 20, 10, 0.5, 0.8, Duration.ofSeconds(1), openDuration, 2);
+    }
+}
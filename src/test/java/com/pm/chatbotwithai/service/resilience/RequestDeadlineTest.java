@@ -0,0 +1,90 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import com.pm.chatbotwithai.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeadlineTest {
+
+    @Test
+    void expiryCancelsRegisteredWork() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(20));
+        CompletableFuture<String> providerCall = new CompletableFuture<>();
+        deadline.onCancel(() -> providerCall.cancel(true));
+
+        assertThrows(CancellationException.class, () -> providerCall.get(1, TimeUnit.SECONDS));
+        assertTrue(deadline.isExpired());
+        assertThrows(DeadlineExceededException.class, () -> deadline.check("database"));
+    }
+
+    @Test
+    void finishedRequestDropsRegisteredWork() throws Exception {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(20));
+        CompletableFuture<String> providerCall = new CompletableFuture<>();
+        deadline.onCancel(() -> providerCall.cancel(true));
+        deadline.finish();
+
+        Thread.sleep(50);
+        assertFalse(providerCall.isCancelled());
+    }
+
+    @Test
+    void disconnectCancelsBeforeTheDeadline() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        CompletableFuture<String> providerCall = new CompletableFuture<>();
+        deadline.onCancel(() -> providerCall.cancel(true));
+        deadline.cancel("client disconnected");
+
+        assertTrue(providerCall.isCancelled());
+        assertFalse(deadline.isExpired());
+        assertThrows(CancellationException.class, () -> deadline.check("generation"));
+    }
+
+    @Test
+    void awaitGivesUpAtTheDeadlineAndCancelsTheFuture() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(50));
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        assertThrows(DeadlineExceededException.class, () -> deadline.await(response, "generation"));
+        assertTrue(response.isCancelled());
+    }
+
+    @Test
+    void limitFailsTheFutureAtTheDeadlineWithoutBlocking() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(50));
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> limited = deadline.limit(response, "generation");
+
+        assertFalse(limited.isDone());
+        CompletionException failure = assertThrows(CompletionException.class, limited::join);
+        assertInstanceOf(DeadlineExceededException.class, failure.getCause());
+        assertTrue(response.isCancelled());
+    }
+
+    @Test
+    void limitBoundsTheWholeStreamNotEachGap() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(200));
+        // Every gap is well under the budget, but the stream as a whole is not
+        Flux<Long> steady = Flux.interval(Duration.ofMillis(20)).take(100);
+
+        assertThrows(DeadlineExceededException.class,
+                () -> deadline.limit(steady, "streaming").blockLast(Duration.ofSeconds(2)));
+    }
+
+    @Test
+    void boundNeverExceedsTheTimeLeft() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofSeconds(1));
+
+        assertEquals(Duration.ofMillis(10), deadline.bound(Duration.ofMillis(10)));
+        assertTrue(deadline.bound(Duration.ofMinutes(1)).compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+}
@@ -0,0 +1,92 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() {
+        RequestHedger hedger = new RequestHedger(true, 0.95, 10, 1.0, 64);
+        warmUp(hedger);
+
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        CompletableFuture<String> result = hedger.execute(() -> {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+
+            if (calls.size() == 2) {
+                call.complete("hedge");
+            }
+            return call;
+        });
+
+        assertEquals("hedge", result.join());
+        assertTrue(calls.get(0).isCancelled());
+        assertEquals(1, hedger.getStats().getHedgeWinCount());
+    }
+
+    @Test
+    void rejectedHedgeLeavesThePrimaryToFinish() {
+        RequestHedger hedger = new RequestHedger(true, 0.95, 10, 1.0, 64);
+        warmUp(hedger);
+
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> result = hedger.execute(() -> primary,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("not admitted")));
+        primary.completeOnTimeout("primary", 100, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", result.join());
+        assertEquals(1, hedger.getStats().getHedgeCount());
+        assertEquals(0, hedger.getStats().getHedgeWinCount());
+    }
+
+    @Test
+    void hedgingStopsWhenBudgetIsSpent() {
+        RequestHedger hedger = new RequestHedger(true, 0.95, 10, 0.0, 64);
+        warmUp(hedger);
+
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> result = hedger.execute(() -> primary);
+        primary.completeOnTimeout("primary", 100, TimeUnit.MILLISECONDS);
+
+        assertEquals("primary", result.join());
+        assertEquals(0, hedger.getStats().getHedgeCount());
+        assertEquals(1, hedger.getStats().getBudgetRejectedCount());
+    }
+
+    @Test
+    void delayIsEstimatedOnceThereAreEnoughSamples() {
+        RequestHedger hedger = new RequestHedger(true, 0.95, 10, 1.0, 64);
+
+        for (int i = 0; i < 19; i++) {
+            hedger.execute(() -> CompletableFuture.completedFuture("warm")).join();
+        }
+        assertEquals(-1, hedger.getStats().getCurrentDelayMs());
+
+        hedger.execute(() -> CompletableFuture.completedFuture("warm")).join();
+        assertEquals(10, hedger.getStats().getCurrentDelayMs());
+    }
+
+    @Test
+    void disabledHedgerPassesCallThrough() {
+        RequestHedger hedger = new RequestHedger(false, 0.95, 10, 1.0, 64);
+        CompletableFuture<String> primary = CompletableFuture.completedFuture("primary");
+
+        assertSame(primary, hedger.execute(() -> primary));
+    }
+
+    // Fast samples so the hedge delay settles at the minimum
+    private static void warmUp(RequestHedger hedger) {
+
+        for (int i = 0; i < 30; i++) {
+            hedger.execute(() -> CompletableFuture.completedFuture("warm")).join();
+        }
+    }
+}
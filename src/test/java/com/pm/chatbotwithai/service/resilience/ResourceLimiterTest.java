@@ -0,0 +1,75 @@
+package com.pm.chatbotwithai.service.resilience;
+
+import com.pm.chatbotwithai.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceLimiterTest {
+
+    @Test
+    void callerGivesUpWithServiceOverloadedAfterTheAcquireTimeout() throws Exception {
+        ResourceLimiter limiter = new ResourceLimiter("database", 1, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = holdPermit(limiter, release);
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> limiter.call(() -> "never"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        ResourceLimiter.ResourceLimiterStats stats = limiter.getStats();
+        assertEquals(1, stats.getActiveCount());
+        assertEquals(1, stats.getTimeoutCount());
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+        assertEquals("free", limiter.call(() -> "free"));
+    }
+
+    @Test
+    void aShorterMaxWaitWinsOverTheAcquireTimeout() throws Exception {
+        ResourceLimiter limiter = new ResourceLimiter("database", 1, Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = holdPermit(limiter, release);
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> limiter.call(() -> "never", Duration.ofMillis(20)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aFailingActionStillReleasesItsPermit() {
+        ResourceLimiter limiter = new ResourceLimiter("database", 1, Duration.ofMillis(50));
+
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException("query failed");
+        }));
+        assertEquals(0, limiter.getStats().getActiveCount());
+        assertEquals("ok", limiter.call(() -> "ok"));
+    }
+
+    private static CompletableFuture<Void> holdPermit(ResourceLimiter limiter, CountDownLatch release)
+            throws InterruptedException {
+        CountDownLatch acquired = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> limiter.call(() -> {
+            acquired.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        return holder;
+    }
+}
@@ -0,0 +1,126 @@
+package com.pm.chatbotwithai.service.scheduling;
+
+import com.pm.chatbotwithai.service.ai.GenerationPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationSchedulerTest {
+
+    @Test
+    void freedSlotsAreSharedByWeight() {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 1, 100, 60_000, 4, 1, 1);
+        List<String> order = new ArrayList<>();
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(GenerationPriority.INTERACTIVE, () -> blocker);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(GenerationPriority.BATCH, () -> record(order, "B"));
+        }
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(GenerationPriority.INTERACTIVE, () -> record(order, "I"));
+        }
+        blocker.complete("done");
+
+        // Interactive gets four slots for every batch slot while both queues are non-empty; ties go to interactive
+        assertEquals(List.of("I", "B", "I", "I", "I", "I", "B", "B", "B", "B"), order);
+    }
+
+    @Test
+    void agedJobsAreReleasedAheadOfWeights() throws Exception {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 1, 100, 10, 100, 1, 1);
+        List<String> order = new ArrayList<>();
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(GenerationPriority.INTERACTIVE, () -> blocker);
+
+        scheduler.submit(GenerationPriority.BACKGROUND, () -> record(order, "G"));
+        Thread.sleep(20);
+        scheduler.submit(GenerationPriority.INTERACTIVE, () -> record(order, "I"));
+        blocker.complete("done");
+
+        assertEquals(List.of("G", "I"), order);
+        assertEquals(1, scheduler.getStats().getClasses().get(GenerationPriority.BACKGROUND.ordinal()).getAgedCount());
+    }
+
+    @Test
+    void callsFailingSynchronouslyDrainTheQueueWithoutRecursing() {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 1, 50_000, 60_000, 8, 2, 1);
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(GenerationPriority.INTERACTIVE, () -> blocker);
+
+        // Like calls rejected by an open breaker: each completes before its start returns
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            queued.add(scheduler.submit(GenerationPriority.INTERACTIVE,
+                    () -> CompletableFuture.failedFuture(new IllegalStateException("breaker open"))));
+        }
+        blocker.complete("done");
+
+        assertTrue(queued.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+        assertEquals(0, scheduler.getStats().getRunning());
+    }
+
+    @Test
+    void fullQueueRejectsNewJobs() {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 1, 1, 60_000, 8, 2, 1);
+        scheduler.submit(GenerationPriority.BATCH, CompletableFuture::new);
+        scheduler.submit(GenerationPriority.BATCH, CompletableFuture::new);
+
+        CompletableFuture<Object> rejected = scheduler.submit(GenerationPriority.BATCH, CompletableFuture::new);
+
+        assertTrue(rejected.isCompletedExceptionally());
+    }
+
+    @Test
+    void cancellingARunningJobCancelsItsCallAndFreesTheSlot() {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 1, 100, 60_000, 8, 2, 1);
+        CompletableFuture<String> call = new CompletableFuture<>();
+        List<String> order = new ArrayList<>();
+
+        CompletableFuture<String> running = scheduler.submit(GenerationPriority.INTERACTIVE, () -> call);
+        scheduler.submit(GenerationPriority.INTERACTIVE, () -> record(order, "I"));
+        running.cancel(true);
+
+        assertTrue(call.isCancelled());
+        assertEquals(List.of("I"), order);
+        assertEquals(0, scheduler.getStats().getRunning());
+    }
+
+    @Test
+    void admissionFollowsTheAttachedConcurrencyLimit() {
+        GenerationScheduler scheduler = new GenerationScheduler(true, 16, 100, 60_000, 8, 2, 1);
+        AtomicInteger limit = new AtomicInteger(2);
+        scheduler.followConcurrencyLimit(limit::get);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            scheduler.submit(GenerationPriority.INTERACTIVE, () -> call);
+        }
+        assertEquals(2, scheduler.getStats().getRunning());
+
+        // A grown limit is filled as soon as a slot frees up, not one job per completion
+        limit.set(5);
+        calls.get(0).complete("done");
+        assertEquals(5, scheduler.getStats().getRunning());
+        assertEquals(5, scheduler.getStats().getMaxConcurrent());
+
+        // A shrunk limit holds queued jobs back until running calls drop below it
+        limit.set(1);
+        calls.get(1).complete("done");
+        assertEquals(4, scheduler.getStats().getRunning());
+        assertEquals(2, scheduler.getStats().getClasses().get(GenerationPriority.INTERACTIVE.ordinal()).getQueued());
+    }
+
+    private static CompletableFuture<String> record(List<String> order, String label) {
+        order.add(label);
+        return CompletableFuture.completedFuture(label);
+    }
+}
@@ -0,0 +1,87 @@
+package com.pm.chatbotwithai.service.text;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request text handling before and after {@link TextPipeline}: input preprocessing, response
+ * post-processing and the confidence checks on the result. Run {@link #main} after
+ * {@code mvn test-compile}, with the test classpath (JMH forks a JVM with the same class path, so
+ * launchers that hide it, like {@code exec:java}, do not work); the GC profiler reports bytes
+ * allocated per operation as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextPipelineBenchmark {
+    private static final TextPipeline INPUT = TextPipeline.builder().collapseWhitespace().maxChars(4000, "...").build();
+    private static final TextPipeline RESPONSE = TextPipeline.builder()
+            .stripLeadingLabel("Asistente:", "AI:", "Bot:", "Assistant:")
+            .collapseWhitespace()
+            .build();
+
+    private final String input = "  Hola,   quisiera saber\r\ncómo cambio la contraseña de mi cuenta\n"
+            + "porque no me llega el correo de recuperación.  ";
+    private final String response = "Asistente:  Para cambiar la contraseña entra en Configuración >\n"
+            + "Seguridad y pulsa   \"Restablecer\". Si el correo no llega, revisa la carpeta de spam\n\n"
+            + "o espera unos minutos antes de volver a intentarlo.";
+
+    @Benchmark
+    public double regex() {
+        String processedInput = input.trim().replaceAll("\\s+", " ").replaceAll("[\\r\\n]+", " ");
+
+        if (processedInput.length() > 4000) {
+            processedInput = processedInput.substring(0, 4000) + "...";
+        }
+        String processed = response.trim()
+                .replaceAll("^(Asistente:|AI:|Bot:|Assistant:)\\s*", "")
+                .replaceAll("\\s+", " ");
+        double confidence = 0.7;
+
+        if (processed.toLowerCase().contains("no sé") || processed.toLowerCase().contains("no estoy seguro")) {
+            confidence *= 0.8;
+        }
+        if (processed.matches(".*[.!?]$")) {
+            confidence += 0.1;
+        }
+        return confidence + processedInput.length();
+    }
+
+    @Benchmark
+    public double pipeline() {
+        String processedInput = INPUT.apply(input);
+        String processed = RESPONSE.apply(response);
+        double confidence = 0.7;
+
+        if (TextPipeline.containsIgnoreCase(processed, "no sé")
+                || TextPipeline.containsIgnoreCase(processed, "no estoy seguro")) {
+            confidence *= 0.8;
+        }
+        if (TextPipeline.endsWithSentencePunctuation(processed)) {
+            confidence += 0.1;
+        }
+        return confidence + processedInput.length();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TextPipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
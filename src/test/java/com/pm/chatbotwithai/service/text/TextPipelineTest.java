@@ -0,0 +1,78 @@
+package com.pm.chatbotwithai.service.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextPipelineTest {
+    private static final String ALPHABET = "ab é?.\t\n\r\u000B\f\u0001Asistente:AI:Bot:";
+
+    private final TextPipeline input = TextPipeline.builder().collapseWhitespace().maxChars(40, "...").build();
+    private final TextPipeline response = TextPipeline.builder()
+            .stripLeadingLabel("Asistente:", "AI:", "Bot:", "Assistant:")
+            .collapseWhitespace()
+            .build();
+
+    @Test
+    void matchesTheRegularExpressionsItReplaces() {
+        SplittableRandom random = new SplittableRandom(11);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = randomText(random);
+
+            assertEquals(legacyInput(text), input.apply(text), () -> "input: " + escape(text));
+            assertEquals(legacyResponse(text), response.apply(text), () -> "response: " + escape(text));
+            assertTrue(input.matches(text, legacyInput(text)));
+            assertEquals(text.trim().isEmpty(), TextPipeline.isBlank(text));
+            // Only ever asked of normalized responses, which have no line breaks for "." to miss
+            String normalized = response.apply(text);
+            assertEquals(normalized.matches(".*[.!?]$"), TextPipeline.endsWithSentencePunctuation(normalized));
+        }
+    }
+
+    @Test
+    void normalizedTextIsReturnedWithoutCopying() {
+        String normalized = "Hola, ¿en qué puedo ayudarte?";
+
+        assertSame(normalized, input.apply(normalized));
+        assertNotSame(normalized, input.apply(" " + normalized));
+        assertEquals("", input.apply(null));
+    }
+
+    @Test
+    void containsIgnoreCaseFoldsAccentedCapitals() {
+        assertTrue(TextPipeline.containsIgnoreCase("Lo siento, NO SÉ la respuesta", "no sé"));
+        assertFalse(TextPipeline.containsIgnoreCase("no se", "no sé"));
+        assertFalse(TextPipeline.containsIgnoreCase("no", "no sé"));
+    }
+
+    private static String legacyInput(String text) {
+        String processed = text.trim().replaceAll("\\s+", " ").replaceAll("[\\r\\n]+", " ");
+        return processed.length() > 40 ? processed.substring(0, 40) + "..." : processed;
+    }
+
+    private static String legacyResponse(String text) {
+        return text.trim()
+                .replaceAll("^(Asistente:|AI:|Bot:|Assistant:)\\s*", "")
+                .replaceAll("\\s+", " ");
+    }
+
+    private static String randomText(SplittableRandom random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(60);
+
+        if (random.nextInt(4) == 0) {
+            text.append(random.nextBoolean() ? " Asistente: " : "AI:\n");
+        }
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    }
+}
@@ -0,0 +1,62 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+import com.pm.chatbotwithai.model.entity.Message;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpeTokenizerTest {
+    private static BpeTokenizer tokenizer;
+
+    // All 256 single bytes plus the merges ho, la, hola, " m", un, " mun", do, " mundo"
+    @BeforeAll
+    static void loadVocabulary() throws Exception {
+        try (InputStream vocabulary = BpeTokenizerTest.class.getResourceAsStream("/tokenizer/test.tiktoken")) {
+            tokenizer = BpeTokenizer.load("test", vocabulary);
+        }
+    }
+
+    @Test
+    void wordsInVocabularyAreSingleTokens() {
+        assertEquals(1, tokenizer.countTokens("hola"));
+        assertEquals(2, tokenizer.countTokens("hola mundo"));
+        assertEquals(0, tokenizer.countTokens(""));
+    }
+
+    @Test
+    void unknownWordsAreMergedByRank() {
+        // " mundos" merges down to " mundo" + "s"
+        assertEquals(3, tokenizer.countTokens("hola mundos"));
+        assertEquals(3, tokenizer.countTokens("xyz"));
+    }
+
+    @Test
+    void multiByteCharactersCountPerUtf8Byte() {
+        // "ñ" is two UTF-8 bytes with no merge in the test vocabulary
+        assertEquals(4, tokenizer.countTokens("año"));
+    }
+
+    @Test
+    void prefixStopsAtLastPieceThatFits() {
+        assertEquals("hola mundo".length(), tokenizer.prefixLengthWithin("hola mundo hola", 2));
+        assertEquals("hola mundo hola", tokenizer.truncateToTokens("hola mundo hola", 10));
+    }
+
+    @Test
+    void contextWindowKeepsNewestMessagesWithinBudget() {
+        int newestLineTokens = tokenizer.countTokens("Usuario: hola\n");
+        // 32 frame + 4 completion + 1 input tokens, plus room for the newest line and a little more
+        ContextWindowBuilder builder = new ContextWindowBuilder(tokenizer, 37 + newestLineTokens + 2, 4, 1);
+        List<Message> newestFirst = List.of(
+                new Message(null, "hola"),
+                new Message(null, "hola mundo", 10L, 0.9, "test"),
+                new Message(null, "hola"));
+
+        assertEquals(newestLineTokens + 2, builder.historyBudget("hola"));
+        assertEquals("Usuario: hola\n", builder.build(newestFirst, 3, "hola").getHistory());
+    }
+}
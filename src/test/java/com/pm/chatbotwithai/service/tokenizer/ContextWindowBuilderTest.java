@@ -0,0 +1,129 @@
+package com.pm.chatbotwithai.service.tokenizer;
+
+import com.pm.chatbotwithai.model.entity.Message;
+import com.pm.chatbotwithai.service.ai.AIProvider;
+import com.pm.chatbotwithai.service.ai.LocalAIProvider;
+import com.pm.chatbotwithai.standin.StandInInferenceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextWindowBuilderTest {
+    private static final int TURNS = 40;
+
+    private final Tokenizer tokenizer = new HeuristicTokenizer();
+    private StandInInferenceServer server;
+    private LocalAIProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StandInInferenceServer();
+        provider = new LocalAIProvider(server.getGenerateEndpoint(), "", WebClient.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.close();
+    }
+
+    @Test
+    void promptsOnlyGrowUntilTheWindowMovesByABlock() {
+        List<Turn> turns = converse(new ContextWindowBuilder(tokenizer, 300, 16, 4));
+        Set<String> prefixIds = new HashSet<>();
+
+        for (int i = 1; i < turns.size(); i++) {
+            Turn previous = turns.get(i - 1);
+            Turn current = turns.get(i);
+            assertNotNull(current.prefixId);
+            prefixIds.add(current.prefixId);
+
+            if (current.prefixId.equals(previous.prefixId)) {
+                assertTrue(current.prompt.startsWith(previous.prompt), "turn " + i + " rewrote its prefix");
+            }
+        }
+        // The history outgrew the budget, so the window moved, but only once every few turns
+        assertTrue(prefixIds.size() > 1);
+        assertTrue(prefixIds.size() <= TURNS / 2);
+    }
+
+    @Test
+    void stablePrefixesAreReusedByAPrefixCachingServer() {
+        converse(new ContextWindowBuilder(tokenizer, 300, 16, 4));
+
+        assertTrue(server.getPrefixHits() > TURNS / 2);
+        assertTrue(server.getReusedPromptChars() > server.getPromptChars() / 2,
+                server.getReusedPromptChars() + " of " + server.getPromptChars() + " characters reused");
+    }
+
+    @Test
+    void exactFillingIssuesNoPrefixId() {
+        List<Turn> turns = converse(new ContextWindowBuilder(tokenizer, 300, 16, 1));
+
+        assertTrue(turns.stream().allMatch(turn -> turn.prefixId == null));
+        assertEquals(0, server.getPrefixHits());
+    }
+
+    @Test
+    void summaryOpensTheHistoryAndIsPartOfThePrefix() {
+        ContextWindowBuilder builder = new ContextWindowBuilder(tokenizer, 300, 16, 4);
+        List<Message> newestFirst = List.of(message("hola", true));
+
+        ContextWindowBuilder.ContextWindow first = builder.build("El usuario se llama Ana.", newestFirst, 21, "hola");
+        ContextWindowBuilder.ContextWindow second = builder.build("El usuario se llama Ana y vive en Lima.",
+                newestFirst, 21, "hola");
+
+        assertEquals("Resumen de la conversación anterior: El usuario se llama Ana.\nUsuario: hola\n",
+                first.getHistory());
+        assertNotEquals(first.getPrefixId(), second.getPrefixId());
+    }
+
+    @Test
+    void promptEndsWithTheCurrentTurnOnlyOnce() {
+        assertEquals("Contexto de la conversación:\nUsuario: hola\nAsistente:",
+                ContextWindowBuilder.assemblePrompt("Usuario: hola\n", "hola"));
+        assertEquals("Contexto de la conversación:\nUsuario: hola\nAsistente: buenas\nUsuario: adiós\nAsistente:",
+                ContextWindowBuilder.assemblePrompt("Usuario: hola\nAsistente: buenas\n", "adiós"));
+        assertEquals("Usuario: hola\nAsistente:", ContextWindowBuilder.assemblePrompt("", "hola"));
+    }
+
+    private List<Turn> converse(ContextWindowBuilder builder) {
+        List<Message> newestFirst = new ArrayList<>();
+        List<Turn> turns = new ArrayList<>();
+
+        for (int i = 0; i < TURNS; i++) {
+            String input = "pregunta número " + i;
+            newestFirst.add(0, message(input, true));
+
+            ContextWindowBuilder.ContextWindow window = builder.build(newestFirst, newestFirst.size(), input);
+            AIProvider.GenerationRequest request = AIProvider.GenerationRequest.builder()
+                    .input(input)
+                    .context(ContextWindowBuilder.assemblePrompt(window.getHistory(), input))
+                    .prefixId(window.getPrefixId())
+                    .build();
+            String answer = provider.generateResponseAsync(request, null).join().getResponse();
+
+            newestFirst.add(0, message(answer, false));
+            turns.add(new Turn(request.getContext(), window.getPrefixId()));
+        }
+        return turns;
+    }
+
+    private static Message message(String content, boolean fromUser) {
+        Message message = fromUser ? new Message(null, content) : new Message(null, content, 10L, 0.9, "test");
+        message.setId(UUID.randomUUID());
+        return message;
+    }
+
+    // Inner classes
+    private record Turn(String prompt, String prefixId) {}
+}
@@ -0,0 +1,448 @@
+package com.pm.chatbotwithai.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.chatbotwithai.service.ai.MockLatencyModel;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the inference services, so providers, circuit breaking and batching
+ * can be tested and benchmarked without a network. It speaks both protocols the application
+ * uses:
+ * <ul>
+ *   <li>the local server's {@code /health}, {@code /generate} (JSON or NDJSON stream) and
+ *       {@code /generate/batch}, as {@code LocalAIProvider} expects;</li>
+ *   <li>OpenAI's {@code /v1/chat/completions}, plain or as server-sent events with a final
+ *       {@code [DONE]}, as {@code OpenAIProvider} expects.</li>
+ * </ul>
+ * Every answer echoes the input ("Respuesta a ...") so tests can match responses to requests.
+ *
+ * <p>Its behaviour can be changed while it runs: a {@link MockLatencyModel} before the first
+ * byte, a tokens-per-second pace for streamed words, a cap on generations served at once (the
+ * rest queue, like requests on a busy GPU), and a seeded share of requests answered with an
+ * error status or a dropped connection. Counters are served on {@code /stats}.
+ *
+ * <p>It also imitates a prefix-caching server: for each {@code prefix_id} it remembers the last
+ * prompt plus its answer, and a request under the same ID "reuses" the characters its context
+ * shares with that entry.
+ *
+ * <p>{@link #main} runs it standalone, e.g. for load tests against a running application.
+ */
+public class StandInInferenceServer implements AutoCloseable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore generationSlots;
+    private final SplittableRandom random;
+
+    private volatile MockLatencyModel latency = MockLatencyModel.NONE;
+    private volatile double tokensPerSecond;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile double resetRate;
+    private volatile boolean healthy = true;
+
+    private final AtomicInteger healthCalls = new AtomicInteger();
+    private final AtomicInteger generateCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger chatCompletionCalls = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger injectedResets = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> prefixCache = new ConcurrentHashMap<>();
+    private final AtomicLong promptChars = new AtomicLong();
+    private final AtomicLong reusedPromptChars = new AtomicLong();
+    private final AtomicInteger prefixHits = new AtomicInteger();
+
+    // The last single generation received on /generate or /v1/chat/completions
+    private volatile JsonNode lastRequestBody;
+    private volatile Headers lastRequestHeaders;
+
+    public StandInInferenceServer() throws IOException {
+        this(0, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * @param port port to listen on, or 0 for any free port
+     * @param maxConcurrentGenerations generations served at once; the rest wait for a slot
+     * @param seed seed for error and reset injection
+     */
+    public StandInInferenceServer(int port, int maxConcurrentGenerations, long seed) throws IOException {
+        this.generationSlots = new Semaphore(maxConcurrentGenerations, true);
+        this.random = new SplittableRandom(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/generate", generation(this::handleGenerate));
+        server.createContext("/generate/batch", generation(this::handleBatch));
+        server.createContext("/v1/chat/completions", generation(this::handleChatCompletion));
+        server.createContext("/stats", exchange -> respond(exchange, 200, "application/json",
+                objectMapper.writeValueAsString(getStats())));
+        server.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        StandInInferenceServer standIn = new StandInInferenceServer(
+                Integer.parseInt(options.getOrDefault("port", "18089")),
+                Integer.parseInt(options.getOrDefault("max-concurrent", String.valueOf(Integer.MAX_VALUE))),
+                Long.parseLong(options.getOrDefault("seed", "0")));
+        standIn.setLatency(MockLatencyModel.parse(options.getOrDefault("latency", "none")));
+        standIn.setTokensPerSecond(Double.parseDouble(options.getOrDefault("tokens-per-second", "0")));
+        standIn.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("error-status", "500")));
+        standIn.setResetRate(Double.parseDouble(options.getOrDefault("reset-rate", "0")));
+
+        System.out.println("Stand-in inference server listening on " + standIn.getBaseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(standIn::close));
+        Thread.currentThread().join();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getGenerateEndpoint() {
+        return getBaseUrl() + "/generate";
+    }
+
+    public String getChatCompletionsEndpoint() {
+        return getBaseUrl() + "/v1/chat/completions";
+    }
+
+    public void setLatency(MockLatencyModel latency) {
+        this.latency = latency;
+    }
+
+    // Zero or less sends the whole answer at once
+    public void setTokensPerSecond(double tokensPerSecond) {
+        this.tokensPerSecond = tokensPerSecond;
+    }
+
+    public void setErrorRate(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    public void setResetRate(double resetRate) {
+        this.resetRate = resetRate;
+    }
+
+    public void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public int getHealthCalls() {
+        return healthCalls.get();
+    }
+
+    public int getGenerateCalls() {
+        return generateCalls.get();
+    }
+
+    public int getBatchCalls() {
+        return batchCalls.get();
+    }
+
+    public int getChatCompletionCalls() {
+        return chatCompletionCalls.get();
+    }
+
+    public int getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public int getInjectedResets() {
+        return injectedResets.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public List<Integer> getBatchSizes() {
+        synchronized (batchSizes) {
+            return List.copyOf(batchSizes);
+        }
+    }
+
+    public long getPromptChars() {
+        return promptChars.get();
+    }
+
+    public long getReusedPromptChars() {
+        return reusedPromptChars.get();
+    }
+
+    public int getPrefixHits() {
+        return prefixHits.get();
+    }
+
+    public JsonNode getLastRequestBody() {
+        return lastRequestBody;
+    }
+
+    public String getLastRequestHeader(String name) {
+        Headers headers = lastRequestHeaders;
+        return headers != null ? headers.getFirst(name) : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("health_calls", healthCalls.get());
+        stats.put("generate_calls", generateCalls.get());
+        stats.put("batch_calls", batchCalls.get());
+        stats.put("chat_completion_calls", chatCompletionCalls.get());
+        stats.put("injected_errors", injectedErrors.get());
+        stats.put("injected_resets", injectedResets.get());
+        stats.put("in_flight", inFlight.get());
+        stats.put("max_in_flight", maxInFlight.get());
+        stats.put("prompt_chars", promptChars.get());
+        stats.put("reused_prompt_chars", reusedPromptChars.get());
+        stats.put("prefix_hits", prefixHits.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wraps a generation endpoint with what a real server adds around it: waiting for a free
+     * slot, failures and time to first byte.
+     */
+    private HttpHandler generation(HttpHandler handler) {
+        return exchange -> {
+
+            try {
+                generationSlots.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+                return;
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            try {
+                double roll;
+                long delayMillis;
+
+                synchronized (random) {
+                    roll = random.nextDouble();
+                    delayMillis = latency.sampleMillis(random);
+                }
+                if (roll < resetRate) {
+                    injectedResets.incrementAndGet();
+                    // Closing without a status line drops the connection under the client
+                    exchange.close();
+                    return;
+                }
+                if (roll < resetRate + errorRate) {
+                    injectedErrors.incrementAndGet();
+                    respond(exchange, errorStatus, "application/json", "{\"error\":\"injected failure\"}");
+                    return;
+                }
+                if (delayMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(delayMillis);
+                }
+                handler.handle(exchange);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+            } finally {
+                inFlight.decrementAndGet();
+                generationSlots.release();
+            }
+        };
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        healthCalls.incrementAndGet();
+
+        if (healthy) {
+            respond(exchange, 200, "application/json", "{\"status\":\"UP\"}");
+        } else {
+            respond(exchange, 503, "application/json", "{\"status\":\"DOWN\"}");
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        generateCalls.incrementAndGet();
+        JsonNode body = readRequest(exchange);
+        String answer = answerFor(body.path("input").asText());
+        int cached = usePrefixCache(body, answer);
+
+        if (!body.path("stream").asBoolean(false)) {
+            respond(exchange, 200, "application/json", objectMapper.writeValueAsString(
+                    Map.of("response", answer, "confidence", 0.9, "cached_prompt_chars", cached)));
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+
+        for (String word : words(answer)) {
+            lines.add(objectMapper.writeValueAsString(Map.of("token", word)) + "\n");
+        }
+        lines.add("{\"done\":true}\n");
+        stream(exchange, "application/x-ndjson", lines);
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        batchCalls.incrementAndGet();
+        JsonNode requests = objectMapper.readTree(exchange.getRequestBody()).path("requests");
+        batchSizes.add(requests.size());
+
+        List<Map<String, Object>> responses = new ArrayList<>();
+
+        for (JsonNode request : requests) {
+            String answer = answerFor(request.path("input").asText());
+            int cached = usePrefixCache(request, answer);
+            responses.add(Map.of("response", answer, "confidence", 0.9, "cached_prompt_chars", cached));
+        }
+        respond(exchange, 200, "application/json", objectMapper.writeValueAsString(Map.of("responses", responses)));
+    }
+
+    private void handleChatCompletion(HttpExchange exchange) throws IOException {
+        chatCompletionCalls.incrementAndGet();
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            respond(exchange, 401, "application/json", "{\"error\":{\"message\":\"Missing API key\"}}");
+            return;
+        }
+        JsonNode body = readRequest(exchange);
+        JsonNode messages = body.path("messages");
+        String answer = answerFor(messages.isArray() && !messages.isEmpty()
+                ? messages.get(messages.size() - 1).path("content").asText() : "");
+        String model = body.path("model").asText("stand-in");
+
+        if (!body.path("stream").asBoolean(false)) {
+            respond(exchange, 200, "application/json", objectMapper.writeValueAsString(Map.of(
+                    "id", "chatcmpl-standin",
+                    "object", "chat.completion",
+                    "model", model,
+                    "choices", List.of(Map.of(
+                            "index", 0,
+                            "message", Map.of("role", "assistant", "content", answer),
+                            "finish_reason", "stop")))));
+            return;
+        }
+        List<String> events = new ArrayList<>();
+
+        for (String word : words(answer)) {
+            events.add("data: " + objectMapper.writeValueAsString(Map.of(
+                    "id", "chatcmpl-standin",
+                    "object", "chat.completion.chunk",
+                    "model", model,
+                    "choices", List.of(Map.of("index", 0, "delta", Map.of("content", word))))) + "\n\n");
+        }
+        events.add("data: [DONE]\n\n");
+        stream(exchange, "text/event-stream", events);
+    }
+
+    private JsonNode readRequest(HttpExchange exchange) throws IOException {
+        lastRequestHeaders = exchange.getRequestHeaders();
+        lastRequestBody = objectMapper.readTree(exchange.getRequestBody());
+        return lastRequestBody;
+    }
+
+    // Writes each part as soon as it is due, at the configured tokens-per-second pace
+    private void stream(HttpExchange exchange, String contentType, List<String> parts) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, 0);
+        double pace = tokensPerSecond;
+
+        try (OutputStream out = exchange.getResponseBody()) {
+
+            for (String part : parts) {
+
+                if (pace > 0) {
+                    TimeUnit.NANOSECONDS.sleep((long) (1_000_000_000L / pace));
+                }
+                out.write(part.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns how many leading characters of the context were found in the cache
+    private int usePrefixCache(JsonNode request, String answer) {
+        String context = request.path("context").asText("");
+        promptChars.addAndGet(context.length());
+        String prefixId = request.path("prefix_id").asText(null);
+
+        if (prefixId == null) {
+            return 0;
+        }
+        String previous = prefixCache.put(prefixId, context + " " + answer + "\n");
+        int shared = 0;
+
+        if (previous != null) {
+            int limit = Math.min(previous.length(), context.length());
+
+            while (shared < limit && previous.charAt(shared) == context.charAt(shared)) {
+                shared++;
+            }
+            prefixHits.incrementAndGet();
+            reusedPromptChars.addAndGet(shared);
+        }
+        return shared;
+    }
+
+    private static String answerFor(String input) {
+        return "Respuesta a " + input;
+    }
+
+    // Every word but the last keeps the space after it, so the chunks add up to the answer exactly
+    private static List<String> words(String answer) {
+        String[] split = answer.split(" ");
+        List<String> words = new ArrayList<>(split.length);
+
+        for (int i = 0; i < split.length; i++) {
+            words.add(i < split.length - 1 ? split[i] + " " : split[i]);
+        }
+        return words;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}